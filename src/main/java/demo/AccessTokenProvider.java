@@ -0,0 +1,132 @@
+package demo;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mints OAuth access tokens from a service account key for the Realtime
+ * Database REST API, without starting the Firebase Admin SDK.
+ * Tokens are fetched on the provider's own thread, cached, and refreshed on a
+ * schedule shortly before they expire, so callers normally find a fresh one waiting.
+ */
+public class AccessTokenProvider {
+    private static final List<String> SCOPES = Arrays.asList(
+        "https://www.googleapis.com/auth/firebase.database",
+        "https://www.googleapis.com/auth/userinfo.email"
+    );
+    private static final long REFRESH_MARGIN_MILLIS = 60_000;       // Never hand out a token closer than this to expiry
+    private static final long REFRESH_AHEAD_MILLIS = 5 * 60_000;    // Scheduled refresh this long before expiry
+    private static final long RETRY_MILLIS = 30_000;                // Next scheduled try after a failed refresh
+
+    private final GoogleCredentials credentials;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "firebase-token");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile AccessToken cachedToken;
+    private CompletableFuture<AccessToken> pendingRefresh;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    private AccessTokenProvider(GoogleCredentials credentials) {
+        this.credentials = credentials;
+    }
+
+    /**
+     * Read the service account key straight from a stream (e.g. a classpath resource).
+     */
+    public static AccessTokenProvider fromStream(InputStream serviceAccount) throws IOException {
+        return new AccessTokenProvider(GoogleCredentials.fromStream(serviceAccount).createScoped(SCOPES));
+    }
+
+    /**
+     * A valid access token: right away when the cached one is usable, otherwise once the
+     * refresh on the token thread is done. Never blocks the caller.
+     */
+    public CompletableFuture<String> getTokenAsync() {
+        AccessToken token = cachedToken;
+        if (token != null && millisUntilExpiry(token, System.currentTimeMillis()) >= REFRESH_MARGIN_MILLIS) {
+            return CompletableFuture.completedFuture(token.getTokenValue());
+        }
+        return refreshAsync().thenApply(AccessToken::getTokenValue);
+    }
+
+    /**
+     * Blocking variant of {@link #getTokenAsync()} for tools and background threads.
+     * Must not be called on the JavaFX thread.
+     */
+    public String getToken() throws IOException {
+        try {
+            return getTokenAsync().join();
+        } catch (java.util.concurrent.CompletionException e) {
+            Throwable cause = e.getCause() instanceof java.io.UncheckedIOException unchecked ? unchecked.getCause() : e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        }
+    }
+
+    /**
+     * Fetch a token on the token thread; concurrent callers share the fetch. When it
+     * succeeds the next refresh is scheduled from the new token's expiry.
+     */
+    public synchronized CompletableFuture<AccessToken> refreshAsync() {
+        if (pendingRefresh != null && !pendingRefresh.isDone()) {
+            return pendingRefresh;
+        }
+        pendingRefresh = CompletableFuture.supplyAsync(() -> {
+            try {
+                return refresh();
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }, executor);
+        pendingRefresh.whenComplete((token, ex) -> {
+            if (ex != null) {
+                scheduleRefresh(RETRY_MILLIS);
+            } else if (token.getExpirationTime() != null) {
+                long remaining = millisUntilExpiry(token, System.currentTimeMillis());
+                // Short-lived tokens are refreshed halfway instead, never in a tight loop
+                scheduleRefresh(Math.max(remaining / 2, remaining - REFRESH_AHEAD_MILLIS));
+            }
+        });
+        return pendingRefresh;
+    }
+
+    private synchronized void scheduleRefresh(long delayMillis) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefresh = executor.schedule(() -> {
+            refreshAsync().exceptionally(ex -> {
+                Log.warn("Scheduled access token refresh failed", "error", ex.getMessage());
+                return null;
+            });
+        }, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Only runs on the token thread.
+     */
+    private AccessToken refresh() throws IOException {
+        AccessToken token = credentials.refreshAccessToken();
+        cachedToken = token;
+        Log.info("Access token refreshed", "expires", token.getExpirationTime());
+        return token;
+    }
+
+    private static long millisUntilExpiry(AccessToken token, long now) {
+        if (token.getExpirationTime() == null) {
+            return Long.MAX_VALUE;
+        }
+        return token.getExpirationTime().getTime() - now;
+    }
+}
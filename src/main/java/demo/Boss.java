@@ -0,0 +1,341 @@
+package demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+/**
+ * Armoured train boss (the Postapocalypce4 train art). It is made of dozens of parts - roof
+ * turrets, hull plates and wheels - that are damaged and destroyed one by one; the boss is
+ * beaten when none are left. Parts rattle independently while the train rolls in and sways,
+ * so their boxes are kept in a {@link HitboxTree} that is refit every tick, and projectile
+ * queries only descend into the parts near the projectile's path.
+ */
+public class Boss {
+    // Where the train is in train.png (1920x1080), cut off at the bottom of the wheels
+    private static final double ART_X = 428;
+    private static final double ART_Y = 308;
+    private static final double ART_WIDTH = 1456;
+    private static final double ART_HEIGHT = 444;
+    private static final double SCALE = 0.45;
+    static final double WIDTH = ART_WIDTH * SCALE;
+    static final double HEIGHT = ART_HEIGHT * SCALE;
+
+    private static final double ENTRY_SPEED = 2;   // px per tick while rolling in
+    private static final double SWAY = 25;         // px back and forth once stopped
+    // Movement is part of the simulation, so it uses StrictMath to be the same on every JVM
+
+    enum Kind {
+        TURRET(30, 1.0, 0.35),
+        HULL(40, 0.6, 0.2),
+        WHEEL(60, 1.5, 0.5);
+
+        final int health;
+        final double amplitude; // px of rattle
+        final double speed;     // radians per tick
+
+        Kind(int health, double amplitude, double speed) {
+            this.health = health;
+            this.amplitude = amplitude;
+            this.speed = speed;
+        }
+    }
+
+    // Parts in art coordinates: x, y, width, height
+    private static final List<double[]> LAYOUT = new ArrayList<>();
+    private static final List<Kind> KINDS = new ArrayList<>();
+
+    static {
+        row(Kind.TURRET, 530, 340, 1400, 440, 8);
+        row(Kind.HULL, 500, 440, 1600, 560, 10);
+        row(Kind.HULL, 460, 560, 1860, 690, 14);
+        part(Kind.WHEEL, 608, 690, 80, 62);
+        part(Kind.WHEEL, 832, 690, 80, 62);
+        part(Kind.WHEEL, 944, 690, 224, 62);
+        part(Kind.WHEEL, 1552, 690, 80, 62);
+        part(Kind.WHEEL, 1792, 690, 92, 62);
+    }
+
+    private static void row(Kind kind, double left, double top, double right, double bottom, int count) {
+        double width = (right - left) / count;
+        for (int i = 0; i < count; i++) {
+            part(kind, left + i * width, top, width, bottom - top);
+        }
+    }
+
+    private static void part(Kind kind, double x, double y, double width, double height) {
+        LAYOUT.add(new double[] {x, y, width, height});
+        KINDS.add(kind);
+    }
+
+    // Candidate parts of a tree query; per thread, since projectiles are searched in parallel
+    private static final ThreadLocal<int[]> CANDIDATES = ThreadLocal.withInitial(() -> new int[LAYOUT.size()]);
+
+    private final int partCount = LAYOUT.size();
+    private final double stopX;
+    private double x;
+    private double y;
+    private long ticks = 0;
+    private boolean arrived = false;
+    private int activeParts = partCount;
+
+    private final int[] health = new int[partCount];
+    // Part boxes now, how far they moved in the last update, and the boxes they swept doing so
+    private final double[] partLeft = new double[partCount];
+    private final double[] partTop = new double[partCount];
+    private final double[] moveX = new double[partCount];
+    private final double[] moveY = new double[partCount];
+    private final double[] sweptLeft = new double[partCount];
+    private final double[] sweptTop = new double[partCount];
+    private final double[] sweptRight = new double[partCount];
+    private final double[] sweptBottom = new double[partCount];
+    private final HitboxTree tree;
+
+    /**
+     * A boss that rolls in from {@code x} and stops with its right edge just inside the screen.
+     */
+    public Boss(double x, double groundY, double screenWidth) {
+        this.x = x;
+        this.y = groundY - HEIGHT;
+        this.stopX = screenWidth - WIDTH - SWAY - 20;
+
+        double[] centerX = new double[partCount];
+        double[] centerY = new double[partCount];
+        for (int p = 0; p < partCount; p++) {
+            health[p] = KINDS.get(p).health;
+            placePart(p);
+            centerX[p] = partLeft[p] + getPartWidth(p) / 2;
+            centerY[p] = partTop[p] + getPartHeight(p) / 2;
+        }
+        tree = new HitboxTree(centerX, centerY, partCount);
+        refit();
+    }
+
+    /**
+     * One tick: roll in or sway, rattle the parts and refit the hitbox tree.
+     */
+    public void update() {
+        ticks++;
+        if (!arrived) {
+            x = Math.max(stopX, x - ENTRY_SPEED);
+            arrived = x == stopX;
+        } else {
+            x = stopX + StrictMath.sin(ticks * 0.015) * SWAY;
+        }
+
+        for (int p = 0; p < partCount; p++) {
+            double oldLeft = partLeft[p];
+            double oldTop = partTop[p];
+            placePart(p);
+            moveX[p] = partLeft[p] - oldLeft;
+            moveY[p] = partTop[p] - oldTop;
+        }
+        refit();
+    }
+
+    private void placePart(int p) {
+        Kind kind = KINDS.get(p);
+        double[] art = LAYOUT.get(p);
+        double rattle = StrictMath.sin(ticks * kind.speed + p * 0.7) * kind.amplitude;
+        partLeft[p] = x + (art[0] - ART_X) * SCALE;
+        partTop[p] = y + (art[1] - ART_Y) * SCALE + rattle;
+    }
+
+    private void refit() {
+        for (int p = 0; p < partCount; p++) {
+            if (health[p] <= 0) {
+                // Empty box: destroyed parts drop out of every query
+                sweptLeft[p] = sweptTop[p] = Double.POSITIVE_INFINITY;
+                sweptRight[p] = sweptBottom[p] = Double.NEGATIVE_INFINITY;
+                continue;
+            }
+            double startLeft = partLeft[p] - moveX[p];
+            double startTop = partTop[p] - moveY[p];
+            sweptLeft[p] = Math.min(partLeft[p], startLeft);
+            sweptTop[p] = Math.min(partTop[p], startTop);
+            sweptRight[p] = Math.max(partLeft[p], startLeft) + getPartWidth(p);
+            sweptBottom[p] = Math.max(partTop[p], startTop) + getPartHeight(p);
+        }
+        tree.refit(sweptLeft, sweptTop, sweptRight, sweptBottom);
+    }
+
+    /**
+     * The part the projectile reaches first during this tick, ordered by time of impact and
+     * then by index, after the impact ({@code afterTime}, {@code afterPart}); -1 if none. Its
+     * time goes to {@code times[slot]}. Read-only, so projectiles can be searched in parallel.
+     */
+    int findHit(Projectile projectile, double afterTime, int afterPart, double[] times, int slot) {
+        if (!projectile.isActive()) return -1;
+        double left = Math.min(projectile.getX(), projectile.getPreviousX());
+        double top = Math.min(projectile.getY(), projectile.getPreviousY());
+        double right = Math.max(projectile.getX(), projectile.getPreviousX()) + projectile.getWidth();
+        double bottom = Math.max(projectile.getY(), projectile.getPreviousY()) + projectile.getHeight();
+        if (!tree.mayOverlap(left, top, right, bottom)) return -1;
+
+        int[] candidates = CANDIDATES.get();
+        int count = tree.collect(left, top, right, bottom, candidates);
+        int best = -1;
+        double bestTime = 0;
+        for (int k = 0; k < count; k++) {
+            int part = candidates[k];
+            double time = getImpactTime(projectile, part);
+            if (time < 0 || time < afterTime || (time == afterTime && part <= afterPart)) continue;
+            if (best < 0 || time < bestTime || (time == bestTime && part < best)) {
+                best = part;
+                bestTime = time;
+            }
+        }
+        times[slot] = bestTime;
+        return best;
+    }
+
+    /**
+     * Swept time of impact of the projectile on one part, or -1.
+     */
+    double getImpactTime(Projectile projectile, int part) {
+        if (health[part] <= 0) return -1;
+        return projectile.sweptImpactTime(partLeft[part], partTop[part], getPartWidth(part), getPartHeight(part),
+            moveX[part], moveY[part]);
+    }
+
+    /**
+     * Whether a live part overlaps the box.
+     */
+    public boolean touches(double bx, double by, double bWidth, double bHeight) {
+        if (!tree.mayOverlap(bx, by, bx + bWidth, by + bHeight)) return false;
+        int[] candidates = CANDIDATES.get();
+        int count = tree.collect(bx, by, bx + bWidth, by + bHeight, candidates);
+        for (int k = 0; k < count; k++) {
+            int p = candidates[k];
+            if (bx < partLeft[p] + getPartWidth(p) && bx + bWidth > partLeft[p] &&
+                by < partTop[p] + getPartHeight(p) && by + bHeight > partTop[p]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Damage a part; returns true if this destroyed it. The tree drops it on the next refit.
+     */
+    public boolean damagePart(int part, int damage) {
+        if (health[part] <= 0) return false;
+        health[part] -= damage;
+        if (health[part] > 0) return false;
+        health[part] = 0;
+        activeParts--;
+        return true;
+    }
+
+    /**
+     * A random live turret, or -1 once they are all destroyed.
+     */
+    int pickTurret(Random random) {
+        int turrets = 0;
+        for (int p = 0; p < partCount; p++) {
+            if (health[p] > 0 && KINDS.get(p) == Kind.TURRET) turrets++;
+        }
+        if (turrets == 0) return -1;
+        int pick = random.nextInt(turrets);
+        for (int p = 0; p < partCount; p++) {
+            if (health[p] > 0 && KINDS.get(p) == Kind.TURRET && pick-- == 0) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    public void render(GraphicsContext gc, Image art, boolean debugMode) {
+        if (art != null) {
+            gc.drawImage(art, ART_X, ART_Y, ART_WIDTH, ART_HEIGHT, x, y, WIDTH, HEIGHT);
+        }
+
+        for (int p = 0; p < partCount; p++) {
+            double width = getPartWidth(p);
+            double height = getPartHeight(p);
+            if (health[p] <= 0) {
+                // Burnt out
+                gc.setFill(Color.rgb(20, 15, 10, 0.8));
+                gc.fillRect(partLeft[p], partTop[p], width, height);
+                continue;
+            }
+            double[] layout = LAYOUT.get(p);
+            if (art != null) {
+                // Redraw the part where it rattled to
+                gc.drawImage(art, layout[0], layout[1], layout[2], layout[3], partLeft[p], partTop[p], width, height);
+            } else {
+                gc.setFill(Color.rgb(70, 60, 50));
+                gc.fillRect(partLeft[p], partTop[p], width, height);
+            }
+            if (health[p] < KINDS.get(p).health) {
+                gc.setFill(Color.rgb(150, 0, 0, 0.35)); // Damaged
+                gc.fillRect(partLeft[p], partTop[p], width, height);
+            }
+        }
+
+        // Health bar: share of parts left
+        double barY = y - 30;
+        gc.setFill(Color.DARKGRAY);
+        gc.fillRect(x, barY, WIDTH, 8);
+        gc.setFill(Color.ORANGERED);
+        gc.fillRect(x, barY, WIDTH * activeParts / partCount, 8);
+
+        // Debug: Draw part hitboxes and the tree's node boxes
+        if (debugMode) {
+            gc.setLineWidth(1);
+            gc.setStroke(Color.MAGENTA);
+            for (int node = 0; node < tree.getNodeCount(); node++) {
+                double[] box = tree.getNodeBox(node);
+                if (box[0] <= box[2]) {
+                    gc.strokeRect(box[0], box[1], box[2] - box[0], box[3] - box[1]);
+                }
+            }
+            gc.setStroke(Color.CYAN);
+            for (int p = 0; p < partCount; p++) {
+                if (health[p] > 0) {
+                    gc.strokeRect(partLeft[p], partTop[p], getPartWidth(p), getPartHeight(p));
+                }
+            }
+        }
+    }
+
+    public boolean isDestroyed() {
+        return activeParts == 0;
+    }
+
+    public boolean hasArrived() {
+        return arrived;
+    }
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    public int getActiveParts() {
+        return activeParts;
+    }
+
+    public boolean isPartActive(int part) {
+        return health[part] > 0;
+    }
+
+    public double getPartCenterX(int part) {
+        return partLeft[part] + getPartWidth(part) / 2;
+    }
+
+    public double getPartCenterY(int part) {
+        return partTop[part] + getPartHeight(part) / 2;
+    }
+
+    private double getPartWidth(int part) {
+        return LAYOUT.get(part)[2] * SCALE;
+    }
+
+    private double getPartHeight(int part) {
+        return LAYOUT.get(part)[3] * SCALE;
+    }
+}
@@ -0,0 +1,77 @@
+package demo;
+
+import java.util.Random;
+
+/**
+ * Measures boss hit queries through its hitbox tree against testing every part, with the boss
+ * animating between rounds, and checks that both find the same part and time for every
+ * projectile. Also reports the cost of the per-tick update and refit.
+ *
+ * Usage: java -cp target/classes:... demo.BossBenchmark [projectiles] [ticks]
+ */
+public class BossBenchmark {
+    private static final int WARMUP_TICKS = 300;
+
+    public static void main(String[] args) {
+        int projectiles = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+
+        Boss boss = new Boss(400, 600, 1280);
+        Random random = new Random(3);
+        for (int p = 0; p < boss.getPartCount(); p += 3) {
+            boss.damagePart(p, 1000); // Some parts already destroyed, as mid-fight
+        }
+        System.out.printf("%d parts (%d left), %d projectiles per tick, %d ticks%n",
+            boss.getPartCount(), boss.getActiveParts(), projectiles, ticks);
+
+        double[] times = new double[1];
+        long treeNanos = 0, linearNanos = 0, updateNanos = 0;
+        long hits = 0, mismatches = 0;
+        for (int t = -WARMUP_TICKS; t < ticks; t++) {
+            long start = System.nanoTime();
+            boss.update();
+            long updated = System.nanoTime();
+            if (t >= 0) updateNanos += updated - start;
+
+            Projectile[] shots = new Projectile[projectiles];
+            for (int i = 0; i < projectiles; i++) {
+                shots[i] = new Projectile(random.nextDouble() * 1280, 350 + random.nextDouble() * 250,
+                    8 + random.nextDouble() * 40, (random.nextDouble() - 0.5) * 4, true);
+                shots[i].update();
+            }
+
+            int[] treeParts = new int[projectiles];
+            double[] treeTimes = new double[projectiles];
+            start = System.nanoTime();
+            for (int i = 0; i < projectiles; i++) {
+                treeParts[i] = boss.findHit(shots[i], -1, -1, times, 0);
+                treeTimes[i] = times[0];
+            }
+            long searched = System.nanoTime();
+            for (int i = 0; i < projectiles; i++) {
+                int best = -1;
+                double bestTime = 0;
+                for (int p = 0; p < boss.getPartCount(); p++) {
+                    double time = boss.getImpactTime(shots[i], p);
+                    if (time >= 0 && (best < 0 || time < bestTime)) {
+                        best = p;
+                        bestTime = time;
+                    }
+                }
+                if (best != treeParts[i] || (best >= 0 && bestTime != treeTimes[i])) mismatches++;
+                if (best >= 0 && t >= 0) hits++;
+            }
+            long scanned = System.nanoTime();
+            if (t >= 0) {
+                treeNanos += searched - start;
+                linearNanos += scanned - searched;
+            }
+        }
+
+        long queries = (long) projectiles * ticks;
+        System.out.printf("update + refit       %8.2f us/tick%n", updateNanos / 1000.0 / ticks);
+        System.out.printf("query via tree       %8.1f ns/projectile%n", (double) treeNanos / queries);
+        System.out.printf("query every part     %8.1f ns/projectile%n", (double) linearNanos / queries);
+        System.out.printf("%.0f of %d projectiles hit per tick, results differ: %d%n", (double) hits / ticks, projectiles, mismatches);
+    }
+}
@@ -0,0 +1,38 @@
+package demo;
+
+import java.util.Random;
+
+/**
+ * Random but plausible per-tick input for headless runs: held keys that change every
+ * half second or so, occasional upgrade purchases and (optionally) short pauses.
+ */
+class BotInput {
+    private final Random policy;
+    private final boolean pauses;
+    private int held = 0;
+    private int pausedTicks = 0;
+
+    BotInput(Random policy, boolean pauses) {
+        this.policy = policy;
+        this.pauses = pauses;
+    }
+
+    int next() {
+        if (policy.nextInt(30) == 0) {
+            held = policy.nextInt(16); // Any mix of left, right, shoot and jump
+        }
+        if (pauses && pausedTicks == 0 && policy.nextInt(2000) == 0) {
+            pausedTicks = 30 + policy.nextInt(120);
+        }
+
+        int input = held;
+        if (pausedTicks > 0) {
+            input |= InputLog.PAUSED;
+            pausedTicks--;
+        }
+        if (policy.nextInt(600) == 0) {
+            input |= InputLog.purchaseBit(UpgradeType.values()[policy.nextInt(UpgradeType.values().length)]);
+        }
+        return input;
+    }
+}
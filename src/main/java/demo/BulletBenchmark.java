@@ -0,0 +1,82 @@
+package demo;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bullet-hell stress scenario: a normal run with the screen kept full of enemy bullets from
+ * ring patterns, at several bullet counts. Reports simulation tick time against the 16.7 ms
+ * frame budget and checks that two tick threads produce exactly the same run as one.
+ *
+ * Usage: java -cp target/classes:... demo.BulletBenchmark [--bullets 1000,2500,5000,10000] [--ticks 600]
+ */
+public class BulletBenchmark {
+    private static final int WARMUP_TICKS = 600;
+    private static final long SEED = 42;
+    private static final double FRAME_BUDGET_MS = 1000.0 / 60;
+
+    public static void main(String[] args) {
+        int[] bulletCounts = {1000, 2500, 5000, 10_000};
+        int ticks = 600;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--bullets":
+                    bulletCounts = Arrays.stream(args[i + 1].split(",")).mapToInt(n -> Integer.parseInt(n.trim())).toArray();
+                    break;
+                case "--ticks":
+                    ticks = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+
+        System.out.printf("%d ticks per row, pattern: %s%n", ticks, BulletPattern.RING);
+        System.out.printf("%-8s %9s %9s %9s %9s %9s  %s%n", "bullets", "live", "mean ms", "p50 ms", "p99 ms",
+            "% budget", "same run on 2 threads");
+        int most = Arrays.stream(bulletCounts).max().orElse(0);
+        ForkJoinPool pool = Game.createTickPool(2);
+        try {
+            runLoad(pool, WARMUP_TICKS, most, null, null); // Compile the parallel path too before anything is timed
+            for (int bullets : bulletCounts) {
+                LatencyHistogram tickTimes = new LatencyHistogram();
+                long[] single = new long[ticks];
+                runLoad(null, WARMUP_TICKS, bullets, null, null);
+                long live = runLoad(null, ticks, bullets, tickTimes, single);
+
+                long[] parallel = new long[ticks];
+                runLoad(pool, ticks, bullets, null, parallel);
+
+                double p99 = tickTimes.getPercentileMillis(0.99);
+                System.out.printf("%-8d %9d %9.3f %9.3f %9.3f %8.1f%%  %s%n", bullets, live / ticks,
+                    tickTimes.getMeanMillis(), tickTimes.getPercentileMillis(0.50), p99,
+                    100 * p99 / FRAME_BUDGET_MS, Arrays.equals(single, parallel) ? "yes" : "NO");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * One run from a fixed seed with scripted input, topped up with bullets before every tick.
+     * Returns the sum of the bullets alive after each tick.
+     */
+    private static long runLoad(ForkJoinPool pool, int ticks, int bullets, LatencyHistogram tickTimes, long[] checksums) {
+        Game game = new Game(SEED, null, pool);
+        BotInput bot = new BotInput(new Random(SEED + 1), false);
+        Random load = new Random(SEED + 2);
+        long live = 0;
+        for (int i = 0; i < ticks; i++) {
+            game.addBulletLoad(load, bullets);
+            int input = bot.next();
+            long start = System.nanoTime();
+            game.step(input);
+            if (tickTimes != null) tickTimes.record(System.nanoTime() - start);
+            if (checksums != null) checksums[i] = game.getStateChecksum();
+            live += game.getEnemyBulletCount();
+        }
+        return live;
+    }
+}
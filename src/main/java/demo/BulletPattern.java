@@ -0,0 +1,102 @@
+package demo;
+
+/**
+ * How an enemy fires: one or more volleys of bullets fanned out over an arc. An aimed pattern
+ * centers its arc on the player, the others on a fixed direction that turns by {@code spin}
+ * after every volley, which gives rings and spirals. Angles are in radians, 0 is to the right
+ * and positive is clockwise on screen. Patterns are plain data; {@link Emitter} plays them.
+ */
+final class BulletPattern {
+    private static final double FULL_CIRCLE = 2 * Math.PI;
+
+    /** One aimed shot, what every shooting enemy used to fire. */
+    static final BulletPattern AIMED = new BulletPattern("aimed", true, 1, 0, 5, 1, 0, 0);
+    /** Three quick aimed shots. */
+    static final BulletPattern BURST = new BulletPattern("burst", true, 1, 0, 5.5, 3, 6, 0);
+    /** A fan of five aimed at the player. */
+    static final BulletPattern SPREAD = new BulletPattern("spread", true, 5, Math.toRadians(50), 4.5, 1, 0, 0);
+    /** Sixteen bullets in every direction at once. */
+    static final BulletPattern RING = new BulletPattern("ring", false, 16, FULL_CIRCLE, 3.5, 1, 0, 0);
+    /** Three arms that turn while the pattern plays. */
+    static final BulletPattern SPIRAL = new BulletPattern("spiral", false, 3, FULL_CIRCLE, 3.5, 24, 4, 0.22);
+
+    private final String name;
+    private final boolean aimed;
+    private final int bullets;        // Per volley
+    private final double arc;         // Spread of a volley; a full circle spaces the bullets evenly around
+    private final double speed;       // px per tick
+    private final int volleys;
+    private final int volleyInterval; // Ticks between volleys
+    private final double spin;        // Turn per volley
+
+    BulletPattern(String name, boolean aimed, int bullets, double arc, double speed,
+                  int volleys, int volleyInterval, double spin) {
+        if (bullets < 1 || volleys < 1 || (volleys > 1 && volleyInterval < 1)) {
+            throw new IllegalArgumentException("Invalid bullet pattern " + name);
+        }
+        this.name = name;
+        this.aimed = aimed;
+        this.bullets = bullets;
+        this.arc = arc;
+        this.speed = speed;
+        this.volleys = volleys;
+        this.volleyInterval = volleyInterval;
+        this.spin = spin;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Fire volley number {@code volley} from (x, y) into the store. Uses StrictMath so the
+     * directions, which are part of the simulation, are the same on every JVM.
+     */
+    void fireVolley(int volley, double x, double y, double targetX, double targetY, ProjectileStore store) {
+        double center = spin * volley;
+        if (aimed) {
+            center += StrictMath.atan2(targetY - y, targetX - x);
+        }
+        double step;
+        double first;
+        if (arc >= FULL_CIRCLE) {
+            step = arc / bullets;
+            first = center;
+        } else {
+            step = bullets > 1 ? arc / (bullets - 1) : 0;
+            first = center - arc / 2;
+        }
+        for (int i = 0; i < bullets; i++) {
+            double angle = first + step * i;
+            store.add(x, y, StrictMath.cos(angle) * speed, StrictMath.sin(angle) * speed);
+        }
+    }
+
+    /**
+     * A pattern being played, one volley every {@code volleyInterval} ticks. Whoever fires it
+     * ticks it with the current origin, so it follows a moving enemy.
+     */
+    static final class Emitter {
+        private final BulletPattern pattern;
+        private int volley = 0;
+        private int wait = 0;
+
+        Emitter(BulletPattern pattern) {
+            this.pattern = pattern;
+        }
+
+        /**
+         * Fire the volley due this tick, if any. Returns false once the pattern is done.
+         */
+        boolean tick(double x, double y, double targetX, double targetY, ProjectileStore store) {
+            if (wait > 0) {
+                wait--;
+                return true;
+            }
+            pattern.fireVolley(volley++, x, y, targetX, targetY, store);
+            wait = pattern.volleyInterval - 1;
+            return volley < pattern.volleys;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package demo;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Circuit breaker for calls to a remote service.
+ * After {@code failureThreshold} consecutive failures it opens and calls fail fast for
+ * {@code openMillis}; then a single probe call is let through (half-open). A successful
+ * probe closes the breaker again, a failed one reopens it.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final List<Consumer<State>> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean probeInFlight = false;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Whether a call may go out now. In the half-open state only one probe is allowed at a time.
+     */
+    public boolean allowRequest() {
+        State changed = null;
+        boolean allowed;
+        synchronized (this) {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                state = changed = State.HALF_OPEN;
+                probeInFlight = false;
+            }
+            if (state == State.HALF_OPEN) {
+                allowed = !probeInFlight;
+                probeInFlight = true;
+            } else {
+                allowed = state == State.CLOSED;
+            }
+        }
+        notifyListeners(changed);
+        return allowed;
+    }
+
+    public void recordSuccess() {
+        State changed = null;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            probeInFlight = false;
+            if (state != State.CLOSED) {
+                state = changed = State.CLOSED;
+            }
+        }
+        notifyListeners(changed);
+    }
+
+    public void recordFailure() {
+        State changed = null;
+        synchronized (this) {
+            consecutiveFailures++;
+            probeInFlight = false;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = changed = State.OPEN;
+                openedAt = System.currentTimeMillis();
+            } else if (state == State.OPEN) {
+                openedAt = System.currentTimeMillis(); // A late failure from before the breaker opened
+            }
+        }
+        notifyListeners(changed);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Milliseconds until a probe is allowed, 0 unless open.
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) return 0;
+        return Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+    }
+
+    /**
+     * Listeners are called on the thread that caused the transition.
+     */
+    public void addListener(Consumer<State> listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners(State changed) {
+        if (changed == null) return;
+        Log.info("Circuit breaker " + name + " is now " + changed);
+        for (Consumer<State> listener : listeners) {
+            listener.accept(changed);
+        }
+    }
+}
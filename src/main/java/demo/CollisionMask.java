@@ -0,0 +1,176 @@
+package demo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pixel-accurate collision shape: one {@code long} per row, bit i set when pixel column i is
+ * solid. Two masks are tested by shifting one row onto the other and AND-ing, so a test costs
+ * a couple of word operations per overlapping row. Masks are built once per sprite from the
+ * shapes it is drawn with, sampled at pixel centers; they are at most 64 pixels wide.
+ *
+ * Positions are in game coordinates: the mask's pixel (0, 0) sits at the entity's position plus
+ * ({@link #getLeft()}, {@link #getTop()}). Only call the tests once the bounding boxes overlap.
+ */
+final class CollisionMask {
+    private final int left;
+    private final int top;
+    private final int width;
+    private final int height;
+    private final long[] rows;
+
+    private CollisionMask(int left, int top, int width, int height, long[] rows) {
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+        this.rows = rows;
+    }
+
+    /**
+     * A solid rectangle from the entity's position, e.g. for the player.
+     */
+    static CollisionMask rect(double width, double height) {
+        return new Builder().rect(0, 0, width, height).build();
+    }
+
+    int getLeft() {
+        return left;
+    }
+
+    int getTop() {
+        return top;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Whether this mask at (x, y) and {@code other} at (otherX, otherY) share a solid pixel.
+     * The other mask is aligned to the nearest pixel of this one.
+     */
+    boolean overlaps(double x, double y, CollisionMask other, double otherX, double otherY) {
+        int dx = (int) Math.round(otherX + other.left - (x + left));
+        int dy = (int) Math.round(otherY + other.top - (y + top));
+        if (dx >= width || -dx >= other.width) return false; // Also keeps the shifts below 64
+        int from = Math.max(0, dy);
+        int to = Math.min(height, dy + other.height);
+        for (int row = from; row < to; row++) {
+            long shifted = dx >= 0 ? other.rows[row - dy] << dx : other.rows[row - dy] >>> -dx;
+            if ((rows[row] & shifted) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether this mask at (x, y) has a solid pixel inside the rectangle.
+     */
+    boolean overlapsRect(double x, double y, double rectX, double rectY, double rectWidth, double rectHeight) {
+        int fromColumn = Math.max(0, (int) Math.round(rectX - (x + left)));
+        int toColumn = Math.min(width, (int) Math.round(rectX + rectWidth - (x + left)));
+        int fromRow = Math.max(0, (int) Math.round(rectY - (y + top)));
+        int toRow = Math.min(height, (int) Math.round(rectY + rectHeight - (y + top)));
+        if (fromColumn >= toColumn) return false;
+        long columns = columnBits(fromColumn, toColumn);
+        for (int row = fromRow; row < toRow; row++) {
+            if ((rows[row] & columns) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long columnBits(int from, int to) {
+        long bits = to - from == 64 ? -1L : (1L << (to - from)) - 1;
+        return bits << from;
+    }
+
+    private interface Shape {
+        boolean contains(double px, double py);
+    }
+
+    /**
+     * Collects the filled shapes a sprite is drawn with, in coordinates relative to the
+     * entity's position (the same numbers as in its render code).
+     */
+    static final class Builder {
+        private final List<Shape> shapes = new ArrayList<>();
+        private double minX = Double.POSITIVE_INFINITY;
+        private double minY = Double.POSITIVE_INFINITY;
+        private double maxX = Double.NEGATIVE_INFINITY;
+        private double maxY = Double.NEGATIVE_INFINITY;
+
+        Builder rect(double x, double y, double width, double height) {
+            include(x, y, x + width, y + height);
+            shapes.add((px, py) -> px >= x && px < x + width && py >= y && py < y + height);
+            return this;
+        }
+
+        Builder oval(double x, double y, double width, double height) {
+            include(x, y, x + width, y + height);
+            double centerX = x + width / 2;
+            double centerY = y + height / 2;
+            shapes.add((px, py) -> {
+                double nx = (px - centerX) / (width / 2);
+                double ny = (py - centerY) / (height / 2);
+                return nx * nx + ny * ny <= 1;
+            });
+            return this;
+        }
+
+        Builder triangle(double x1, double y1, double x2, double y2, double x3, double y3) {
+            include(Math.min(x1, Math.min(x2, x3)), Math.min(y1, Math.min(y2, y3)),
+                Math.max(x1, Math.max(x2, x3)), Math.max(y1, Math.max(y2, y3)));
+            shapes.add((px, py) -> {
+                double d1 = (px - x2) * (y1 - y2) - (x1 - x2) * (py - y2);
+                double d2 = (px - x3) * (y2 - y3) - (x2 - x3) * (py - y3);
+                double d3 = (px - x1) * (y3 - y1) - (x3 - x1) * (py - y1);
+                boolean negative = d1 < 0 || d2 < 0 || d3 < 0;
+                boolean positive = d1 > 0 || d2 > 0 || d3 > 0;
+                return !(negative && positive);
+            });
+            return this;
+        }
+
+        CollisionMask build() {
+            if (shapes.isEmpty()) {
+                throw new IllegalStateException("Collision mask has no shapes");
+            }
+            int left = (int) Math.floor(minX);
+            int top = (int) Math.floor(minY);
+            int width = (int) Math.ceil(maxX) - left;
+            int height = (int) Math.ceil(maxY) - top;
+            if (width > 64) {
+                throw new IllegalArgumentException("Collision mask is " + width + " pixels wide, at most 64 are supported");
+            }
+            long[] rows = new long[height];
+            for (int row = 0; row < height; row++) {
+                for (int column = 0; column < width; column++) {
+                    double px = left + column + 0.5;
+                    double py = top + row + 0.5;
+                    for (Shape shape : shapes) {
+                        if (shape.contains(px, py)) {
+                            rows[row] |= 1L << column;
+                            break;
+                        }
+                    }
+                }
+            }
+            return new CollisionMask(left, top, width, height, rows);
+        }
+
+        private void include(double x1, double y1, double x2, double y2) {
+            minX = Math.min(minX, x1);
+            minY = Math.min(minY, y1);
+            maxX = Math.max(maxX, x2);
+            maxY = Math.max(maxY, y2);
+        }
+    }
+}
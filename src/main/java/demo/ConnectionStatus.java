@@ -0,0 +1,8 @@
+package demo;
+
+public enum ConnectionStatus {
+    CONNECTING,     // Initialization still running in the background
+    CONNECTED,      // Ready to read and write scores
+    UNREACHABLE,    // Circuit breaker open after repeated failures, scores are saved locally
+    OFFLINE         // No key or initialization failed, playing offline
+}
@@ -6,6 +6,7 @@ import javafx.scene.paint.Color;
 public class Enemy {
     private double x;
     private double y;
+    private double previousX; // Position before the last update, for swept collision
     private double width;
     private double height;
     private double speed;
@@ -13,22 +14,45 @@ public class Enemy {
     private boolean active = true;
     private double animationTimer = 0;
     private double bobOffset = 0;
+    private double previousBobOffset = 0;
     private EnemyType type;
     private int currentHealth;
     private int maxHealth;
-    private double shootCooldown = 0;
-    private double timeSinceLastShot = 0;
+    // Shoot cooldown is a timer on the game's wheel; it only raises shootReady
+    private final TimerWheel.Timer shootTimer = new TimerWheel.Timer(() -> shootReady = true);
+    private boolean shootReady = false;
+    private BulletPattern.Emitter emitter; // Pattern being fired, null between shots
+    
+    // Per type: updates until the cooldown is over. The cooldown used to be counted up by 0.016
+    // per update, this is the same number of steps including the rounding of that sum
+    private static final int[] COOLDOWN_UPDATES = new int[EnemyType.values().length];
+    
+    // Per type: the solid pixels of the sprite drawn by render, relative to (x, y + bobOffset)
+    private static final CollisionMask[] MASKS = new CollisionMask[EnemyType.values().length];
+    
+    static {
+        for (EnemyType type : EnemyType.values()) {
+            MASKS[type.ordinal()] = spriteMask(type);
+            double elapsed = 0;
+            int updates = 0;
+            while (elapsed < type.getShootCooldown()) {
+                elapsed += 0.016; // ~60fps
+                updates++;
+            }
+            COOLDOWN_UPDATES[type.ordinal()] = updates;
+        }
+    }
     
     public Enemy(double x, double y, EnemyType type) {
         this.x = x;
         this.y = y;
+        this.previousX = x;
         this.type = type;
         this.width = type.getWidth();
         this.height = type.getHeight();
         this.speed = type.getSpeed();
         this.maxHealth = type.getMaxHealth();
         this.currentHealth = maxHealth;
-        this.shootCooldown = type.getShootCooldown();
         
         // Set color based on type
         switch (type) {
@@ -50,19 +74,17 @@ public class Enemy {
     }
     
     public void update() {
+        previousX = x;
+        previousBobOffset = bobOffset;
         x -= speed; // Move left
         animationTimer += 0.1;
         
-        // Bob up and down for flying enemies
+        // Bob up and down for flying enemies. The bob moves the hitbox, so it uses StrictMath
+        // to come out the same on every JVM and replays stay exact
         if (type.canFly()) {
-            bobOffset = Math.sin(animationTimer) * 8;
+            bobOffset = StrictMath.sin(animationTimer) * 8;
         } else {
-            bobOffset = Math.sin(animationTimer) * 3;
-        }
-        
-        // Update shoot cooldown
-        if (type.canShoot()) {
-            timeSinceLastShot += 0.016; // ~60fps
+            bobOffset = StrictMath.sin(animationTimer) * 3;
         }
         
         // Deactivate if off screen
@@ -72,11 +94,51 @@ public class Enemy {
     }
     
     public boolean canShoot() {
-        return type.canShoot() && timeSinceLastShot >= shootCooldown;
+        return shootReady;
+    }
+    
+    /**
+     * Start firing the type's bullet pattern; it plays out over the next ticks in {@link #firePattern}.
+     */
+    void startPattern() {
+        emitter = new BulletPattern.Emitter(type.getPattern());
+    }
+    
+    /**
+     * Fire this tick's volley of the current pattern, if any, from the enemy's gun at the target.
+     */
+    void firePattern(double targetX, double targetY, ProjectileStore bullets) {
+        if (emitter != null && !emitter.tick(x, y + 20, targetX, targetY, bullets)) {
+            emitter = null;
+        }
+    }
+    
+    /**
+     * Start the first cooldown when the enemy enters the game, before its first update.
+     */
+    void startShootCooldown(TimerWheel timers) {
+        if (!type.canShoot()) return;
+        int updates = COOLDOWN_UPDATES[type.ordinal()];
+        if (updates <= 1) {
+            shootReady = true; // Ready after the first update, which runs this tick
+        } else {
+            timers.schedule(shootTimer, updates - 1);
+        }
+    }
+    
+    /**
+     * Start the next cooldown after a shot (this tick's update has already run).
+     */
+    void resetShootCooldown(TimerWheel timers) {
+        shootReady = false;
+        timers.schedule(shootTimer, COOLDOWN_UPDATES[type.ordinal()]);
     }
     
-    public void resetShootCooldown() {
-        timeSinceLastShot = 0;
+    /**
+     * Drop the pending cooldown when the enemy leaves the game.
+     */
+    void cancelShootCooldown(TimerWheel timers) {
+        timers.cancel(shootTimer);
     }
     
     public void takeDamage(int damage) {
@@ -149,14 +211,30 @@ public class Enemy {
         // Draw type indicator
         drawTypeIndicator(gc, renderY);
         
-        // Debug: Draw hitbox
+        // Debug: Draw hitbox (the bounds of the collision mask)
         if (debugMode) {
+            CollisionMask mask = getMask();
             gc.setStroke(Color.CYAN);
             gc.setLineWidth(2);
-            gc.strokeRect(x, y, width, height);
+            gc.strokeRect(x + mask.getLeft(), renderY + mask.getTop(), mask.getWidth(), mask.getHeight());
         }
     }
     
+    /**
+     * The opaque shapes of the sprite: the body with its outline and the horns. The shadow,
+     * eyes and mouth are inside the body or translucent, and the flying wings are translucent
+     * too. The health bar and type markers are not part of the enemy. Keep in sync with render.
+     */
+    private static CollisionMask spriteMask(EnemyType type) {
+        double width = type.getWidth();
+        double height = type.getHeight();
+        return new CollisionMask.Builder()
+            .rect(-2, -2, width + 4, height + 4)
+            .triangle(5, 0, 10, 0, 7, -8)
+            .triangle(width - 10, 0, width - 5, 0, width - 7, -8)
+            .build();
+    }
+    
     private void drawHealthBar(GraphicsContext gc) {
         double barWidth = width;
         double barHeight = 4;
@@ -210,10 +288,33 @@ public class Enemy {
     
     public boolean collidesWith(double px, double py, double pWidth, double pHeight) {
         if (!active) return false;
-        return px < x + width && 
-               px + pWidth > x && 
-               py < y + height && 
-               py + pHeight > y;
+        CollisionMask mask = getMask();
+        double left = x + mask.getLeft();
+        double top = getHitY() + mask.getTop();
+        // Bounding boxes first, then the sprite's pixels
+        return px < left + mask.getWidth() && 
+               px + pWidth > left && 
+               py < top + mask.getHeight() && 
+               py + pHeight > top &&
+               mask.overlapsRect(x, getHitY(), px, py, pWidth, pHeight);
+    }
+    
+    CollisionMask getMask() {
+        return MASKS[type.ordinal()];
+    }
+    
+    /**
+     * Vertical position of the sprite and its mask, which bob around y.
+     */
+    public double getHitY() {
+        return y + bobOffset;
+    }
+    
+    /**
+     * Vertical distance the sprite moved in the last update.
+     */
+    public double getMoveY() {
+        return bobOffset - previousBobOffset;
     }
     
     public boolean isActive() {
@@ -224,6 +325,13 @@ public class Enemy {
         return x;
     }
     
+    /**
+     * Horizontal distance moved by the last update.
+     */
+    public double getMoveX() {
+        return x - previousX;
+    }
+    
     public double getY() {
         return y;
     }
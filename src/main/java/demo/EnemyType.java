@@ -1,10 +1,10 @@
 package demo;
 
 public enum EnemyType {
-    ZOMBIE(60, 1.5, 40, 50, false, 0),           // Slow, high health, ground
-    RUNNER(30, 3.0, 40, 40, false, 0),           // Fast, medium health, ground
-    FLYING(40, 2.0, 35, 35, true, 4.0),          // Flying, bobs high
-    SHOOTER(50, 1.8, 40, 40, false, 3.0);        // Shoots projectiles
+    ZOMBIE(60, 1.5, 40, 50, false, 0, null),                     // Slow, high health, ground
+    RUNNER(30, 3.0, 40, 40, false, 0, null),                     // Fast, medium health, ground
+    FLYING(40, 2.0, 35, 35, true, 4.0, BulletPattern.SPREAD),    // Flying, bobs high, fans shots out
+    SHOOTER(50, 1.8, 40, 40, false, 3.0, BulletPattern.BURST);   // Shoots aimed bursts
     
     private final int maxHealth;
     private final double speed;
@@ -12,14 +12,17 @@ public enum EnemyType {
     private final double height;
     private final boolean canFly;
     private final double shootCooldown; // seconds, 0 = doesn't shoot
+    private final BulletPattern pattern; // What it fires when the cooldown is over
     
-    EnemyType(int maxHealth, double speed, double width, double height, boolean canFly, double shootCooldown) {
+    EnemyType(int maxHealth, double speed, double width, double height, boolean canFly, double shootCooldown,
+              BulletPattern pattern) {
         this.maxHealth = maxHealth;
         this.speed = speed;
         this.width = width;
         this.height = height;
         this.canFly = canFly;
         this.shootCooldown = shootCooldown;
+        this.pattern = pattern;
     }
     
     public int getMaxHealth() {
@@ -46,6 +49,10 @@ public enum EnemyType {
         return shootCooldown;
     }
     
+    BulletPattern getPattern() {
+        return pattern;
+    }
+    
     public boolean canShoot() {
         return shootCooldown > 0;
     }
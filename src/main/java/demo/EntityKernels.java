@@ -0,0 +1,81 @@
+package demo;
+
+/**
+ * The per-tick inner loops over entities kept in primitive arrays (structure of arrays).
+ * {@link #get()} picks the SIMD implementation (see VectorKernels) when the Vector API is
+ * available, otherwise the scalar one; both give bit-identical results.
+ *
+ * The Vector API is an incubator module: run with --add-modules jdk.incubator.vector
+ * (mvn javafx:run does), -Dgame.simd=false forces the scalar loops.
+ */
+abstract class EntityKernels {
+    private static final EntityKernels INSTANCE = select();
+
+    static EntityKernels get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Move particles [from, to) by their velocity, apply gravity and age them one tick.
+     */
+    abstract void integrate(double[] x, double[] y, double[] vx, double[] vy, double[] life,
+                            int from, int to, double gravity);
+
+    /**
+     * Index of the first box in [from, to) that overlaps the box (x, y, width, height), or -1.
+     * Boxes are given by their edges; an overlap must be strict on every side.
+     */
+    abstract int firstOverlap(double x, double y, double width, double height,
+                              double[] left, double[] top, double[] right, double[] bottom, int from, int to);
+
+    /**
+     * e.g. "scalar" or "vector (8 x double)".
+     */
+    abstract String describe();
+
+    private static EntityKernels select() {
+        EntityKernels kernels = new Scalar();
+        boolean wanted = Boolean.parseBoolean(System.getProperty("game.simd", "true"));
+        if (wanted && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name so the scalar path never links against the incubator module
+                kernels = (EntityKernels) Class.forName("demo.VectorKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                Log.warn("Vector API unavailable, using scalar entity kernels", "error", e.toString());
+            }
+        }
+        Log.info("Entity kernels selected", "kernels", kernels.describe());
+        return kernels;
+    }
+
+    static class Scalar extends EntityKernels {
+        @Override
+        void integrate(double[] x, double[] y, double[] vx, double[] vy, double[] life,
+                       int from, int to, double gravity) {
+            for (int i = from; i < to; i++) {
+                x[i] += vx[i];
+                y[i] += vy[i];
+                vy[i] += gravity;
+                life[i] -= 1;
+            }
+        }
+
+        @Override
+        int firstOverlap(double x, double y, double width, double height,
+                         double[] left, double[] top, double[] right, double[] bottom, int from, int to) {
+            double x2 = x + width;
+            double y2 = y + height;
+            for (int i = from; i < to; i++) {
+                if (x < right[i] && x2 > left[i] && y < bottom[i] && y2 > top[i]) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        String describe() {
+            return "scalar";
+        }
+    }
+}
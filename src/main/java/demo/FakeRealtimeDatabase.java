@@ -0,0 +1,702 @@
+package demo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embeddable stand-in for the Firebase Realtime Database REST API.
+ * Implements the subset the game uses: GET/PUT/PATCH/POST/DELETE on ".json" paths,
+ * orderBy/startAt/endAt/limitToFirst/limitToLast queries, ETags and streaming
+ * (text/event-stream) subscriptions, with configurable latency and error
+ * injection for integration and load tests.
+ *
+ * Run standalone with: java -cp ... demo.FakeRealtimeDatabase [port]
+ * and start the game with -Dfirebase.databaseUrl=http://localhost:port
+ */
+public class FakeRealtimeDatabase {
+    private static final Gson GSON = new Gson();
+    private static final Gson EVENT_GSON = new GsonBuilder().serializeNulls().create(); // Patches use null for removed children
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService keepAlive;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Random random = new Random();
+    private JsonObject root = new JsonObject();
+
+    // Fault injection
+    private volatile long minLatencyMillis = 0;
+    private volatile long maxLatencyMillis = 0;
+    private volatile double errorRate = 0;
+    private volatile int errorStatus = 503;
+    private final AtomicInteger failNextRequests = new AtomicInteger();
+
+    // Stats
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    public FakeRealtimeDatabase(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+
+        keepAlive = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fake-rtdb-keepalive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        keepAlive.scheduleAtFixedRate(() -> {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.send("keep-alive", "null");
+            }
+        }, KEEP_ALIVE_SECONDS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * One open text/event-stream connection, optionally on an ordered query.
+     */
+    private static class Subscriber {
+        final List<String> path;
+        final Map<String, String> query;
+        final OutputStream out;
+        final CountDownLatch closed = new CountDownLatch(1);
+        JsonObject window; // Last query result sent, null without a query
+
+        Subscriber(List<String> path, Map<String, String> query, OutputStream out) {
+            this.path = path;
+            this.query = query;
+            this.out = out;
+        }
+
+        boolean isQuery() {
+            return query.containsKey("orderBy");
+        }
+
+        synchronized void send(String event, String data) {
+            if (closed.getCount() == 0) return;
+            try {
+                out.write(("event: " + event + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            closed.countDown();
+        }
+    }
+
+    public static FakeRealtimeDatabase start(int port) throws IOException {
+        FakeRealtimeDatabase database = new FakeRealtimeDatabase(port);
+        database.server.start();
+        return database;
+    }
+
+    public void stop() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        keepAlive.shutdownNow();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Drop every open stream, e.g. to exercise client reconnects.
+     */
+    public void disconnectSubscribers() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Every request waits a random time in [min, max] before being served.
+     */
+    public void setLatency(long minMillis, long maxMillis) {
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = Math.max(minMillis, maxMillis);
+    }
+
+    /**
+     * Fail this fraction of requests with the given HTTP status.
+     */
+    public void setErrorRate(double errorRate, int status) {
+        this.errorRate = errorRate;
+        this.errorStatus = status;
+    }
+
+    /**
+     * Fail the next {@code count} requests with the configured error status.
+     */
+    public void failNext(int count) {
+        failNextRequests.set(count);
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    public synchronized void clear() {
+        root = new JsonObject();
+        publishPut(List.of(), JsonNull.INSTANCE);
+    }
+
+    /**
+     * Read a node directly (path without ".json"), bypassing HTTP.
+     */
+    public synchronized JsonElement get(String path) {
+        JsonElement node = find(LeaderboardStream.splitPath(path));
+        return node == null ? JsonNull.INSTANCE : node.deepCopy();
+    }
+
+    /**
+     * Write a node directly (path without ".json"), bypassing HTTP. Used to seed data.
+     */
+    public synchronized void put(String path, JsonElement value) {
+        set(LeaderboardStream.splitPath(path), value);
+        publishPut(LeaderboardStream.splitPath(path), value);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            injectLatency();
+            if (shouldFail()) {
+                injectedErrors.incrementAndGet();
+                send(exchange, errorStatus, "{\"error\":\"injected failure\"}", null);
+                return;
+            }
+
+            String rawPath = exchange.getRequestURI().getPath();
+            if (!rawPath.endsWith(".json")) {
+                send(exchange, 400, "{\"error\":\"path must end with .json\"}", null);
+                return;
+            }
+            List<String> path = LeaderboardStream.splitPath(rawPath.substring(0, rawPath.length() - ".json".length()));
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    handleGet(exchange, path, query);
+                    break;
+                case "PUT":
+                    handlePut(exchange, path);
+                    break;
+                case "PATCH":
+                    handlePatch(exchange, path);
+                    break;
+                case "POST":
+                    handlePost(exchange, path);
+                    break;
+                case "DELETE":
+                    handleDelete(exchange, path);
+                    break;
+                default:
+                    send(exchange, 405, "{\"error\":\"method not allowed\"}", null);
+            }
+        } catch (RuntimeException e) {
+            send(exchange, 400, GSON.toJson(Map.of("error", String.valueOf(e.getMessage()))), null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleGet(HttpExchange exchange, List<String> path, Map<String, String> query) throws IOException {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (accept != null && accept.contains("text/event-stream")) {
+            handleStream(exchange, path, query);
+            return;
+        }
+
+        JsonElement result;
+        String etag;
+        synchronized (this) {
+            JsonElement node = find(path);
+            etag = wantsEtag(exchange) ? etag(node) : null; // Hashing a large subtree is expensive
+            result = query.containsKey("orderBy") ? applyQuery(node, query) : node;
+            result = result == null ? JsonNull.INSTANCE : result.deepCopy();
+        }
+        send(exchange, 200, GSON.toJson(result), etag);
+    }
+
+    /**
+     * Keep the connection open and push put/patch events for changes under the path.
+     * With a query only the matching children are sent, and later events report
+     * children entering, changing in or leaving that window.
+     */
+    private void handleStream(HttpExchange exchange, List<String> path, Map<String, String> query) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        Subscriber subscriber = new Subscriber(path, query, exchange.getResponseBody());
+
+        synchronized (this) {
+            JsonElement node = find(path);
+            if (subscriber.isQuery()) {
+                subscriber.window = queryWindow(node, query);
+                node = subscriber.window;
+            }
+            subscriber.send("put", eventData(List.of(), node));
+            subscribers.add(subscriber);
+        }
+
+        try {
+            subscriber.closed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * Notify subscribers of a write. Must be called while holding the lock, after the write.
+     */
+    private void publishPut(List<String> writePath, JsonElement value) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isQuery()) {
+                if (startsWith(writePath, subscriber.path) || startsWith(subscriber.path, writePath)) {
+                    publishWindow(subscriber);
+                }
+            } else if (startsWith(writePath, subscriber.path)) {
+                subscriber.send("put", eventData(writePath.subList(subscriber.path.size(), writePath.size()), value));
+            } else if (startsWith(subscriber.path, writePath)) {
+                // A parent of the subscribed node changed, resend the whole node
+                subscriber.send("put", eventData(List.of(), find(subscriber.path)));
+            }
+        }
+    }
+
+    private void publishPatch(List<String> basePath, JsonObject body) {
+        for (String key : body.keySet()) {
+            if (key.contains("/")) {
+                // Multi-location update, report each location separately
+                for (Map.Entry<String, JsonElement> update : body.entrySet()) {
+                    List<String> target = new ArrayList<>(basePath);
+                    target.addAll(LeaderboardStream.splitPath(update.getKey()));
+                    publishPut(target, update.getValue());
+                }
+                return;
+            }
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isQuery()) {
+                if (startsWith(basePath, subscriber.path) || startsWith(subscriber.path, basePath)) {
+                    publishWindow(subscriber);
+                }
+            } else if (startsWith(basePath, subscriber.path)) {
+                subscriber.send("patch", eventData(basePath.subList(subscriber.path.size(), basePath.size()), body));
+            } else if (startsWith(subscriber.path, basePath)) {
+                subscriber.send("put", eventData(List.of(), find(subscriber.path)));
+            }
+        }
+    }
+
+    /**
+     * Send a query subscriber the children that entered, changed in or left its window:
+     * a put for a single child, otherwise one patch (null for the ones that left).
+     * Must be called while holding the lock, after the write.
+     */
+    private void publishWindow(Subscriber subscriber) {
+        JsonObject window = queryWindow(find(subscriber.path), subscriber.query);
+        JsonObject changes = new JsonObject();
+        for (Map.Entry<String, JsonElement> child : subscriber.window.entrySet()) {
+            if (!window.has(child.getKey())) {
+                changes.add(child.getKey(), JsonNull.INSTANCE);
+            }
+        }
+        for (Map.Entry<String, JsonElement> child : window.entrySet()) {
+            if (!child.getValue().equals(subscriber.window.get(child.getKey()))) {
+                changes.add(child.getKey(), child.getValue());
+            }
+        }
+        subscriber.window = window;
+
+        if (changes.size() == 1) {
+            String key = changes.keySet().iterator().next();
+            subscriber.send("put", eventData(List.of(key), changes.get(key)));
+        } else if (changes.size() > 1) {
+            subscriber.send("patch", eventData(List.of(), changes));
+        }
+    }
+
+    private JsonObject queryWindow(JsonElement node, Map<String, String> query) {
+        JsonElement result = applyQuery(node, query);
+        return result != null && result.isJsonObject() ? result.getAsJsonObject().deepCopy() : new JsonObject();
+    }
+
+    private static String eventData(List<String> relativePath, JsonElement data) {
+        JsonObject event = new JsonObject();
+        event.addProperty("path", "/" + String.join("/", relativePath));
+        event.add("data", data == null ? JsonNull.INSTANCE : data);
+        return EVENT_GSON.toJson(event);
+    }
+
+    private static boolean startsWith(List<String> path, List<String> prefix) {
+        return path.size() >= prefix.size() && path.subList(0, prefix.size()).equals(prefix);
+    }
+
+    private void handlePut(HttpExchange exchange, List<String> path) throws IOException {
+        JsonElement value = readBody(exchange);
+        String etag;
+        synchronized (this) {
+            if (!checkIfMatch(exchange, path)) return;
+            set(path, value);
+            publishPut(path, value);
+            etag = wantsEtag(exchange) ? etag(find(path)) : null;
+        }
+        send(exchange, 200, GSON.toJson(value), etag);
+    }
+
+    private void handlePatch(HttpExchange exchange, List<String> path) throws IOException {
+        JsonElement body = readBody(exchange);
+        if (!body.isJsonObject()) {
+            send(exchange, 400, "{\"error\":\"PATCH body must be an object\"}", null);
+            return;
+        }
+        synchronized (this) {
+            // Keys may be relative paths ("scores/p1/s1"), which gives multi-location updates
+            for (Map.Entry<String, JsonElement> update : body.getAsJsonObject().entrySet()) {
+                List<String> target = new ArrayList<>(path);
+                target.addAll(LeaderboardStream.splitPath(update.getKey()));
+                set(target, update.getValue());
+            }
+            publishPatch(path, body.getAsJsonObject());
+        }
+        send(exchange, 200, GSON.toJson(body), null);
+    }
+
+    private void handlePost(HttpExchange exchange, List<String> path) throws IOException {
+        JsonElement value = readBody(exchange);
+        String key = "-" + UUID.randomUUID().toString().replace("-", "").substring(0, 19);
+        synchronized (this) {
+            List<String> target = new ArrayList<>(path);
+            target.add(key);
+            set(target, value);
+            publishPut(target, value);
+        }
+        send(exchange, 200, GSON.toJson(Map.of("name", key)), null);
+    }
+
+    private void handleDelete(HttpExchange exchange, List<String> path) throws IOException {
+        synchronized (this) {
+            if (!checkIfMatch(exchange, path)) return;
+            set(path, JsonNull.INSTANCE);
+            publishPut(path, JsonNull.INSTANCE);
+        }
+        send(exchange, 200, "null", null);
+    }
+
+    /**
+     * Conditional write support: reply 412 with the current value and ETag when "if-match" is stale.
+     * Must be called while holding the lock.
+     */
+    private boolean checkIfMatch(HttpExchange exchange, List<String> path) throws IOException {
+        String ifMatch = exchange.getRequestHeaders().getFirst("if-match");
+        if (ifMatch == null) return true;
+
+        JsonElement current = find(path);
+        String currentEtag = etag(current);
+        if (ifMatch.equals(currentEtag)) return true;
+
+        send(exchange, 412, GSON.toJson(current == null ? JsonNull.INSTANCE : current), currentEtag);
+        return false;
+    }
+
+    /**
+     * Filter first, then keep only the limited end of the ordering in a bounded heap,
+     * so a small page of a large node does not sort every child.
+     */
+    private JsonElement applyQuery(JsonElement node, Map<String, String> query) {
+        if (node == null || !node.isJsonObject()) return node;
+
+        String orderBy = unquote(query.get("orderBy"));
+        JsonElement startAt = query.containsKey("startAt") ? JsonParser.parseString(query.get("startAt")) : null;
+        JsonElement endAt = query.containsKey("endAt") ? JsonParser.parseString(query.get("endAt")) : null;
+        JsonElement equalTo = query.containsKey("equalTo") ? JsonParser.parseString(query.get("equalTo")) : null;
+        Integer limitToFirst = query.containsKey("limitToFirst") ? Integer.parseInt(query.get("limitToFirst")) : null;
+        Integer limitToLast = query.containsKey("limitToLast") ? Integer.parseInt(query.get("limitToLast")) : null;
+
+        Comparator<QueryChild> order = (a, b) -> {
+            int result = compareValues(a.sortValue, b.sortValue);
+            return result != 0 ? result : a.key.compareTo(b.key);
+        };
+        // With a single limit, only that many children are ever held
+        Integer limit = limitToFirst != null && limitToLast != null ? null : limitToFirst != null ? limitToFirst : limitToLast;
+        Comparator<QueryChild> evictFirst = limitToFirst != null ? order.reversed() : order;
+        PriorityQueue<QueryChild> kept = new PriorityQueue<>(evictFirst);
+        List<QueryChild> all = new ArrayList<>();
+
+        for (Map.Entry<String, JsonElement> entry : node.getAsJsonObject().entrySet()) {
+            JsonElement value = sortValue(entry, orderBy);
+            if (startAt != null && compareValues(value, startAt) < 0) continue;
+            if (endAt != null && compareValues(value, endAt) > 0) continue;
+            if (equalTo != null && compareValues(value, equalTo) != 0) continue;
+
+            QueryChild child = new QueryChild(entry.getKey(), value, entry.getValue());
+            if (limit == null) {
+                all.add(child);
+            } else if (kept.size() < limit) {
+                kept.add(child);
+            } else if (limit > 0 && evictFirst.compare(child, kept.peek()) > 0) {
+                kept.poll();
+                kept.add(child);
+            }
+        }
+
+        List<QueryChild> children = limit == null ? all : new ArrayList<>(kept);
+        children.sort(order);
+        if (limit == null && limitToFirst != null) {
+            children = children.subList(0, Math.min(limitToFirst, children.size()));
+        }
+        if (limit == null && limitToLast != null) {
+            children = children.subList(Math.max(0, children.size() - limitToLast), children.size());
+        }
+
+        JsonObject result = new JsonObject();
+        for (QueryChild child : children) {
+            result.add(child.key, child.value);
+        }
+        return result;
+    }
+
+    private static class QueryChild {
+        final String key;
+        final JsonElement sortValue;
+        final JsonElement value;
+
+        QueryChild(String key, JsonElement sortValue, JsonElement value) {
+            this.key = key;
+            this.sortValue = sortValue;
+            this.value = value;
+        }
+    }
+
+    private static JsonElement sortValue(Map.Entry<String, JsonElement> child, String orderBy) {
+        if ("$key".equals(orderBy)) {
+            return new JsonPrimitive(child.getKey());
+        }
+        if ("$value".equals(orderBy)) {
+            return child.getValue();
+        }
+        JsonElement value = child.getValue();
+        for (String segment : LeaderboardStream.splitPath(orderBy)) {
+            if (value == null || !value.isJsonObject()) return JsonNull.INSTANCE;
+            value = value.getAsJsonObject().get(segment);
+        }
+        return value == null ? JsonNull.INSTANCE : value;
+    }
+
+    /**
+     * Realtime Database ordering: null < false < true < numbers < strings < objects.
+     */
+    private static int compareValues(JsonElement a, JsonElement b) {
+        int rankA = typeRank(a);
+        int rankB = typeRank(b);
+        if (rankA != rankB) return Integer.compare(rankA, rankB);
+
+        switch (rankA) {
+            case 1:
+                return Boolean.compare(a.getAsBoolean(), b.getAsBoolean());
+            case 2:
+                return Double.compare(a.getAsDouble(), b.getAsDouble());
+            case 3:
+                return a.getAsString().compareTo(b.getAsString());
+            default:
+                return 0;
+        }
+    }
+
+    private static int typeRank(JsonElement value) {
+        if (value == null || value.isJsonNull()) return 0;
+        if (value.isJsonPrimitive()) {
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            if (primitive.isBoolean()) return 1;
+            if (primitive.isNumber()) return 2;
+            return 3;
+        }
+        return 4;
+    }
+
+    private JsonElement find(List<String> path) {
+        JsonElement node = root;
+        for (String segment : path) {
+            if (!node.isJsonObject()) return null;
+            node = node.getAsJsonObject().get(segment);
+            if (node == null) return null;
+        }
+        return node;
+    }
+
+    /**
+     * Set or (with null) delete a node, creating and pruning parents like the real database.
+     */
+    private void set(List<String> path, JsonElement value) {
+        boolean delete = value == null || value.isJsonNull();
+        if (path.isEmpty()) {
+            root = delete || !value.isJsonObject() ? new JsonObject() : value.getAsJsonObject().deepCopy();
+            return;
+        }
+
+        JsonObject parent = root;
+        List<JsonObject> parents = new ArrayList<>();
+        for (int i = 0; i < path.size() - 1; i++) {
+            parents.add(parent);
+            JsonElement child = parent.get(path.get(i));
+            if (child == null || !child.isJsonObject()) {
+                if (delete) return;
+                child = new JsonObject();
+                parent.add(path.get(i), child);
+            }
+            parent = child.getAsJsonObject();
+        }
+
+        String key = path.get(path.size() - 1);
+        if (delete) {
+            parent.remove(key);
+            // Remove parents left empty
+            for (int i = parents.size() - 1; i >= 0 && parent.size() == 0; i--) {
+                parents.get(i).remove(path.get(i));
+                parent = parents.get(i);
+            }
+        } else {
+            parent.add(key, value.deepCopy());
+        }
+    }
+
+    private static String etag(JsonElement node) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(GSON.toJson(node == null ? JsonNull.INSTANCE : node).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean wantsEtag(HttpExchange exchange) {
+        return "true".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("X-Firebase-ETag"));
+    }
+
+    private void injectLatency() {
+        long min = minLatencyMillis;
+        long max = maxLatencyMillis;
+        if (max <= 0) return;
+
+        long delay = min;
+        if (max > min) {
+            synchronized (random) {
+                delay += random.nextInt((int) (max - min + 1));
+            }
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean shouldFail() {
+        if (failNextRequests.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+            return true;
+        }
+        if (errorRate <= 0) return false;
+        synchronized (random) {
+            return random.nextDouble() < errorRate;
+        }
+    }
+
+    private static JsonElement readBody(HttpExchange exchange) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader);
+        }
+    }
+
+    static void send(HttpExchange exchange, int status, String body, String etag) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                      URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String unquote(String value) {
+        if (value != null && value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9000;
+        FakeRealtimeDatabase database = start(port);
+        System.out.println("Fake Realtime Database listening on " + database.getBaseUrl());
+        System.out.println("Start the game with -Dfirebase.databaseUrl=" + database.getBaseUrl());
+    }
+}
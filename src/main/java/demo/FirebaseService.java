@@ -4,19 +4,56 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.database.*;
+import com.google.gson.JsonObject;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class FirebaseService {
+    private static final String DEFAULT_DATABASE_URL = "https://gamescorees-default-rtdb.firebaseio.com";
+    
     private static FirebaseService instance;
     private DatabaseReference database;
-    private boolean initialized = false;
+    private volatile boolean initialized = false;
+    private final javafx.beans.property.ReadOnlyObjectWrapper<ConnectionStatus> status =
+        new javafx.beans.property.ReadOnlyObjectWrapper<>(ConnectionStatus.CONNECTING);
     private String currentPlayerId;
+    private String databaseUrl = System.getProperty("firebase.databaseUrl", DEFAULT_DATABASE_URL);
+    
+    // REST client shared by every call, plus the OAuth token source (null = unauthenticated)
+    private final java.net.http.HttpClient httpClient = java.net.http.HttpClient.newHttpClient();
+    private AccessTokenProvider tokenProvider;
+    
+    // Percentile sketch of every submitted score, kept in one small node
+    private static final String SCORE_SKETCH_PATH = "stats/scoreSketch";
+    private static final long SCORE_SKETCH_TTL_MILLIS = 5 * 60_000;
+    private static final int SKETCH_UPDATE_ATTEMPTS = 8;
+    private static final long SKETCH_RETRY_BASE_MILLIS = 50;
+    private CompletableFuture<QuantileSketch> scoreSketch;
+    private long scoreSketchFetchedAt = 0;
+    
+    // The player stats and the sketch keep the IDs of the last scores they counted, so a score
+    // whose update is sent again (a retried conditional write, a replayed pending score) is not
+    // counted twice. Space separated in one string: the database would rewrite an array
+    private static final String COUNTED_SCORE_IDS = "countedScoreIds";
+    private static final int MAX_COUNTED_SCORE_IDS = 32;
     
-    private FirebaseService() {}
+    // Resilience: REST calls go through send(), which retries transient failures with a jittered
+    // backoff and records per-operation metrics. The breaker makes calls fail fast during outages,
+    // and scores that could not be written wait in a local file until Firebase is reachable again
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BASE_MILLIS = 250;
+    private final CircuitBreaker breaker = new CircuitBreaker("firebase", 5, 15_000);
+    private final Map<String, OperationStats> operationStats = new java.util.concurrent.ConcurrentHashMap<>();
+    private final java.nio.file.Path pendingScoresFile =
+        java.nio.file.Paths.get(System.getProperty("user.home"), ".postapocalyptic_pending_scores");
+    
+    private FirebaseService() {
+        breaker.addListener(this::onBreakerStateChanged);
+    }
     
     public static FirebaseService getInstance() {
         if (instance == null) {
@@ -25,18 +62,116 @@ public class FirebaseService {
         return instance;
     }
     
+    /**
+     * Initialize Firebase on a background thread.
+     * Progress is published through {@link #statusProperty()}.
+     */
+    public void initializeAsync() {
+        setStatus(ConnectionStatus.CONNECTING);
+        Thread initThread = new Thread(() -> {
+            initializeFromClasspath();
+            StartupTimeline.mark("Firebase ready");
+        }, "firebase-init");
+        initThread.setDaemon(true);
+        initThread.start();
+    }
+    
+    /**
+     * Initialize Firebase with service account key from resources
+     */
+    void initializeFromClasspath() {
+        try (java.io.InputStream keyResource = getClass().getResourceAsStream("/serviceAccountKey.json")) {
+            if (keyResource != null) {
+                Log.info("Found serviceAccountKey.json in resources");
+                if (Boolean.getBoolean("firebase.adminSdk")) {
+                    // Full Admin SDK (extra thread pools and a persistent connection)
+                    initializeAdminSdk(keyResource);
+                } else {
+                    // Lightweight REST-only client, key is read straight from the classpath
+                    initializeRest(keyResource);
+                }
+            } else if (!DEFAULT_DATABASE_URL.equals(databaseUrl)) {
+                // Local stand-in database (see FakeRealtimeDatabase), no credentials needed
+                initializeUnauthenticated();
+            } else {
+                Log.warn("serviceAccountKey.json not found in resources, running in mock mode");
+                initializeMock();
+            }
+        } catch (Exception e) {
+            Log.error("Error loading Firebase key", e);
+            initializeMock();
+        }
+        if (initialized) {
+            flushPendingScores();
+        }
+    }
+    
+    public javafx.beans.property.ReadOnlyObjectProperty<ConnectionStatus> statusProperty() {
+        return status.getReadOnlyProperty();
+    }
+    
+    public ConnectionStatus getStatus() {
+        return status.get();
+    }
+    
+    private void setStatus(ConnectionStatus newStatus) {
+        try {
+            javafx.application.Platform.runLater(() -> status.set(newStatus));
+        } catch (IllegalStateException e) {
+            // JavaFX toolkit not running (headless tools), no UI is observing
+            status.set(newStatus);
+        }
+    }
+    
+    /**
+     * Initialize the lightweight REST-only client with a service account key.
+     * No Admin SDK threads or persistent connection are started; access tokens
+     * are minted on demand and cached until shortly before they expire.
+     */
+    public void initializeRest(java.io.InputStream serviceAccount) {
+        try {
+            tokenProvider = AccessTokenProvider.fromStream(serviceAccount);
+            initialized = true;
+            setStatus(ConnectionStatus.CONNECTED);
+            Log.info("Firebase REST client initialized", "databaseUrl", databaseUrl);
+            
+            // Mint the first token in the background so the first request does not wait for it
+            tokenProvider.refreshAsync().exceptionally(ex -> {
+                Log.warn("Could not fetch access token", "error", ex.getMessage());
+                return null;
+            });
+        } catch (IOException e) {
+            Log.error("Failed to initialize Firebase, running in offline mode", "error", e.getMessage());
+            initialized = false;
+            setStatus(ConnectionStatus.OFFLINE);
+        }
+    }
+    
     /**
      * Initialize Firebase with service account key
      * You'll need to download your Firebase service account key JSON file
      * from Firebase Console > Project Settings > Service Accounts
      */
     public void initialize(String serviceAccountPath) {
+        try (FileInputStream serviceAccount = new FileInputStream(serviceAccountPath)) {
+            initializeAdminSdk(serviceAccount);
+        } catch (IOException e) {
+            Log.warn("Failed to read service account key", "error", e.getMessage());
+            initialized = false;
+            setStatus(ConnectionStatus.OFFLINE);
+        }
+    }
+    
+    /**
+     * Initialize the full Firebase Admin SDK (optional, enable with -Dfirebase.adminSdk=true).
+     * Reads and writes still go through REST; the SDK only adds a connection test.
+     */
+    public void initializeAdminSdk(java.io.InputStream serviceAccount) {
         try {
-            FileInputStream serviceAccount = new FileInputStream(serviceAccountPath);
-            
+            GoogleCredentials credentials = GoogleCredentials.fromStream(serviceAccount);
             FirebaseOptions options = FirebaseOptions.builder()
-                .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                .setDatabaseUrl("https://gamescorees-default-rtdb.firebaseio.com")
+                .setCredentials(credentials)
+                .setDatabaseUrl(databaseUrl)
                 .build();
             
             if (FirebaseApp.getApps().isEmpty()) {
@@ -45,8 +180,8 @@ public class FirebaseService {
             
             database = FirebaseDatabase.getInstance().getReference();
             initialized = true;
-            System.out.println("Firebase initialized successfully");
-            System.out.println("Database URL: https://gamescorees-default-rtdb.firebaseio.com");
+            setStatus(ConnectionStatus.CONNECTED);
+            Log.info("Firebase initialized successfully", "databaseUrl", databaseUrl);
             
             // Test write to verify connection
             Map<String, Object> testData = new HashMap<>();
@@ -54,26 +189,48 @@ public class FirebaseService {
             testData.put("timestamp", System.currentTimeMillis());
             database.child("_test").setValue(testData, (error, ref) -> {
                 if (error != null) {
-                    System.err.println("Test write failed: " + error.getMessage());
+                    Log.warn("Test write failed", "error", error.getMessage());
                 } else {
-                    System.out.println("Test write successful - Firebase is working!");
+                    Log.info("Test write successful - Firebase is working!");
                 }
             });
             
         } catch (IOException e) {
-            System.err.println("Failed to initialize Firebase: " + e.getMessage());
-            System.err.println("Running in offline mode");
+            Log.error("Failed to initialize Firebase, running in offline mode", "error", e.getMessage());
             initialized = false;
+            setStatus(ConnectionStatus.OFFLINE);
         }
     }
     
+    /**
+     * Use the REST client without credentials, e.g. against a local stand-in database.
+     */
+    public void initializeUnauthenticated() {
+        tokenProvider = null;
+        initialized = true;
+        setStatus(ConnectionStatus.CONNECTED);
+        Log.info("Firebase REST client initialized without credentials", "databaseUrl", databaseUrl);
+    }
+    
+    /**
+     * Point the REST client at another database, e.g. http://localhost:9000 for a FakeRealtimeDatabase.
+     */
+    public void setDatabaseUrl(String databaseUrl) {
+        this.databaseUrl = databaseUrl.endsWith("/") ? databaseUrl.substring(0, databaseUrl.length() - 1) : databaseUrl;
+    }
+    
+    public String getDatabaseUrl() {
+        return databaseUrl;
+    }
+    
     /**
      * Simple initialization without service account (for development)
      * This won't actually connect to Firebase but allows the game to run
      */
     public void initializeMock() {
-        System.out.println("Running in mock mode - no Firebase connection");
+        Log.info("Running in mock mode - no Firebase connection");
         initialized = false;
+        setStatus(ConnectionStatus.OFFLINE);
     }
     
     public boolean isInitialized() {
@@ -88,75 +245,219 @@ public class FirebaseService {
         return currentPlayerId;
     }
     
+    java.net.http.HttpClient getHttpClient() {
+        return httpClient;
+    }
+    
+    /**
+     * Build a REST request for a database path (without ".json"),
+     * authorized with the cached access token when one is configured.
+     * Waits for the token if none is cached, so only for tools and background
+     * threads; everything the UI triggers goes through {@link #newRequestAsync}.
+     */
+    java.net.http.HttpRequest.Builder newRequest(String path) throws IOException {
+        return newRequest(path, null);
+    }
+    
+    /**
+     * Same as {@link #newRequest(String)} with a raw (already encoded) query string.
+     */
+    java.net.http.HttpRequest.Builder newRequest(String path, String query) throws IOException {
+        java.net.http.HttpRequest.Builder builder = unauthorizedRequest(path, query);
+        if (tokenProvider != null) {
+            builder.header("Authorization", "Bearer " + tokenProvider.getToken());
+        }
+        return builder;
+    }
+    
+    /**
+     * Build a REST request once an access token is at hand, without blocking the caller:
+     * a missing or expiring token is fetched on the token provider's thread first.
+     * Fails if no token can be fetched.
+     */
+    CompletableFuture<java.net.http.HttpRequest.Builder> newRequestAsync(String path, String query) {
+        if (tokenProvider == null) {
+            return CompletableFuture.completedFuture(unauthorizedRequest(path, query));
+        }
+        return tokenProvider.getTokenAsync()
+            .thenApply(token -> unauthorizedRequest(path, query).header("Authorization", "Bearer " + token));
+    }
+    
+    private java.net.http.HttpRequest.Builder unauthorizedRequest(String path, String query) {
+        String url = databaseUrl + "/" + path + ".json" + (query != null ? "?" + query : "");
+        return java.net.http.HttpRequest.newBuilder().uri(java.net.URI.create(url));
+    }
+    
+    /**
+     * Send a request through the circuit breaker, retrying network errors and 5xx/408/429
+     * responses up to MAX_ATTEMPTS times with jittered exponential backoff.
+     * Latency and failures are recorded under {@code operation}.
+     * Fails fast with {@link CircuitOpenException} while the breaker is open.
+     */
+    <T> CompletableFuture<java.net.http.HttpResponse<T>> send(String operation, java.net.http.HttpRequest request,
+                                                           java.net.http.HttpResponse.BodyHandler<T> handler) {
+        return send(operation, request, handler, 1);
+    }
+    
+    private <T> CompletableFuture<java.net.http.HttpResponse<T>> send(String operation, java.net.http.HttpRequest request,
+                                                                   java.net.http.HttpResponse.BodyHandler<T> handler, int attempt) {
+        OperationStats stats = operationStats.computeIfAbsent(operation, OperationStats::new);
+        if (!breaker.allowRequest()) {
+            stats.rejected.increment();
+            return CompletableFuture.failedFuture(new CircuitOpenException(breaker.getRemainingOpenMillis()));
+        }
+        
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, handler)
+            .handle((response, ex) -> {
+                stats.latency.record(System.nanoTime() - start);
+                stats.requests.increment();
+                if (ex == null && !isTransientFailure(response.statusCode())) {
+                    breaker.recordSuccess();
+                    return CompletableFuture.completedFuture(response);
+                }
+                
+                stats.failures.increment();
+                breaker.recordFailure();
+                if (attempt >= MAX_ATTEMPTS) {
+                    return ex == null
+                        ? CompletableFuture.completedFuture(response)
+                        : CompletableFuture.<java.net.http.HttpResponse<T>>failedFuture(unwrap(ex));
+                }
+                
+                if (response != null && response.body() instanceof AutoCloseable body) {
+                    try {
+                        body.close(); // Release the connection before retrying
+                    } catch (Exception e) {
+                        // Nothing to recover
+                    }
+                }
+                stats.retries.increment();
+                long delay = (long) (RETRY_BASE_MILLIS * (1L << (attempt - 1)) * (0.5 + Math.random()));
+                Executor later = CompletableFuture.delayedExecutor(delay, java.util.concurrent.TimeUnit.MILLISECONDS);
+                return CompletableFuture.runAsync(() -> {}, later)
+                    .thenCompose(v -> send(operation, request, handler, attempt + 1));
+            })
+            .thenCompose(result -> result);
+    }
+    
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof java.util.concurrent.CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+    
+    private static boolean isTransientFailure(int statusCode) {
+        return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+    
+    private void onBreakerStateChanged(CircuitBreaker.State state) {
+        if (!initialized) return;
+        if (state == CircuitBreaker.State.CLOSED) {
+            setStatus(ConnectionStatus.CONNECTED);
+            flushPendingScores();
+        } else {
+            setStatus(ConnectionStatus.UNREACHABLE);
+            if (state == CircuitBreaker.State.OPEN) {
+                // Probe on our own once the cool-down ends, so recovery does not wait for the next user action
+                scheduleProbe(breaker.getRemainingOpenMillis() + 100);
+            }
+        }
+    }
+    
+    /**
+     * Cheap shallow read used as the half-open probe.
+     */
+    private void scheduleProbe(long delayMillis) {
+        CompletableFuture.delayedExecutor(delayMillis, java.util.concurrent.TimeUnit.MILLISECONDS).execute(() ->
+            newRequestAsync(SCORE_SKETCH_PATH, "shallow=true")
+                .whenComplete((builder, ex) -> {
+                    if (ex != null) {
+                        // No token yet, try again after another cool-down
+                        scheduleProbe(breaker.getRemainingOpenMillis() + 100);
+                        return;
+                    }
+                    send("probe", builder.GET().build(), java.net.http.HttpResponse.BodyHandlers.discarding())
+                        .exceptionally(e -> null); // The breaker has recorded the outcome
+                }));
+    }
+    
+    public CircuitBreaker.State getCircuitState() {
+        return breaker.getState();
+    }
+    
+    /**
+     * One line per operation: requests, failure rate, retries, calls rejected by the breaker and latency.
+     */
+    public String getRequestMetricsSummary() {
+        StringBuilder sb = new StringBuilder("Circuit " + breaker.getState());
+        for (OperationStats stats : new TreeMap<>(operationStats).values()) {
+            sb.append('\n').append(stats.summary());
+        }
+        return sb.toString();
+    }
+    
     /**
      * Save player score to Firebase
      */
     public CompletableFuture<Void> saveScore(String playerName, int score, long survivalTime) {
-        System.out.println("saveScore called - initialized: " + initialized + ", playerName: " + playerName + ", score: " + score);
-        
+        return saveScore(playerName, score, survivalTime, null);
+    }
+    
+    /**
+     * Save player score to Firebase, optionally with the run's seed and input log.
+     * With a replay the score is also queued under replayQueue/ for {@link ReplayVerifier}.
+     */
+    public CompletableFuture<Void> saveScore(String playerName, int score, long survivalTime, InputLog replay) {
+        String playerId = currentPlayerId != null ? currentPlayerId : UUID.randomUUID().toString();
+        return saveScore(playerId, playerName, score, survivalTime, replay);
+    }
+    
+    /**
+     * Save a score for an explicit player ID (tools that write as many players at once).
+     */
+    CompletableFuture<Void> saveScore(String playerId, String playerName, int score, long survivalTime, InputLog replay) {
         if (!initialized) {
-            System.err.println("Firebase not initialized - score not saved");
+            Log.warn("Firebase not initialized - score not saved", "playerName", playerName, "score", score);
             return CompletableFuture.completedFuture(null);
         }
         
         CompletableFuture<Void> future = new CompletableFuture<>();
         
-        String playerId = currentPlayerId != null ? currentPlayerId : UUID.randomUUID().toString();
-        System.out.println("Saving score for player ID: " + playerId);
-        
-        Map<String, Object> scoreData = new HashMap<>();
-        scoreData.put("playerName", playerName);
-        scoreData.put("score", score);
-        scoreData.put("survivalTime", survivalTime);
-        scoreData.put("timestamp", System.currentTimeMillis());
+        Log.debug("Saving score", "playerId", playerId, "playerName", playerName, "score", score);
         
-        System.out.println("Attempting to write to Firebase using REST API");
-        
-        // Use REST API as fallback since Admin SDK async callbacks aren't reliable
         try {
             String scoreId = UUID.randomUUID().toString();
-            String url = "https://gamescorees-default-rtdb.firebaseio.com/scores/" + playerId + "/" + scoreId + ".json";
-            
-            java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
-            String jsonBody = String.format(
-                "{\"playerName\":\"%s\",\"score\":%d,\"survivalTime\":%d,\"timestamp\":%d}",
-                playerName, score, survivalTime, System.currentTimeMillis()
-            );
-            
-            java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder()
-                .uri(java.net.URI.create(url))
-                .PUT(java.net.http.HttpRequest.BodyPublishers.ofString(jsonBody))
-                .header("Content-Type", "application/json")
-                .build();
-            
-            client.sendAsync(request, java.net.http.HttpResponse.BodyHandlers.ofString())
-                .thenAccept(response -> {
-                    if (response.statusCode() == 200) {
-                        System.out.println("========================================");
-                        System.out.println("SUCCESS: Score saved to Firebase via REST!");
-                        System.out.println("Player ID: " + playerId);
-                        System.out.println("Score: " + score);
-                        System.out.println("========================================");
-                        future.complete(null);
-                    } else {
-                        System.err.println("Failed to save score. Status: " + response.statusCode());
-                        System.err.println("Response: " + response.body());
-                        future.completeExceptionally(new Exception("HTTP " + response.statusCode()));
-                    }
-                })
-                .exceptionally(ex -> {
-                    System.err.println("Exception saving score: " + ex.getMessage());
-                    ex.printStackTrace();
-                    future.completeExceptionally(ex);
-                    return null;
-                });
-            
-            // Update player stats via REST too
-            updatePlayerStatsREST(playerId, playerName, score);
+            long timestamp = System.currentTimeMillis();
+            // Built with Gson so player names with quotes or backslashes are escaped
+            JsonObject scoreJson = new JsonObject();
+            scoreJson.addProperty("playerName", playerName);
+            scoreJson.addProperty("score", score);
+            scoreJson.addProperty("survivalTime", survivalTime);
+            scoreJson.addProperty("timestamp", timestamp);
+            // Flat copy under leaderboard/, indexed on score, so ranks can be paged with startAt/endAt
+            JsonObject leaderboardJson = new JsonObject();
+            leaderboardJson.addProperty("playerId", playerId);
+            leaderboardJson.addProperty("playerName", playerName);
+            leaderboardJson.addProperty("score", score);
+            leaderboardJson.addProperty("timestamp", timestamp);
+            JsonObject update = new JsonObject();
+            update.add("scores/" + playerId + "/" + scoreId, scoreJson);
+            update.add("leaderboard/" + scoreId, leaderboardJson);
+            if (replay != null) {
+                JsonObject queued = new JsonObject();
+                queued.addProperty("playerId", playerId);
+                queued.addProperty("score", score);
+                queued.addProperty("survivalTime", survivalTime);
+                queued.addProperty("seed", Long.toString(replay.getSeed()));
+                queued.addProperty("ticks", replay.getTickCount());
+                queued.addProperty("inputs", replay.encode());
+                update.add("replayQueue/" + scoreId, queued);
+            }
+            String jsonBody = update.toString();
             
+            writeScore(playerId, playerName, score, scoreId, jsonBody, future);
+        
         } catch (Exception e) {
-            System.err.println("Exception during REST API call: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Exception during REST API call", e, "playerId", playerId);
             future.completeExceptionally(e);
         }
         
@@ -164,109 +465,364 @@ public class FirebaseService {
     }
     
     /**
-     * Update player statistics using REST API
+     * Send a score's multi-location update, then update the player stats and the percentile sketch.
+     * The update itself is keyed by scoreId and the follow-up updates skip scores they already counted,
+     * so sending the same score again (e.g. after a timeout the server did apply) counts it once.
+     * If Firebase cannot be reached (breaker open, network error or 5xx after retries) the update
+     * is kept in the local pending file instead and the future still completes normally.
      */
-    private void updatePlayerStatsREST(String playerId, String playerName, int score) {
+    private void writeScore(String playerId, String playerName, int score, String scoreId, String jsonBody,
+                            CompletableFuture<Void> future) {
+        // One multi-location update writes both copies atomically. No access token (e.g. the
+        // token endpoint is down) fails the send like a network failure
+        newRequestAsync("", null)
+            .thenCompose(builder -> send("saveScore", builder
+                .method("PATCH", java.net.http.HttpRequest.BodyPublishers.ofString(jsonBody))
+                .header("Content-Type", "application/json")
+                .build(), java.net.http.HttpResponse.BodyHandlers.ofString()))
+            .handle((response, ex) -> {
+                if (ex != null) {
+                    queuePendingScore(playerId, playerName, score, jsonBody, unwrap(ex));
+                    future.complete(null);
+                } else if (response.statusCode() == 200) {
+                    Log.info("Score saved", "playerId", playerId, "score", score);
+                    future.complete(null);
+                    
+                    // Update player stats via REST too
+                    updatePlayerStatsREST(playerId, playerName, score, scoreId);
+                    
+                    // Fold the score into the shared percentile sketch
+                    updateScoreSketch(score, scoreId, SKETCH_UPDATE_ATTEMPTS);
+                } else if (isTransientFailure(response.statusCode())) {
+                    queuePendingScore(playerId, playerName, score, jsonBody, new IOException("HTTP " + response.statusCode()));
+                    future.complete(null);
+                } else {
+                    Log.warn("Failed to save score", "status", response.statusCode(), "response", response.body());
+                    future.completeExceptionally(new Exception("HTTP " + response.statusCode()));
+                }
+                return null;
+            });
+    }
+    
+    private synchronized void queuePendingScore(String playerId, String playerName, int score, String jsonBody, Throwable cause) {
+        String line = playerId + "\t" + score + "\t" + playerName.replace('\t', ' ').replace('\n', ' ')
+            + "\t" + jsonBody.replace('\n', ' ') + "\n";
         try {
-            // First, get existing player data
-            String getUrl = "https://gamescorees-default-rtdb.firebaseio.com/players/" + playerId + ".json";
-            
-            java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
-            java.net.http.HttpRequest getRequest = java.net.http.HttpRequest.newBuilder()
-                .uri(java.net.URI.create(getUrl))
-                .GET()
-                .build();
-            
-            client.sendAsync(getRequest, java.net.http.HttpResponse.BodyHandlers.ofString())
-                .thenAccept(response -> {
+            java.nio.file.Files.writeString(pendingScoresFile, line,
+                java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+            Log.info("Firebase unreachable, score saved locally", "playerId", playerId, "score", score, "cause", cause.getMessage());
+        } catch (IOException e) {
+            Log.error("Could not save score locally, score lost", "playerId", playerId, "score", score, "error", e.getMessage());
+        }
+    }
+    
+    /**
+     * Upload scores that were saved locally while Firebase was unreachable.
+     * Scores that fail again go back into the file.
+     */
+    void flushPendingScores() {
+        List<String> lines;
+        synchronized (this) {
+            if (!java.nio.file.Files.exists(pendingScoresFile)) return;
+            try {
+                lines = java.nio.file.Files.readAllLines(pendingScoresFile);
+                java.nio.file.Files.delete(pendingScoresFile);
+            } catch (IOException e) {
+                Log.warn("Could not read pending scores", "error", e.getMessage());
+                return;
+            }
+        }
+        
+        Log.info("Uploading scores saved while offline", "count", lines.size());
+        for (String line : lines) {
+            String[] parts = line.split("\t", 4);
+            if (parts.length < 4) continue;
+            try {
+                writeScore(parts[0], parts[2], Integer.parseInt(parts[1]), scoreIdOf(parts[3]), parts[3], new CompletableFuture<>());
+            } catch (RuntimeException e) {
+                Log.warn("Skipping malformed pending score", "line", line);
+            }
+        }
+    }
+    
+    /**
+     * The score ID of a saved update body: the key of its leaderboard/ entry.
+     */
+    private static String scoreIdOf(String jsonBody) {
+        for (String key : com.google.gson.JsonParser.parseString(jsonBody).getAsJsonObject().keySet()) {
+            if (key.startsWith("leaderboard/")) {
+                return key.substring("leaderboard/".length());
+            }
+        }
+        throw new IllegalArgumentException("no leaderboard entry in pending score");
+    }
+    
+    private static boolean isCounted(String countedScoreIds, String scoreId) {
+        return countedScoreIds != null && Arrays.asList(countedScoreIds.split(" ")).contains(scoreId);
+    }
+    
+    /**
+     * Add a score ID to a counted list, dropping the oldest IDs beyond MAX_COUNTED_SCORE_IDS.
+     */
+    private static String addCounted(String countedScoreIds, String scoreId) {
+        List<String> ids = new ArrayList<>();
+        if (countedScoreIds != null && !countedScoreIds.isEmpty()) {
+            ids.addAll(Arrays.asList(countedScoreIds.split(" ")));
+        }
+        ids.add(scoreId);
+        return String.join(" ", ids.subList(Math.max(0, ids.size() - MAX_COUNTED_SCORE_IDS), ids.size()));
+    }
+    
+    /**
+     * Update player statistics using REST API. Skipped if the stats already counted this score.
+     */
+    private void updatePlayerStatsREST(String playerId, String playerName, int score, String scoreId) {
+        // First, get existing player data
+        newRequestAsync("players/" + playerId, null)
+            .thenCompose(builder -> send("playerStatsRead", builder.GET().build(), java.net.http.HttpResponse.BodyHandlers.ofString()))
+            .thenCompose(response -> {
+                int gamesPlayed = 1;
+                int highScore = score;
+                String counted = null;
+                
+                if (response.statusCode() == 200) {
                     try {
-                        int gamesPlayed = 1;
-                        int highScore = score;
-                        
-                        if (response.statusCode() == 200 && !response.body().equals("null")) {
-                            // Parse existing data (simple JSON parsing)
-                            String body = response.body();
-                            if (body.contains("gamesPlayed")) {
-                                String gp = body.substring(body.indexOf("gamesPlayed") + 13);
-                                gp = gp.substring(0, gp.indexOf(",") > 0 ? gp.indexOf(",") : gp.indexOf("}"));
-                                gamesPlayed = Integer.parseInt(gp.trim()) + 1;
-                            }
-                            if (body.contains("highScore")) {
-                                String hs = body.substring(body.indexOf("highScore") + 11);
-                                hs = hs.substring(0, hs.indexOf(",") > 0 ? hs.indexOf(",") : hs.indexOf("}"));
-                                highScore = Math.max(Integer.parseInt(hs.trim()), score);
+                        PlayerStats existing = LeaderboardParser.parsePlayerStats(new java.io.StringReader(response.body()));
+                        if (existing != null) {
+                            if (isCounted(existing.countedScoreIds, scoreId)) {
+                                Log.debug("Player stats already count this score", "playerId", playerId, "scoreId", scoreId);
+                                return CompletableFuture.<java.net.http.HttpResponse<String>>completedFuture(null);
                             }
+                            gamesPlayed = existing.gamesPlayed + 1;
+                            highScore = Math.max(existing.highScore, score);
+                            counted = existing.countedScoreIds;
                         }
-                        
-                        // Update player stats
-                        String putUrl = "https://gamescorees-default-rtdb.firebaseio.com/players/" + playerId + ".json";
-                        String jsonBody = String.format(
-                            "{\"name\":\"%s\",\"gamesPlayed\":%d,\"highScore\":%d,\"lastPlayed\":%d}",
-                            playerName, gamesPlayed, highScore, System.currentTimeMillis()
-                        );
-                        
-                        java.net.http.HttpRequest putRequest = java.net.http.HttpRequest.newBuilder()
-                            .uri(java.net.URI.create(putUrl))
-                            .PUT(java.net.http.HttpRequest.BodyPublishers.ofString(jsonBody))
-                            .header("Content-Type", "application/json")
-                            .build();
-                        
-                        client.sendAsync(putRequest, java.net.http.HttpResponse.BodyHandlers.ofString())
-                            .thenAccept(r -> System.out.println("Player stats updated successfully"));
-                        
-                    } catch (Exception e) {
-                        System.err.println("Error parsing player data: " + e.getMessage());
+                    } catch (IOException | IllegalStateException | NumberFormatException e) {
+                        Log.warn("Error parsing player data", "error", e.getMessage());
                     }
-                });
+                }
                 
-        } catch (Exception e) {
-            System.err.println("Failed to update player stats: " + e.getMessage());
+                // Update player stats
+                JsonObject stats = new JsonObject();
+                stats.addProperty("name", playerName);
+                stats.addProperty("gamesPlayed", gamesPlayed);
+                stats.addProperty("highScore", highScore);
+                stats.addProperty("lastPlayed", System.currentTimeMillis());
+                stats.addProperty(COUNTED_SCORE_IDS, addCounted(counted, scoreId));
+                String jsonBody = stats.toString();
+                return newRequestAsync("players/" + playerId, null)
+                    .thenCompose(builder -> send("playerStatsWrite", builder
+                        .PUT(java.net.http.HttpRequest.BodyPublishers.ofString(jsonBody))
+                        .header("Content-Type", "application/json")
+                        .build(), java.net.http.HttpResponse.BodyHandlers.ofString()));
+            })
+            .thenAccept(r -> {
+                if (r != null) Log.debug("Player stats updated", "playerId", playerId);
+            })
+            .exceptionally(ex -> {
+                Log.warn("Failed to update player stats", "error", unwrap(ex).getMessage());
+                return null;
+            });
+    }
+    
+    /**
+     * Add a score to the sketch at stats/scoreSketch with a conditional write.
+     * The node is read with its ETag and written back with if-match; on a conflict
+     * (HTTP 412) another client won the race, so the read-modify-write is retried
+     * after a jittered backoff.
+     */
+    private void updateScoreSketch(int score, String scoreId, int attempts) {
+        newRequestAsync(SCORE_SKETCH_PATH, null)
+            .thenCompose(builder -> send("scoreSketchRead", builder
+                .header("X-Firebase-ETag", "true")
+                .GET()
+                .build(), java.net.http.HttpResponse.BodyHandlers.ofString()))
+            .thenAccept(response -> {
+                if (response.statusCode() != 200) {
+                    Log.warn("Failed to read score sketch", "status", response.statusCode());
+                    return;
+                }
+                writeScoreSketch(score, scoreId, response, attempts);
+            })
+            .exceptionally(ex -> {
+                Log.warn("Failed to read score sketch", "error", unwrap(ex).getMessage());
+                return null;
+            });
+    }
+    
+    private void writeScoreSketch(int score, String scoreId, java.net.http.HttpResponse<String> current, int attempts) {
+        String etag = current.headers().firstValue("ETag").orElse(null);
+        QuantileSketch sketch;
+        String counted = null;
+        try {
+            sketch = QuantileSketch.fromJson(new java.io.StringReader(current.body()));
+            com.google.gson.JsonElement node = com.google.gson.JsonParser.parseString(current.body());
+            if (node.isJsonObject() && node.getAsJsonObject().has(COUNTED_SCORE_IDS)) {
+                counted = node.getAsJsonObject().get(COUNTED_SCORE_IDS).getAsString();
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.warn("Discarding unreadable score sketch", "error", e.getMessage());
+            sketch = new QuantileSketch();
+        }
+        if (isCounted(counted, scoreId)) {
+            // An earlier write went through, e.g. a retry after a timeout that lost the reply
+            cacheScoreSketch(sketch);
+            return;
+        }
+        sketch.add(score);
+        QuantileSketch updated = sketch;
+        JsonObject body = com.google.gson.JsonParser.parseString(updated.toJson()).getAsJsonObject();
+        body.addProperty(COUNTED_SCORE_IDS, addCounted(counted, scoreId));
+        
+        newRequestAsync(SCORE_SKETCH_PATH, null)
+            .thenCompose(builder -> {
+                builder.PUT(java.net.http.HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .header("Content-Type", "application/json")
+                    .header("X-Firebase-ETag", "true");
+                if (etag != null) {
+                    builder.header("if-match", etag);
+                }
+                return send("scoreSketchWrite", builder.build(), java.net.http.HttpResponse.BodyHandlers.ofString());
+            })
+            .thenAccept(response -> {
+                if (response.statusCode() == 200) {
+                    cacheScoreSketch(updated);
+                } else if (response.statusCode() == 412 && attempts > 1) {
+                    // Lost the race, back off so concurrent writers spread out
+                    int retry = SKETCH_UPDATE_ATTEMPTS - attempts;
+                    long delay = (long) (SKETCH_RETRY_BASE_MILLIS * (1L << retry) * (0.5 + Math.random()));
+                    CompletableFuture.delayedExecutor(delay, java.util.concurrent.TimeUnit.MILLISECONDS)
+                        .execute(() -> updateScoreSketch(score, scoreId, attempts - 1));
+                } else {
+                    Log.warn("Failed to write score sketch", "status", response.statusCode());
+                }
+            })
+            .exceptionally(ex -> {
+                Log.warn("Failed to write score sketch", "error", unwrap(ex).getMessage());
+                return null;
+            });
+    }
+    
+    /**
+     * Get the sketch of all submitted scores, for percentile ranks.
+     * Fetched at most once per {@link #SCORE_SKETCH_TTL_MILLIS}; concurrent callers share
+     * the request. Completes with an empty sketch when offline or on error.
+     */
+    public synchronized CompletableFuture<QuantileSketch> getScoreSketch() {
+        if (scoreSketch != null && System.currentTimeMillis() - scoreSketchFetchedAt < SCORE_SKETCH_TTL_MILLIS) {
+            return scoreSketch;
         }
+        if (!initialized) {
+            return CompletableFuture.completedFuture(new QuantileSketch());
+        }
+        
+        scoreSketchFetchedAt = System.currentTimeMillis();
+        scoreSketch = newRequestAsync(SCORE_SKETCH_PATH, null)
+            .thenCompose(builder -> send("scoreSketch", builder.GET().build(), java.net.http.HttpResponse.BodyHandlers.ofString()))
+            .thenApply(response -> {
+                if (response.statusCode() != 200) {
+                    throw new java.io.UncheckedIOException(new IOException("HTTP " + response.statusCode()));
+                }
+                try {
+                    return QuantileSketch.fromJson(new java.io.StringReader(response.body()));
+                } catch (IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            })
+            .exceptionally(ex -> {
+                Log.warn("Failed to get score sketch", "error", unwrap(ex).getMessage());
+                synchronized (this) {
+                    scoreSketchFetchedAt = 0; // Try again next time
+                }
+                return new QuantileSketch();
+            });
+        return scoreSketch;
+    }
+    
+    private synchronized void cacheScoreSketch(QuantileSketch sketch) {
+        scoreSketch = CompletableFuture.completedFuture(sketch);
+        scoreSketchFetchedAt = System.currentTimeMillis();
     }
     
     /**
      * Get top scores (leaderboard)
+     * Reads only the best {@code limit} entries of the flat leaderboard index
+     * (orderBy score, limitToLast), so the cost does not grow with the number of scores.
+     * Scores saved before the index existed are copied into it by {@link LeaderboardBackfill}.
+     * The future fails on network errors, HTTP errors and unreadable responses,
+     * so callers can tell "no scores" from "could not fetch them".
      */
     public CompletableFuture<List<ScoreEntry>> getTopScores(int limit) {
-        CompletableFuture<List<ScoreEntry>> future = new CompletableFuture<>();
-        
+        return queryLeaderboard("topScores", null, limit).thenApply(page -> new ArrayList<>(page.values()));
+    }
+    
+    /**
+     * Get one page of the flat leaderboard index, ordered by score.
+     * Returns up to {@code limit} entries with a score of at most {@code endAtScore}
+     * (null = from the top), keyed by score ID, best first.
+     */
+    public CompletableFuture<java.util.LinkedHashMap<String, ScoreEntry>> getLeaderboardPage(Integer endAtScore, int limit) {
+        return queryLeaderboard("leaderboardPage", endAtScore, limit);
+    }
+    
+    private CompletableFuture<java.util.LinkedHashMap<String, ScoreEntry>> queryLeaderboard(String operation, Integer endAtScore, int limit) {
         if (!initialized) {
-            future.complete(new ArrayList<>());
-            return future;
+            return CompletableFuture.completedFuture(new java.util.LinkedHashMap<>());
         }
         
-        database.child("scores")
-            .orderByChild("score")
-            .limitToLast(limit)
-            .addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(DataSnapshot snapshot) {
-                    List<ScoreEntry> scores = new ArrayList<>();
-                    for (DataSnapshot playerSnapshot : snapshot.getChildren()) {
-                        for (DataSnapshot scoreSnapshot : playerSnapshot.getChildren()) {
-                            String name = scoreSnapshot.child("playerName").getValue(String.class);
-                            Integer score = scoreSnapshot.child("score").getValue(Integer.class);
-                            Long timestamp = scoreSnapshot.child("timestamp").getValue(Long.class);
-                            
-                            if (name != null && score != null) {
-                                scores.add(new ScoreEntry(name, score, timestamp != null ? timestamp : 0));
-                            }
-                        }
+        String query = "orderBy=%22score%22&limitToLast=" + limit + (endAtScore != null ? "&endAt=" + endAtScore : "");
+        return newRequestAsync("leaderboard", query)
+            .thenCompose(builder -> send(operation, builder.GET().build(), java.net.http.HttpResponse.BodyHandlers.ofInputStream()))
+            .thenApply(response -> {
+                try (java.io.Reader body = new java.io.InputStreamReader(response.body(), java.nio.charset.StandardCharsets.UTF_8)) {
+                    if (response.statusCode() != 200) {
+                        throw new java.io.UncheckedIOException(new IOException("HTTP " + response.statusCode()));
                     }
-                    
-                    // Sort descending
-                    scores.sort((a, b) -> Integer.compare(b.score, a.score));
-                    future.complete(scores);
-                }
-                
-                @Override
-                public void onCancelled(DatabaseError error) {
-                    System.err.println("Failed to get top scores: " + error.getMessage());
-                    future.complete(new ArrayList<>());
+                    return LeaderboardParser.parseLeaderboardPage(body);
+                } catch (IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                } catch (IllegalStateException | NumberFormatException e) {
+                    throw new java.io.UncheckedIOException(new IOException("Unreadable leaderboard: " + e.getMessage(), e));
                 }
             });
+    }
+    
+    /**
+     * Request metrics for one kind of REST call.
+     */
+    public static class OperationStats {
+        public final String operation;
+        public final LatencyHistogram latency = new LatencyHistogram();
+        public final java.util.concurrent.atomic.LongAdder requests = new java.util.concurrent.atomic.LongAdder();
+        public final java.util.concurrent.atomic.LongAdder failures = new java.util.concurrent.atomic.LongAdder();
+        public final java.util.concurrent.atomic.LongAdder retries = new java.util.concurrent.atomic.LongAdder();
+        public final java.util.concurrent.atomic.LongAdder rejected = new java.util.concurrent.atomic.LongAdder(); // Failed fast, breaker open
         
-        return future;
+        OperationStats(String operation) {
+            this.operation = operation;
+        }
+        
+        public double getFailureRate() {
+            long n = requests.sum();
+            return n == 0 ? 0 : (double) failures.sum() / n;
+        }
+        
+        public String summary() {
+            return String.format("%s: %d req, %.0f%% failed, %d retries, %d rejected, p50 %.0f ms, p99 %.0f ms",
+                operation, requests.sum(), getFailureRate() * 100, retries.sum(), rejected.sum(),
+                latency.getPercentileMillis(0.50), latency.getPercentileMillis(0.99));
+        }
+    }
+    
+    /**
+     * Thrown (as the cause of a failed future) when a call is refused because the circuit breaker is open.
+     */
+    public static class CircuitOpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        public CircuitOpenException(long retryInMillis) {
+            super("Firebase unreachable, circuit open (next try in " + (retryInMillis / 1000 + 1) + " s)");
+        }
     }
     
     /**
@@ -283,4 +839,15 @@ public class FirebaseService {
             this.timestamp = timestamp;
         }
     }
+    
+    /**
+     * Player statistics stored under players/{playerId}
+     */
+    public static class PlayerStats {
+        public String name;
+        public int gamesPlayed;
+        public int highScore;
+        public long lastPlayed;
+        public String countedScoreIds; // See COUNTED_SCORE_IDS
+    }
 }
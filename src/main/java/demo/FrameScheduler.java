@@ -0,0 +1,248 @@
+package demo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cooperative scheduler for work that does not have to finish in the frame that triggered it
+ * (UI updates, cosmetic effects, saving). While a game loop is running, the tasks run in the
+ * time left of the frame budget after update and render; otherwise they run in short slices
+ * posted to the JavaFX thread. Tasks may be submitted from any thread and always run on the
+ * JavaFX thread.
+ *
+ * Higher priorities run first. A task that has waited longer than STARVATION_NANOS gets one
+ * short slice per frame even when the budget is used up, so low priority work still makes progress.
+ */
+public class FrameScheduler {
+    public enum Priority { HIGH, NORMAL, LOW }
+
+    /**
+     * A piece of deferred work that may be split across frames.
+     */
+    public interface Task {
+        /**
+         * Do some work, ideally stopping before {@code deadlineNanos} (System.nanoTime()).
+         * Returns true when finished, false to be continued in a later frame.
+         */
+        boolean runSlice(long deadlineNanos);
+    }
+
+    private static final long STARVATION_NANOS = 250_000_000;  // Waited this long: runs even without budget
+    private static final long FORCED_SLICE_NANOS = 500_000;     // How long such a task may run over budget
+    private static final long PULSE_SLICE_NANOS = 8_000_000;    // Slice per JavaFX pulse when no game loop drives us
+
+    private static FrameScheduler instance;
+
+    private final ConcurrentLinkedQueue<Entry> inbox = new ConcurrentLinkedQueue<>();
+    private final Set<Task> pending = ConcurrentHashMap.newKeySet(); // Queued tasks, for coalescing
+    private final List<ArrayDeque<Entry>> queues;                    // Per priority, JavaFX thread only
+    private volatile boolean frameDriven = false;
+    private final AtomicBoolean pulsePosted = new AtomicBoolean();
+
+    // Stats
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private long completed = 0;
+    private long slices = 0;
+    private long deferred = 0;     // Tasks that did not finish in the frame they were queued in
+    private long forced = 0;       // Slices run over budget because a task was starving
+    private long frames = 0;
+    private long framesOverBudget = 0;
+    private int maxQueued = 0;
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    private static class Entry {
+        final Task task;
+        final Priority priority;
+        long queuedAt;
+        boolean countedDeferred;
+
+        Entry(Task task, Priority priority) {
+            this.task = task;
+            this.priority = priority;
+            this.queuedAt = System.nanoTime();
+        }
+    }
+
+    FrameScheduler() {
+        queues = new ArrayList<>(Priority.values().length);
+        for (int i = 0; i < Priority.values().length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    public static synchronized FrameScheduler getInstance() {
+        if (instance == null) {
+            instance = new FrameScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * Queue a one-shot piece of work.
+     */
+    public void submit(Priority priority, Runnable work) {
+        submit(priority, deadline -> {
+            work.run();
+            return true;
+        });
+    }
+
+    /**
+     * Queue a task. A task that is already queued is not queued twice, so a reused task
+     * instance that reads the latest state (e.g. the newest leaderboard) coalesces updates.
+     */
+    public void submit(Priority priority, Task task) {
+        if (!pending.add(task)) {
+            coalesced.incrementAndGet();
+            return;
+        }
+        submitted.incrementAndGet();
+        inbox.add(new Entry(task, priority));
+        if (!frameDriven) {
+            postPulse();
+        }
+    }
+
+    /**
+     * Called by the game loop when it starts and stops. While it runs, deferred work only
+     * runs in {@link #runIdle(long)}; otherwise it runs on JavaFX pulses.
+     */
+    public void setFrameDriven(boolean driven) {
+        frameDriven = driven;
+        if (!driven && (!inbox.isEmpty() || getQueuedCount() > 0)) {
+            postPulse();
+        }
+    }
+
+    /**
+     * Run queued tasks until {@code deadlineNanos}, the end of this frame's budget. Call on the
+     * JavaFX thread after the frame's own work is done.
+     */
+    public void runIdle(long deadlineNanos) {
+        frames++;
+        drainInbox();
+        if (System.nanoTime() >= deadlineNanos) {
+            framesOverBudget++;
+        }
+
+        // One starving task gets a slice no matter how little budget is left
+        Entry starving = oldestStarving(System.nanoTime());
+        if (starving != null) {
+            queues.get(starving.priority.ordinal()).remove(starving);
+            forced++;
+            runEntry(starving, Math.max(deadlineNanos, System.nanoTime() + FORCED_SLICE_NANOS));
+        }
+
+        Entry next;
+        while (System.nanoTime() < deadlineNanos && (next = pollHighest()) != null) {
+            runEntry(next, deadlineNanos);
+        }
+
+        // Whatever is still queued now has missed this frame
+        for (ArrayDeque<Entry> queue : queues) {
+            for (Entry entry : queue) {
+                if (!entry.countedDeferred) {
+                    entry.countedDeferred = true;
+                    deferred++;
+                }
+            }
+        }
+    }
+
+    private void postPulse() {
+        if (!pulsePosted.compareAndSet(false, true)) return;
+        try {
+            javafx.application.Platform.runLater(() -> {
+                pulsePosted.set(false);
+                if (frameDriven) return; // A game loop took over
+                runIdle(System.nanoTime() + PULSE_SLICE_NANOS);
+                if (getQueuedCount() > 0 || !inbox.isEmpty()) {
+                    postPulse();
+                }
+            });
+        } catch (IllegalStateException e) {
+            // JavaFX toolkit not running (headless tools): nothing to defer to, run it all now
+            pulsePosted.set(false);
+            runIdle(Long.MAX_VALUE);
+        }
+    }
+
+    private void drainInbox() {
+        Entry entry;
+        while ((entry = inbox.poll()) != null) {
+            queues.get(entry.priority.ordinal()).addLast(entry);
+        }
+        maxQueued = Math.max(maxQueued, getQueuedCount());
+    }
+
+    private void runEntry(Entry entry, long deadlineNanos) {
+        long start = System.nanoTime();
+        queueWait.record(start - entry.queuedAt);
+        slices++;
+        boolean done;
+        try {
+            done = entry.task.runSlice(deadlineNanos);
+        } catch (RuntimeException e) {
+            Log.error("Deferred task failed", e);
+            done = true;
+        }
+        if (done) {
+            pending.remove(entry.task);
+            completed++;
+        } else {
+            // Continue later, behind the other tasks of its priority; wait time restarts
+            entry.queuedAt = System.nanoTime();
+            queues.get(entry.priority.ordinal()).addLast(entry);
+        }
+    }
+
+    private Entry pollHighest() {
+        for (ArrayDeque<Entry> queue : queues) {
+            Entry entry = queue.pollFirst();
+            if (entry != null) return entry;
+        }
+        return null;
+    }
+
+    private Entry oldestStarving(long now) {
+        Entry oldest = null;
+        for (ArrayDeque<Entry> queue : queues) {
+            Entry head = queue.peekFirst(); // Queues are in submit order, the head waited longest
+            if (head != null && now - head.queuedAt >= STARVATION_NANOS
+                    && (oldest == null || head.queuedAt < oldest.queuedAt)) {
+                oldest = head;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * Tasks waiting to run, not counting those submitted since the last frame.
+     */
+    public int getQueuedCount() {
+        int count = 0;
+        for (ArrayDeque<Entry> queue : queues) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    public long getCompletedCount() {
+        return completed;
+    }
+
+    public String getStatsSummary() {
+        return String.format("deferred work: %d submitted (%d coalesced), %d done in %d slices, %d carried over a frame, "
+                + "%d forced, queue max %d, wait p50 %.1f ms p99 %.1f ms max %.1f ms, %d of %d frames had no idle time",
+            submitted.get(), coalesced.get(), completed, slices, deferred, forced, maxQueued,
+            queueWait.getPercentileMillis(0.50), queueWait.getPercentileMillis(0.99), queueWait.getMaxMillis(),
+            framesOverBudget, frames);
+    }
+}
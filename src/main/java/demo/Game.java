@@ -1,6 +1,7 @@
 package demo;
 
 import javafx.animation.AnimationTimer;
+import javafx.beans.value.ChangeListener;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
@@ -18,19 +19,105 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class Game {
+public final class Game {
     private static final int WIDTH = 1280;
     private static final int HEIGHT = 720;
+    private static final CollisionMask PLAYER_MASK = CollisionMask.rect(50, 50); // The player's hitbox is its whole sprite
     
+    // Fixed simulation step; the frame loop runs as many ticks as real time requires
+    static final int TICKS_PER_SECOND = 60;
+    static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    private static final int MAX_TICKS_PER_FRAME = 5;
+    private static final long NEVER = Long.MIN_VALUE / 2; // "Long ago" for cooldown timestamps
+    // Upload the seed and input log with each score so it can be re-simulated (see ReplayVerifier)
+    private static final boolean UPLOAD_REPLAYS = Boolean.getBoolean("game.uploadReplays");
+    
+    private final boolean headless;
     private Canvas canvas;
     private GraphicsContext gc;
+    
+    // Session lifecycle: one Game (canvas, scene, loop) is reused for every session started from the menu
+    enum SessionState { CREATED, RUNNING, PAUSED, STOPPED, DISPOSED }
+    private static final AtomicInteger runningLoops = new AtomicInteger();
+    private SessionState sessionState = SessionState.CREATED;
+    private Stage stage;
+    private Scene scene;
+    private AnimationTimer gameLoop;
+    private boolean loopRunning = false;
+    private ChangeListener<Boolean> iconifiedListener;
+    private ChangeListener<Boolean> focusListener;
+    
+    // Low-power idle: while the run is frozen (paused or game over) the loop is stopped after one
+    // last frame, and input redraws on demand. Paused ticks do not change the run, so skipping them
+    // keeps replays valid
+    private boolean idle = false;
+    private boolean autoPaused = false; // Paused because the window lost focus
+    
+    // Frame work time (update + render) over the first seconds of each session, to spot JIT stutter
+    private static final long FRAME_REPORT_NANOS = 30_000_000_000L;
+    private final LatencyHistogram firstFrames = new LatencyHistogram();
+    private long sessionStartNanos = 0;
+    
+    // Deferred work (ambient effects, saving) runs in what is left of the frame after update and render;
+    // the rest of the 16.7 ms frame is left to JavaFX to paint
+    private static final long FRAME_BUDGET_NANOS = 12_000_000;
+    private final FrameScheduler scheduler = FrameScheduler.getInstance();
+    private int ambientTicks = 0; // Ticks whose ambient particles are still to be created
+    private final FrameScheduler.Task ambientParticles = deadline -> {
+        // One spawn chance per tick run, however many frames the task was coalesced over
+        for (; ambientTicks > 0; ambientTicks--) {
+            this.particleSystem.createAmbientParticles(WIDTH, HEIGHT);
+        }
+        return true;
+    };
     private Set<KeyCode> pressedKeys = new HashSet<>();
     private boolean jumpRequested = false;
+    private int pendingPurchases = 0; // Purchase bits waiting for the next tick
+    
+    // Deterministic run state: simulated clock and the recorded inputs (with the seed)
+    private long simTime = 0;
+    private InputLog inputLog;
+    private long lastFrameTime = 0;
+    private long frameAccumulator = 0;
+    
+    // Tick jobs run in parallel on the pool passed in by whoever creates the Game (null: on the game thread)
+    private final TickGraph tickGraph;
+    // Cooldowns, timeouts and timed effects are timers on a wheel that advances with the
+    // simulation; each one raises a flag (or ends an effect) that the tick checks where it
+    // used to compare timestamps. Delays are converted so every check flips on the same tick as before.
+    private final TimerWheel timers = new TimerWheel();
+    private final TimerWheel.Timer shotTimer = new TimerWheel.Timer(() -> shotReady = true);
+    private final TimerWheel.Timer spawnTimer = new TimerWheel.Timer(() -> spawnDue = true);
+    private final TimerWheel.Timer footstepTimer = new TimerWheel.Timer(() -> footstepReady = true);
+    private final TimerWheel.Timer invulnerabilityEnd = new TimerWheel.Timer(() -> isInvulnerable = false);
+    private final TimerWheel.Timer comboEnd = new TimerWheel.Timer(() -> {
+        comboCount = 0;
+        comboMultiplier = 1.0;
+    });
+    private final TimerWheel.Timer comboTextEnd = new TimerWheel.Timer(() -> showComboText = false);
+    private final TimerWheel.Timer levelUpNotificationEnd = new TimerWheel.Timer(() -> showLevelUpNotification = false);
+    private final TimerWheel.Timer shakeEnd = new TimerWheel.Timer(() -> {
+        shakeX = 0;
+        shakeY = 0;
+        shakeIntensity = 0;
+    });
+    private int[] firstHit = new int[64]; // Per projectile: first enemy it reaches, from the parallel hit search
+    private double[] hitTime = new double[64]; // and when during the tick
+    private int[] bossHit = new int[64]; // Per projectile: first boss part it reaches
+    private double[] bossHitTime = new double[64];
+    // Boxes the enemies swept this tick as edge arrays, for the broad phase of the hit search
+    private final EntityKernels kernels = EntityKernels.get();
+    private double[] boxLeft = new double[64], boxTop = new double[64], boxRight = new double[64], boxBottom = new double[64];
+    private int boxCount = 0;
     
     // Game state
     private double playerX = 100;
     private double playerY = 510;  // Adjusted to match enemy ground position
+    private double playerStartX = 100; // Position at the start of the tick, for swept collision
+    private double playerStartY = 510;
     private double playerSpeed = 3;
     private double scrollSpeed = 0.5;
     private double velocityY = 0;
@@ -45,26 +132,52 @@ public class Game {
     private int maxHealth = 100;
     private int currentHealth = 100;
     private boolean isInvulnerable = false;
-    private long invulnerabilityTimer = 0;
     private long invulnerabilityDuration = 2_000_000_000L; // 2 seconds in nanoseconds
     
     // Enemies
     private List<Enemy> enemies = new ArrayList<>();
-    private Random random = new Random();
-    private long lastEnemySpawn = 0;
+    private Random random;                          // Gameplay only, seeded per run
+    private Random effectsRandom = new Random();    // Cosmetic effects, not part of the replay
+    private long lastEnemySpawn = 0;                 // Tick
+    private boolean spawnDue = true;
     private long enemySpawnInterval = 3_000_000_000L; // 3 seconds (base)
     private long currentSpawnInterval = 3_000_000_000L; // Adjusted by level
     
-    // Projectiles
+    // Boss: arrives every few levels and holds back regular spawns until it is beaten
+    private static final int BOSS_LEVEL_INTERVAL = 5;
+    private static final long BOSS_SHOT_INTERVAL = 1_200_000_000L;
+    private Boss boss;
+    private int nextBossLevel = BOSS_LEVEL_INTERVAL;
+    private boolean bossShotReady = false;
+    private final TimerWheel.Timer bossShotTimer = new TimerWheel.Timer(() -> bossShotReady = true);
+    private BulletPattern.Emitter bossEmitter; // Pattern the boss is firing, null between shots
+    private int bossTurret;                     // Part it is fired from
+    
+    // Horde mode: a stress test instead of a run. Enemies spawn through spawnEnemy up to the
+    // horde size, with as many projectiles and particles, the player cannot die and nothing is
+    // saved. In a window the size steps up through HORDE_STEPS and each step is reported.
+    static final int[] HORDE_STEPS = {100, 1000, 10_000};
+    private static final long HORDE_STEP_TICKS = 20 * 60;  // 20 s per step
+    private static final long HORDE_SETTLE_TICKS = 5 * 60; // Not measured while the new horde spreads out
+    private boolean horde = false;
+    private int hordeSize = 0; // 0 in a normal run
+    private HordeReport hordeReport;
+    private boolean hordeMeasuring = false;
+    
+    // Projectiles: the player's as objects, enemy bullets in a pooled store since patterns fire many
     private List<Projectile> projectiles = new ArrayList<>();
-    private long lastPlayerShot = 0;
+    private final ProjectileStore enemyBullets = new ProjectileStore();
+    private long lastPlayerShot = 0;                 // Tick
+    private boolean shotReady = true;
     private long playerShootCooldown = 500_000_000L; // 0.5 seconds
     private int bulletDamage = 20;
     
     // Score and Currency
     private int score = 0;
+    private int finalScore = 0; // Score at the moment of death, the one that is submitted
     private int currency = 0; // Coins for upgrades
-    private long gameStartTime = 0;
+    private int kills = 0;
+    private int upgradesBought = 0;
     
     // Level System
     private int playerLevel = 1;
@@ -79,6 +192,8 @@ public class Game {
     
     // Game state
     private boolean gameOver = false;
+    private volatile QuantileSketch scoreSketch; // All submitted scores, for the percentile rank
+    private String percentileText = null;
     private MainMenu menu;
     private String playerName;
     
@@ -87,7 +202,7 @@ public class Game {
     private boolean wasOnGroundLastFrame = false;
     private double playerBounce = 0;
     private double playerRotation = 0;
-    private long lastFootstepTime = 0;
+    private boolean footstepReady = true;
     private long footstepInterval = 200_000_000L; // 0.2 seconds
     private boolean debugMode = true; // Show hitboxes
     
@@ -95,20 +210,20 @@ public class Game {
     private double shakeX = 0;
     private double shakeY = 0;
     private double shakeIntensity = 0;
-    private long shakeStartTime = 0;
+    private long shakeStartTime = 0;                 // Tick
     private long shakeDuration = 200_000_000L; // 0.2 seconds
     
     // Combo system
     private int comboCount = 0;
-    private long lastKillTime = 0;
     private long comboTimeout = 3_000_000_000L; // 3 seconds
     private double comboMultiplier = 1.0;
     private String comboText = "";
-    private long comboTextTime = 0;
+    private boolean showComboText = false;
     private long comboTextDuration = 1_000_000_000L; // 1 second
     
     // Pause
     private boolean paused = false;
+    private boolean firstFrameRendered = false;
     
     // Background layers for parallax effect
     private Image bgClouds1;
@@ -117,6 +232,7 @@ public class Game {
     private Image bgGroundHouses;
     private Image bgRoad;
     private Image bgFence;
+    private Image bossTrain;
     
     private double clouds1X = 0;
     private double clouds2X = 0;
@@ -125,20 +241,23 @@ public class Game {
     private double roadX = 0;
     private double fenceX = 0;
     
-    public Game(Stage stage, MainMenu menu, String playerName) {
+    /**
+     * Build the window content once. Nothing runs until {@link #start()}.
+     *
+     * @param tickPool where to run the tick jobs in parallel, or null; owned by the caller
+     */
+    public Game(Stage stage, MainMenu menu, String playerName, ForkJoinPool tickPool) {
+        this.headless = false;
+        this.stage = stage;
         this.menu = menu;
         this.playerName = playerName;
+        this.tickGraph = buildTickGraph(tickPool);
         canvas = new Canvas(WIDTH, HEIGHT);
         gc = canvas.getGraphicsContext2D();
-        particleSystem = new ParticleSystem();
-        
-        // Initialize upgrades to level 0
-        for (UpgradeType type : UpgradeType.values()) {
-            upgradeLevels.put(type, 0);
-        }
+        resetRun(new Random().nextLong());
         
         StackPane root = new StackPane(canvas);
-        Scene scene = new Scene(root, WIDTH, HEIGHT);
+        scene = new Scene(root, WIDTH, HEIGHT);
         
         // Load background assets
         loadAssets();
@@ -157,20 +276,25 @@ public class Game {
             }
             if (e.getCode() == KeyCode.P) {
                 paused = !paused; // Toggle pause
+                autoPaused = false;
             }
             if (e.getCode() == KeyCode.U) {
                 showUpgradeMenu = !showUpgradeMenu; // Toggle upgrade menu
             }
             // Upgrade purchase keys
             if (showUpgradeMenu) {
-                if (e.getCode() == KeyCode.DIGIT1) purchaseUpgrade(UpgradeType.FIRE_RATE);
-                if (e.getCode() == KeyCode.DIGIT2) purchaseUpgrade(UpgradeType.BULLET_DAMAGE);
-                if (e.getCode() == KeyCode.DIGIT3) purchaseUpgrade(UpgradeType.MAX_HEALTH);
-                if (e.getCode() == KeyCode.DIGIT4) purchaseUpgrade(UpgradeType.MOVEMENT_SPEED);
+                // Applied on the next tick so the purchase is part of the input log
+                if (e.getCode() == KeyCode.DIGIT1) pendingPurchases |= InputLog.purchaseBit(UpgradeType.FIRE_RATE);
+                if (e.getCode() == KeyCode.DIGIT2) pendingPurchases |= InputLog.purchaseBit(UpgradeType.BULLET_DAMAGE);
+                if (e.getCode() == KeyCode.DIGIT3) pendingPurchases |= InputLog.purchaseBit(UpgradeType.MAX_HEALTH);
+                if (e.getCode() == KeyCode.DIGIT4) pendingPurchases |= InputLog.purchaseBit(UpgradeType.MOVEMENT_SPEED);
             }
             if (e.getCode() == KeyCode.W) {
                 // Shooting handled in update
             }
+            if (idle && sessionState == SessionState.RUNNING) {
+                wakeFromIdle();
+            }
         });
         scene.setOnKeyReleased(e -> {
             pressedKeys.remove(e.getCode());
@@ -179,15 +303,259 @@ public class Game {
             }
         });
         
+        gameLoop = createGameLoop();
+        
+        // No frames while minimized
+        iconifiedListener = (obs, wasIconified, iconified) -> {
+            if (iconified) {
+                pause();
+            } else {
+                resume();
+            }
+        };
+        stage.iconifiedProperty().addListener(iconifiedListener);
+        
+        // Pause while another window has focus, and pick up again as soon as it comes back
+        focusListener = (obs, wasFocused, focused) -> {
+            if (sessionState != SessionState.RUNNING || gameOver) return;
+            if (!focused && !paused) {
+                paused = true;
+                autoPaused = true; // The next frame records the pause and goes idle
+            } else if (focused && autoPaused) {
+                autoPaused = false;
+                paused = false;
+                if (idle) {
+                    wakeFromIdle();
+                }
+            }
+        };
+        stage.focusedProperty().addListener(focusListener);
+    }
+    
+    /**
+     * Start a new session: fresh run, game scene on the stage, loop running.
+     */
+    public void start() {
+        if (sessionState == SessionState.DISPOSED) {
+            throw new IllegalStateException("Game has been disposed");
+        }
+        stopLoop();
+        pressedKeys.clear();
+        jumpRequested = false;
+        showUpgradeMenu = false;
+        idle = false;
+        autoPaused = false;
+        firstFrames.reset();
+        sessionStartNanos = System.nanoTime();
+        restartGame();
+        
         stage.setTitle("Post-Apocalyptic Game");
         stage.setScene(scene);
         stage.setResizable(false);
         stage.show();
+        startLoop();
+        sessionState = SessionState.RUNNING;
+    }
+    
+    /**
+     * Stop the loop but keep the run, e.g. while the window is minimized.
+     * The simulation clock only advances in ticks, so the break is not part of the run.
+     */
+    public void pause() {
+        if (sessionState != SessionState.RUNNING) return;
+        stopLoop();
+        sessionState = SessionState.PAUSED;
+    }
+    
+    public void resume() {
+        if (sessionState != SessionState.PAUSED) return;
+        pressedKeys.clear(); // Key releases during the pause were not seen
+        jumpRequested = false;
+        idle = false;
+        startLoop();
+        sessionState = SessionState.RUNNING;
+    }
+    
+    /**
+     * End the session. The run is abandoned; {@link #start()} begins a new one.
+     */
+    public void stop() {
+        if (sessionState == SessionState.DISPOSED) return;
+        stopLoop();
+        pressedKeys.clear();
+        sessionState = SessionState.STOPPED;
+    }
+    
+    /**
+     * Stop for good and drop the input handlers and images so the Game can be collected.
+     */
+    public void dispose() {
+        stop();
+        scene.setOnKeyPressed(null);
+        scene.setOnKeyReleased(null);
+        stage.iconifiedProperty().removeListener(iconifiedListener);
+        stage.focusedProperty().removeListener(focusListener);
+        bgClouds1 = bgClouds2 = bgHousesBg = bgGroundHouses = bgRoad = bgFence = bossTrain = null;
+        enemies.clear();
+        projectiles.clear();
+        enemyBullets.clear();
+        sessionState = SessionState.DISPOSED;
+    }
+    
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+    
+    /**
+     * Play the next sessions as horde stress tests (or normal runs again), see HORDE_STEPS.
+     */
+    public void setHorde(boolean horde) {
+        this.horde = horde;
+    }
+    
+    SessionState getSessionState() {
+        return sessionState;
+    }
+    
+    /**
+     * Game loops currently running across all instances (should never exceed one).
+     */
+    static int getRunningLoopCount() {
+        return runningLoops.get();
+    }
+    
+    /**
+     * A pool for the tick jobs of {@code threads} threads, or null for one (jobs run on the
+     * game thread). The caller owns it and shuts it down once its Games are done with it.
+     */
+    static ForkJoinPool createTickPool(int threads) {
+        return threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+    
+    private void startLoop() {
+        if (loopRunning) return;
+        lastFrameTime = 0; // No catch-up for the time the loop was not running
+        frameAccumulator = 0;
+        gameLoop.start();
+        loopRunning = true;
+        runningLoops.incrementAndGet();
+        scheduler.setFrameDriven(true);
+    }
+    
+    private void stopLoop() {
+        if (!loopRunning) return;
+        gameLoop.stop();
+        loopRunning = false;
+        runningLoops.decrementAndGet();
+        scheduler.setFrameDriven(false); // Deferred work continues on JavaFX pulses
+    }
+    
+    /**
+     * Headless simulation for replays and tools: no window, assets, effects or saving.
+     * Drive it with {@link #step(int)}.
+     */
+    Game(long seed) {
+        this(seed, null, null);
+    }
+    
+    /**
+     * Headless simulation that also draws each frame, with effects, into a canvas that is not
+     * on screen (used to warm up the render paths, see {@link GameWarmup}). A canvas outside
+     * the scene graph may be drawn on from any thread.
+     */
+    Game(long seed, Canvas offscreen) {
+        this(seed, offscreen, null);
+    }
+    
+    /**
+     * Headless simulation whose tick jobs run in parallel on {@code tickPool} (benchmarks).
+     * The caller owns the pool.
+     */
+    Game(long seed, Canvas offscreen, ForkJoinPool tickPool) {
+        this.headless = true;
+        this.tickGraph = buildTickGraph(tickPool);
+        if (offscreen != null) {
+            canvas = offscreen;
+            gc = offscreen.getGraphicsContext2D();
+        }
+        resetRun(seed);
+    }
+    
+    /**
+     * Draw the current state; only for a headless game with an offscreen canvas.
+     */
+    void renderFrame() {
+        if (gc != null) {
+            render();
+        }
+    }
+    
+    /**
+     * Put every piece of gameplay state back to the start of a run with the given seed.
+     */
+    private void resetRun(long seed) {
+        random = new Random(seed);
+        inputLog = new InputLog(seed);
+        simTime = 0;
+        pendingPurchases = 0;
+        
+        currentHealth = maxHealth = 100;
+        playerX = 100;
+        playerY = 510;
+        playerSpeed = 3;
+        velocityY = 0;
+        isOnGround = false;
+        timers.clear();
+        isInvulnerable = false;
+        enemies.clear();
+        projectiles.clear();
+        enemyBullets.clear();
+        boss = null;
+        nextBossLevel = BOSS_LEVEL_INTERVAL;
+        bossShotReady = false;
+        bossEmitter = null;
+        hordeSize = horde ? HORDE_STEPS[0] : 0;
+        hordeReport = horde ? new HordeReport(tickGraph.getJobNames()) : null;
+        hordeMeasuring = false;
+        tickGraph.setTimed(horde);
+        lastEnemySpawn = NEVER;
+        spawnDue = true;
+        currentSpawnInterval = enemySpawnInterval;
+        lastPlayerShot = NEVER;
+        shotReady = true;
+        playerShootCooldown = 500_000_000L;
+        bulletDamage = 20;
+        score = 0;
+        finalScore = 0;
+        currency = 0;
+        kills = 0;
+        upgradesBought = 0;
+        gameOver = false;
+        percentileText = null;
         
-        gameStartTime = System.nanoTime();
+        playerLevel = 1;
+        experience = 0;
+        experienceToNextLevel = 100;
+        showLevelUpNotification = false;
+        levelUpNotificationTime = NEVER;
+        for (UpgradeType type : UpgradeType.values()) {
+            upgradeLevels.put(type, 0);
+        }
         
-        // Start game loop
-        startGameLoop();
+        particleSystem = new ParticleSystem();
+        particleSystem.setEnabled(gc != null); // Cosmetic, off for pure simulation
+        ambientTicks = 0;
+        wasOnGroundLastFrame = false;
+        playerBounce = 0;
+        playerRotation = 0;
+        footstepReady = true;
+        shakeIntensity = 0;
+        shakeStartTime = NEVER;
+        comboCount = 0;
+        comboMultiplier = 1.0;
+        comboText = "";
+        showComboText = false;
+        paused = false;
     }
     
     private void loadAssets() {
@@ -199,24 +567,90 @@ public class Game {
             bgGroundHouses = new Image(getClass().getResourceAsStream(basePath + "ground&houses.png"));
             bgRoad = new Image(getClass().getResourceAsStream(basePath + "road.png"));
             bgFence = new Image(getClass().getResourceAsStream(basePath + "fence.png"));
+            bossTrain = new Image(getClass().getResourceAsStream(
+                "/craftpix-901125-free-post-apocalyptic-pixel-art-game-backgrounds/PNG/Postapocalypce4/Bright/train.png"));
         } catch (Exception e) {
-            System.err.println("Error loading assets: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("Error loading assets", e);
         }
     }
     
-    private void startGameLoop() {
-        AnimationTimer gameLoop = new AnimationTimer() {
+    private AnimationTimer createGameLoop() {
+        return new AnimationTimer() {
             @Override
             public void handle(long now) {
-                update(now);
+                long workStart = System.nanoTime();
+                // Fixed timestep: catch up in whole ticks, drop the backlog after a long stall
+                if (lastFrameTime == 0) {
+                    lastFrameTime = now - TICK_NANOS;
+                }
+                frameAccumulator += now - lastFrameTime;
+                lastFrameTime = now;
+                int ticks = 0;
+                while (frameAccumulator >= TICK_NANOS && ticks < MAX_TICKS_PER_FRAME) {
+                    long tickStart = System.nanoTime();
+                    update();
+                    if (hordeReport != null) {
+                        recordHordeTick(System.nanoTime() - tickStart);
+                    }
+                    frameAccumulator -= TICK_NANOS;
+                    ticks++;
+                }
+                if (ticks == MAX_TICKS_PER_FRAME) {
+                    frameAccumulator = 0;
+                }
+                long updated = System.nanoTime();
                 render();
+                if (hordeReport != null && hordeMeasuring) {
+                    hordeReport.recordRender(System.nanoTime() - updated);
+                }
+                if (!firstFrameRendered) {
+                    firstFrameRendered = true;
+                    StartupTimeline.mark("first game frame");
+                }
+                recordFrameTime(workStart);
+                if (!paused && !gameOver) {
+                    scheduler.submit(FrameScheduler.Priority.LOW, ambientParticles);
+                }
+                scheduler.runIdle(workStart + FRAME_BUDGET_NANOS);
+                if (paused || gameOver) {
+                    // Nothing moves until the next key press, stop asking for pulses
+                    stopLoop();
+                    idle = true;
+                }
             }
         };
-        gameLoop.start();
     }
     
-    private void update(long now) {
+    private void recordFrameTime(long workStart) {
+        if (sessionStartNanos == 0) return;
+        long end = System.nanoTime();
+        firstFrames.record(end - workStart);
+        if (end - sessionStartNanos >= FRAME_REPORT_NANOS) {
+            Log.info("Frame times, first 30 s of session", "warmup", GameWarmup.getStatus(),
+                "frames", firstFrames.getCount(),
+                "p50", String.format("%.2f", firstFrames.getPercentileMillis(0.50)),
+                "p99", String.format("%.2f", firstFrames.getPercentileMillis(0.99)),
+                "p999", String.format("%.2f", firstFrames.getPercentileMillis(0.999)),
+                "maxMs", String.format("%.2f", firstFrames.getMaxMillis()));
+            Log.info("Frame scheduler", "stats", scheduler.getStatsSummary());
+            sessionStartNanos = 0; // Once per session
+        }
+    }
+    
+    /**
+     * Handle input that arrived while idle: run one tick so purchases, unpausing and restarts
+     * take effect (and are recorded), redraw, and restart the loop if the run is live again.
+     */
+    private void wakeFromIdle() {
+        update();
+        render();
+        if (!paused && !gameOver) {
+            idle = false;
+            startLoop();
+        }
+    }
+    
+    private void update() {
         if (gameOver) {
             // Check for restart
             if (pressedKeys.contains(KeyCode.R)) {
@@ -225,35 +659,75 @@ public class Game {
             return;
         }
         
-        if (paused) {
+        // Toggle auto-scroll with SHIFT (background only, not part of the replay)
+        if (!paused && pressedKeys.contains(KeyCode.SHIFT)) {
+            canAutoScroll = !canAutoScroll;
+            pressedKeys.remove(KeyCode.SHIFT); // Prevent rapid toggling
+        }
+        
+        int input = sampleInput();
+        inputLog.record(input);
+        step(input);
+    }
+    
+    /**
+     * Current keyboard state as input bits for one tick.
+     */
+    private int sampleInput() {
+        int input = pendingPurchases;
+        pendingPurchases = 0;
+        if (pressedKeys.contains(KeyCode.LEFT) || pressedKeys.contains(KeyCode.A)) input |= InputLog.LEFT;
+        if (pressedKeys.contains(KeyCode.RIGHT) || pressedKeys.contains(KeyCode.D)) input |= InputLog.RIGHT;
+        if (pressedKeys.contains(KeyCode.W)) input |= InputLog.SHOOT;
+        if (jumpRequested) input |= InputLog.JUMP;
+        if (paused) input |= InputLog.PAUSED;
+        return input;
+    }
+    
+    /**
+     * Advance the simulation by one tick. Everything that affects the score depends
+     * only on the seed and the input bits, so a run can be replayed headless.
+     */
+    void step(int input) {
+        for (UpgradeType type : UpgradeType.values()) {
+            if ((input & InputLog.purchaseBit(type)) != 0) {
+                purchaseUpgrade(type);
+            }
+        }
+        
+        if ((input & InputLog.PAUSED) != 0) {
             return; // Skip update when paused
         }
         
+        simTime += TICK_NANOS;
+        timers.advance(); // Cooldowns end, combos and effects time out
+        long now = timers.now();
+        playerStartX = playerX;
+        playerStartY = playerY;
+        boolean movingLeft = (input & InputLog.LEFT) != 0;
+        boolean movingRight = (input & InputLog.RIGHT) != 0;
+        
         // Update screen shake
         updateScreenShake(now);
         
-        // Update combo timeout
-        if (comboCount > 0 && now - lastKillTime > comboTimeout) {
-            comboCount = 0;
-            comboMultiplier = 1.0;
-        }
-        
         // Handle horizontal movement
-        if (pressedKeys.contains(KeyCode.LEFT) || pressedKeys.contains(KeyCode.A)) {
+        if (movingLeft) {
             playerX -= playerSpeed;
         }
-        if (pressedKeys.contains(KeyCode.RIGHT) || pressedKeys.contains(KeyCode.D)) {
+        if (movingRight) {
             playerX += playerSpeed;
         }
         
         // Handle shooting
-        if (pressedKeys.contains(KeyCode.W) && now - lastPlayerShot > playerShootCooldown) {
+        if ((input & InputLog.SHOOT) != 0 && shotReady) {
             shoot();
             lastPlayerShot = now;
+            shotReady = false;
+            timers.schedule(shotTimer, ticksAfter(playerShootCooldown));
         }
         
         // Jumping
-        if (jumpRequested && isOnGround) {
+        if ((input & InputLog.JUMP) != 0 && isOnGround) {
             velocityY = jumpStrength;
             isOnGround = false;
             jumpRequested = false; // Consume the jump
@@ -286,11 +760,11 @@ public class Game {
         }
         
         // Create running dust when moving on ground
-        if (isOnGround && (pressedKeys.contains(KeyCode.LEFT) || pressedKeys.contains(KeyCode.A) ||
-                           pressedKeys.contains(KeyCode.RIGHT) || pressedKeys.contains(KeyCode.D))) {
-            if (now - lastFootstepTime > footstepInterval) {
+        if (isOnGround && (movingLeft || movingRight)) {
+            if (footstepReady) {
                 particleSystem.createRunningDust(playerX, playerY);
-                lastFootstepTime = now;
+                footstepReady = false;
+                timers.schedule(footstepTimer, ticksAfter(footstepInterval));
             }
         }
         
@@ -299,86 +773,34 @@ public class Game {
         // Keep player in horizontal bounds
         playerX = Math.max(0, Math.min(WIDTH - 50, playerX));
         
-        // Toggle auto-scroll with SHIFT
-        if (pressedKeys.contains(KeyCode.SHIFT)) {
-            canAutoScroll = !canAutoScroll;
-            pressedKeys.remove(KeyCode.SHIFT); // Prevent rapid toggling
-        }
-        
-        // Update invulnerability
-        if (isInvulnerable && now - invulnerabilityTimer > invulnerabilityDuration) {
-            isInvulnerable = false;
-        }
-        
         // Update difficulty based on level
         updateDifficulty();
         
+        // A boss arrives every few levels; regular spawns wait until it is beaten
+        if (hordeSize > 0) {
+            fillHorde();
+        } else if (boss == null && playerLevel >= nextBossLevel) {
+            spawnBoss();
+        }
+        
         // Spawn enemies
-        if (now - lastEnemySpawn > currentSpawnInterval) {
+        if (spawnDue && boss == null && hordeSize == 0) {
             spawnEnemy();
             lastEnemySpawn = now;
+            spawnDue = false;
+            timers.schedule(spawnTimer, ticksAfter(currentSpawnInterval));
         }
         
-        // Update enemies
-        Iterator<Enemy> iterator = enemies.iterator();
-        while (iterator.hasNext()) {
-            Enemy enemy = iterator.next();
-            enemy.update();
-            
-            // Enemy shooting (check if enemy is on screen and can see player)
-            if (enemy.canShoot() && enemy.getX() < WIDTH - 100 && enemy.getX() > 50) {
-                enemyShoot(enemy);
-                enemy.resetShootCooldown();
-            }
-            
-            // Check collision with player
-            if (!isInvulnerable && enemy.collidesWith(playerX, playerY, 50, 50)) {
-                takeDamage(20);
-                particleSystem.createExplosion(enemy.getX(), enemy.getY(), Color.rgb(150, 0, 0));
-                addScreenShake(8);
-                iterator.remove();
-            }
-            
-            // Remove inactive enemies
-            if (!enemy.isActive()) {
-                iterator.remove();
-                score += 10; // Points for dodging
-            }
-        }
+        // Enemies, projectiles, particles and scrolling, see buildTickGraph
+        tickGraph.run();
         
-        // Update projectiles
-        updateProjectiles();
-        
-        // Update parallax scrolling (right to left)
-        if (canAutoScroll) {
-            clouds1X -= scrollSpeed * 0.2;
-            clouds2X -= scrollSpeed * 0.3;
-            housesBgX -= scrollSpeed * 0.5;
-            groundHousesX -= scrollSpeed * 0.8;
-            roadX -= scrollSpeed * 1.2;
-            fenceX -= scrollSpeed * 1.5;
-        }
-        
-        // Wrap backgrounds
-        if (bgClouds1 != null) {
-            double cloudWidth = bgClouds1.getWidth();
-            if (clouds1X <= -cloudWidth) clouds1X += cloudWidth;
-            if (clouds2X <= -cloudWidth) clouds2X += cloudWidth;
-        }
-        if (bgRoad != null) {
-            double roadWidth = bgRoad.getWidth();
-            if (roadX <= -roadWidth) roadX += roadWidth;
-            if (fenceX <= -roadWidth) fenceX += roadWidth;
-            if (groundHousesX <= -roadWidth) groundHousesX += roadWidth;
-            if (housesBgX <= -roadWidth) housesBgX += roadWidth;
+        // Create ambient particles (ash/debris); in a window this is deferred work, see createGameLoop
+        if (headless) {
+            particleSystem.createAmbientParticles(WIDTH, HEIGHT);
+        } else {
+            ambientTicks++;
         }
         
-        // Update particle system
-        particleSystem.update();
-        
-        // Create ambient particles (ash/debris)
-        particleSystem.createAmbientParticles(WIDTH, HEIGHT);
-        
         // Smooth out player bounce animation
         if (playerBounce > 0) {
             playerBounce -= 0.5;
@@ -419,11 +841,15 @@ public class Game {
         for (Enemy enemy : enemies) {
             enemy.render(gc, debugMode);
         }
+        if (boss != null) {
+            boss.render(gc, bossTrain, debugMode);
+        }
         
         // Draw projectiles
         for (Projectile projectile : projectiles) {
             projectile.render(gc);
         }
+        enemyBullets.render(gc);
         
         // Draw player (with invulnerability flash and animations)
         if (!isInvulnerable || (System.nanoTime() / 100_000_000) % 2 == 0) {
@@ -478,15 +904,13 @@ public class Game {
         drawEnhancedHUD();
         
         // Draw combo text
-        if (System.nanoTime() - comboTextTime < comboTextDuration) {
+        if (showComboText) {
             drawComboText();
         }
         
         // Draw level up notification
-        if (showLevelUpNotification && System.nanoTime() - levelUpNotificationTime < 3_000_000_000L) {
+        if (showLevelUpNotification) {
             drawLevelUpNotification();
-        } else if (System.nanoTime() - levelUpNotificationTime >= 3_000_000_000L) {
-            showLevelUpNotification = false;
         }
         
         // Draw pause overlay
@@ -514,10 +938,9 @@ public class Game {
             gc.setFill(Color.rgb(0, 0, 0, 0.7));
             gc.fillRect(0, 0, WIDTH, HEIGHT);
             
-            // Animated pulsing text
-            double pulse = Math.sin(System.nanoTime() / 200_000_000.0) * 5 + 72;
+            // Fixed size: the loop idles on game over, so this frame stays on screen
             gc.setFill(Color.RED);
-            gc.setFont(javafx.scene.text.Font.font("Arial", pulse));
+            gc.setFont(javafx.scene.text.Font.font("Arial", 72));
             gc.fillText("GAME OVER", WIDTH / 2 - 200, HEIGHT / 2 - 50);
             
             gc.setFill(Color.WHITE);
@@ -528,8 +951,15 @@ public class Game {
             gc.setFill(Color.CYAN);
             gc.fillText("Level Reached: " + playerLevel, WIDTH / 2 - 140, HEIGHT / 2 + 60);
             
+            double restartY = HEIGHT / 2 + 100;
+            if (percentileText != null) {
+                gc.setFill(Color.GOLD);
+                gc.fillText(percentileText, WIDTH / 2 - 150, HEIGHT / 2 + 100);
+                restartY += 40;
+            }
+            
             gc.setFill(Color.WHITE);
-            gc.fillText("Press R to Restart", WIDTH / 2 - 140, HEIGHT / 2 + 100);
+            gc.fillText("Press R to Restart", WIDTH / 2 - 140, restartY);
         }
     }
     
@@ -595,7 +1025,43 @@ public class Game {
             enemyY = (groundLevel + 50) - type.getHeight();
         }
         
-        enemies.add(new Enemy(WIDTH, enemyY, type));
+        addEnemy(new Enemy(WIDTH, enemyY, type));
+    }
+    
+    private void spawnBoss() {
+        boss = new Boss(WIDTH, groundLevel + 50, WIDTH);
+        bossShotReady = false;
+        bossEmitter = null;
+        timers.schedule(bossShotTimer, ticksAtLeast(BOSS_SHOT_INTERVAL));
+        addScreenShake(10);
+        Log.info("Boss arrived", "level", playerLevel, "parts", boss.getPartCount());
+    }
+    
+    private void hitBossPart(int part) {
+        double partX = boss.getPartCenterX(part);
+        double partY = boss.getPartCenterY(part);
+        particleSystem.createHitEffect(partX, partY);
+        if (!boss.damagePart(part, bulletDamage)) return;
+        
+        score += 25;
+        particleSystem.createExplosion(partX, partY, Color.rgb(90, 80, 70));
+        addScreenShake(4);
+        if (boss.isDestroyed()) {
+            // Beaten: counts as a kill with a big bonus
+            score += 1000;
+            addKill();
+            addScreenShake(15);
+            Log.info("Boss defeated", "level", playerLevel);
+            timers.cancel(bossShotTimer);
+            bossEmitter = null;
+            boss = null;
+            nextBossLevel = playerLevel + BOSS_LEVEL_INTERVAL;
+        }
+    }
+    
+    private void addEnemy(Enemy enemy) {
+        enemies.add(enemy);
+        enemy.startShootCooldown(timers);
     }
     
     private void takeDamage(int damage) {
@@ -603,7 +1069,7 @@ public class Game {
         
         currentHealth -= damage;
         isInvulnerable = true;
-        invulnerabilityTimer = System.nanoTime();
+        timers.schedule(invulnerabilityEnd, ticksAfter(invulnerabilityDuration));
         
         // Create hit effect particles
         particleSystem.createHitEffect(playerX, playerY);
@@ -612,32 +1078,197 @@ public class Game {
         if (currentHealth <= 0) {
             currentHealth = 0;
             gameOver = true;
-            saveScoreToFirebase();
+            finalScore = score;
+            if (!headless) {
+                percentileText = formatPercentile(finalScore);
+                saveRunToHistory();
+                saveScoreToFirebase();
+            }
         }
     }
     
     private void restartGame() {
+        // A fresh run with a new seed, so every submitted score can be replayed from its start
+        resetRun(new Random().nextLong());
+        fetchScoreSketch(); // Cached, and already includes the last saved score
+    }
+    
+    boolean isGameOver() {
+        return gameOver;
+    }
+    
+    int getFinalScore() {
+        return finalScore;
+    }
+    
+    int getScore() {
+        return score;
+    }
+    
+    /**
+     * Simulated (unpaused) ticks since the run started.
+     */
+    long getTickCount() {
+        return simTime / TICK_NANOS;
+    }
+    
+    /**
+     * Whole seconds survived, as submitted with the score and checked by {@link ReplayVerifier}.
+     * Counted in ticks: TICK_NANOS is rounded down, so simTime falls just short of each second.
+     */
+    long getSurvivalSeconds() {
+        return getTickCount() / TICKS_PER_SECOND;
+    }
+    
+    /**
+     * Fill the run up to the given numbers of enemies, projectiles and particles and keep the
+     * player alive, for measuring ticks under heavy load (see TickBenchmark). A quarter of the
+     * projectiles are enemy bullets. Not part of the replay.
+     */
+    void addStressLoad(Random load, int enemyCount, int projectileCount, int particleCount) {
+        EnemyType[] types = EnemyType.values();
+        while (enemies.size() < enemyCount) {
+            EnemyType type = types[load.nextInt(types.length)];
+            double y = type.canFly() ? 350 : (groundLevel + 50) - type.getHeight();
+            addEnemy(new Enemy(200 + load.nextDouble() * (WIDTH - 200), y, type));
+        }
+        while (projectiles.size() + enemyBullets.size() < projectileCount) {
+            double x = load.nextDouble() * WIDTH;
+            double y = 300 + load.nextDouble() * 300;
+            if (load.nextInt(4) != 0) {
+                projectiles.add(new Projectile(x, y, 8, 0, true));
+            } else {
+                enemyBullets.add(x, y, -5, 0);
+            }
+        }
+        // Effects are not deterministic, so they must not draw from the load random
+        particleSystem.setEnabled(true);
+        while (particleSystem.getParticleCount() < particleCount) {
+            particleSystem.createExplosion(effectsRandom.nextDouble() * WIDTH, effectsRandom.nextDouble() * HEIGHT, Color.GRAY);
+        }
         currentHealth = maxHealth;
-        playerX = 100;
-        playerY = 510;
-        velocityY = 0;
-        isOnGround = false;
-        isInvulnerable = false;
-        enemies.clear();
-        projectiles.clear();
-        score = 0;
-        gameOver = false;
-        lastEnemySpawn = 0;
-        gameStartTime = System.nanoTime();
-        playerBounce = 0;
-        playerRotation = 0;
-        wasOnGroundLastFrame = false;
-        particleSystem = new ParticleSystem();
-        comboCount = 0;
-        comboMultiplier = 1.0;
-        lastKillTime = 0;
-        shakeIntensity = 0;
-        paused = false;
+    }
+    
+    /**
+     * Keep the screen filled with about {@code bullets} enemy bullets from ring patterns fired
+     * across the play area, and the player alive, for measuring bullet-hell load (see
+     * BulletBenchmark). Call every tick. Not part of the replay.
+     */
+    void addBulletLoad(Random load, int bullets) {
+        while (enemyBullets.size() < bullets) {
+            BulletPattern.RING.fireVolley(load.nextInt(4), 100 + load.nextDouble() * (WIDTH - 200),
+                100 + load.nextDouble() * (HEIGHT - 200), playerX, playerY, enemyBullets);
+        }
+        currentHealth = maxHealth;
+    }
+    
+    int getEnemyBulletCount() {
+        return enemyBullets.size();
+    }
+    
+    /**
+     * Turn this run into a horde of the given size from the next tick on (0 for a normal run).
+     */
+    void setHordeSize(int size) {
+        hordeSize = size;
+    }
+    
+    int getEnemyCount() {
+        return enemies.size();
+    }
+    
+    int getProjectileCount() {
+        return projectiles.size() + enemyBullets.size();
+    }
+    
+    int getParticleCount() {
+        return particleSystem.getParticleCount();
+    }
+    
+    TickGraph getTickGraph() {
+        return tickGraph;
+    }
+    
+    /**
+     * Top the horde up before the tick: enemies through the normal spawn path, projectiles half
+     * the player's shots across the lanes and half aimed shots from the horde, particles from
+     * explosions (only with effects on), and the player back to full health.
+     */
+    private void fillHorde() {
+        while (enemies.size() < hordeSize) {
+            spawnEnemy();
+        }
+        while (projectiles.size() + enemyBullets.size() < hordeSize) {
+            if (projectiles.size() <= enemyBullets.size()) {
+                projectiles.add(new Projectile(random.nextDouble() * WIDTH / 2, 300 + random.nextDouble() * 300, 8, 0, true));
+            } else {
+                Enemy enemy = enemies.get(random.nextInt(enemies.size()));
+                BulletPattern.AIMED.fireVolley(0, enemy.getX(), enemy.getY() + 20, playerX, playerY, enemyBullets);
+            }
+        }
+        if (gc != null) {
+            while (particleSystem.getParticleCount() < hordeSize) {
+                particleSystem.createExplosion(effectsRandom.nextDouble() * WIDTH, effectsRandom.nextDouble() * HEIGHT, Color.GRAY);
+            }
+        }
+        currentHealth = maxHealth;
+    }
+    
+    /**
+     * Horde mode in a window: measure each step once the horde has spread out, report it when
+     * the step is over and go on to the next size; after the last one, report the scaling.
+     * Called after every tick, so job times line up with the ticks recorded when the loop catches up.
+     */
+    private void recordHordeTick(long tickNanos) {
+        long tick = getTickCount();
+        int step = (int) (tick / HORDE_STEP_TICKS);
+        if (hordeMeasuring) {
+            hordeReport.recordTick(tickNanos, getEnemyCount(), getProjectileCount(), getParticleCount());
+            if (step < HORDE_STEPS.length && HORDE_STEPS[step] == hordeSize) return;
+            
+            HordeReport.Step done = hordeReport.end(tickGraph.takeJobNanos());
+            hordeMeasuring = false;
+            Log.info("Horde step", "size", done.count,
+                "tickP99", String.format("%.2f", done.ticks.getPercentileMillis(0.99)),
+                "renderP99", String.format("%.2f", done.renders.getPercentileMillis(0.99)),
+                "heapMb", done.getPeakHeapBytes() / (1024 * 1024), "gcs", done.getGcCount(), "gcMs", done.getGcMillis());
+        }
+        if (step >= HORDE_STEPS.length) {
+            for (String line : hordeReport.formatScaling()) {
+                Log.info("Horde scaling", "row", line);
+            }
+            Log.info("Horde scaling", "result", hordeReport.findFirstSuperlinear());
+            hordeReport = null; // Keeps playing at the last size
+            tickGraph.setTimed(false);
+            return;
+        }
+        hordeSize = HORDE_STEPS[step];
+        if (tick >= step * HORDE_STEP_TICKS + HORDE_SETTLE_TICKS) {
+            tickGraph.takeJobNanos(); // Drop the settling ticks
+            hordeReport.begin(hordeSize);
+            hordeMeasuring = true;
+        }
+    }
+    
+    /**
+     * Checksum of the gameplay state, to compare runs tick by tick.
+     */
+    long getStateChecksum() {
+        long hash = score;
+        hash = hash * 31 + kills;
+        hash = hash * 31 + currentHealth;
+        hash = hash * 31 + Double.hashCode(playerX) * 17L + Double.hashCode(playerY);
+        for (Enemy enemy : enemies) {
+            hash = hash * 31 + Double.hashCode(enemy.getX()) + enemy.getType().ordinal();
+        }
+        for (Projectile projectile : projectiles) {
+            hash = hash * 31 + Double.hashCode(projectile.getX()) * 7L + Double.hashCode(projectile.getY());
+        }
+        if (boss != null) {
+            hash = hash * 31 + boss.getActiveParts();
+        }
+        hash = hash * 31 + enemyBullets.checksum();
+        return hash;
     }
     
     private void shoot() {
@@ -648,35 +1279,193 @@ public class Game {
         projectiles.add(new Projectile(projectileX, projectileY, velocityX, 0, true));
     }
     
-    private void enemyShoot(Enemy enemy) {
-        // Enemy shoots towards player
-        double projectileX = enemy.getX();
-        double projectileY = enemy.getY() + 20;
-        
-        // Calculate direction to player
-        double dx = playerX - projectileX;
-        double dy = playerY - projectileY;
-        double distance = Math.sqrt(dx * dx + dy * dy);
-        
-        // Normalize and set speed
-        double speed = 5;
-        double velocityX = (dx / distance) * speed;
-        double velocityY = (dy / distance) * speed;
+    /**
+     * The part of a tick after player movement and spawning, as a graph of jobs: enemy movement,
+     * particles and scrolling are independent of each other and of combat, and movement and the
+     * projectile hit search work on each entity separately. Everything that changes the run
+     * (damage, kills, score, new projectiles and effects) happens in the sequential jobs, in the
+     * same order as a single-threaded tick, so the result does not depend on the thread count.
+     */
+    private TickGraph buildTickGraph(ForkJoinPool pool) {
+        TickGraph graph = new TickGraph(pool);
+        
+        TickGraph.Job moveEnemies = graph.addRange("enemies.move", () -> enemies.size(), 256, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                enemies.get(i).update();
+            }
+        });
+        TickGraph.Job updateParticles = graph.addRange("particles.update",
+            () -> particleSystem.getUpdateCount(), 1024, (from, to) -> particleSystem.updateRange(from, to));
+        graph.add("parallax", this::updateParallax);
+        TickGraph.Job moveBoss = graph.add("boss.update", () -> {
+            if (boss != null) boss.update();
+        });
         
-        projectiles.add(new Projectile(projectileX, projectileY, velocityX, velocityY, false));
+        TickGraph.Job enemyCombat = graph.add("enemies.combat", this::updateEnemyCombat, moveEnemies);
+        TickGraph.Job bossCombat = graph.add("boss.combat", this::updateBossCombat, enemyCombat, moveBoss);
+        TickGraph.Job moveProjectiles = graph.addRange("projectiles.move", () -> projectiles.size(), 1024, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                projectiles.get(i).update();
+            }
+        }, bossCombat);
+        TickGraph.Job enemyBoxes = graph.add("enemies.boxes", this::snapshotEnemyBoxes, enemyCombat);
+        TickGraph.Job findHits = graph.addRange("projectiles.hits", () -> prepareHitSearch(), 64, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                Projectile projectile = projectiles.get(i);
+                firstHit[i] = findHit(i, projectile, -1, -1);
+                bossHit[i] = boss != null ? boss.findHit(projectile, -1, -1, bossHitTime, i) : -1;
+            }
+        }, moveProjectiles, enemyBoxes);
+        TickGraph.Job projectileCombat = graph.add("projectiles.combat", this::updateProjectileCombat, findHits);
+        TickGraph.Job moveBullets = graph.addRange("bullets.move", () -> enemyBullets.size(), 1024,
+            (from, to) -> enemyBullets.moveRange(from, to), bossCombat);
+        // After the player's projectiles, so damage lands in the same order as before
+        TickGraph.Job bulletCombat = graph.add("bullets.combat", this::updateBulletCombat, moveBullets, projectileCombat);
+        
+        // New effects from this tick join the particles once both are done
+        graph.add("particles.merge", () -> particleSystem.finishUpdate(), updateParticles, bulletCombat);
+        return graph;
     }
     
-    private void updateProjectiles() {
-        Iterator<Projectile> iterator = projectiles.iterator();
+    /**
+     * Enemies shoot, hit the player and leave the screen. Runs after they have moved.
+     */
+    private void updateEnemyCombat() {
+        Iterator<Enemy> iterator = enemies.iterator();
         while (iterator.hasNext()) {
-            Projectile projectile = iterator.next();
-            projectile.update();
+            Enemy enemy = iterator.next();
             
-            if (projectile.isFromPlayer()) {
-                // Check collision with enemies
-                for (Enemy enemy : enemies) {
-                    if (enemy.isActive() && projectile.collidesWith(enemy.getX(), enemy.getY(), 
-                            enemy.getType().getWidth(), enemy.getType().getHeight())) {
+            // Enemy shooting (check if enemy is on screen and can see player)
+            if (enemy.canShoot() && enemy.getX() < WIDTH - 100 && enemy.getX() > 50) {
+                enemy.startPattern();
+                enemy.resetShootCooldown(timers);
+            }
+            enemy.firePattern(playerX, playerY, enemyBullets);
+            
+            // Check collision with player
+            if (!isInvulnerable && enemy.collidesWith(playerX, playerY, 50, 50)) {
+                takeDamage(20);
+                particleSystem.createExplosion(enemy.getX(), enemy.getY(), Color.rgb(150, 0, 0));
+                addScreenShake(8);
+                iterator.remove();
+                enemy.cancelShootCooldown(timers);
+            }
+            
+            // Remove inactive enemies
+            if (!enemy.isActive()) {
+                iterator.remove();
+                enemy.cancelShootCooldown(timers);
+                score += 10; // Points for dodging
+            }
+        }
+    }
+    
+    /**
+     * The boss rams the player and its turrets fire. Runs after it has moved.
+     */
+    private void updateBossCombat() {
+        if (boss == null) return;
+        
+        if (!isInvulnerable && boss.touches(playerX, playerY, 50, 50)) {
+            takeDamage(20);
+            addScreenShake(8);
+        }
+        
+        // A random live turret fires a ring or a spiral once the train has stopped
+        if (bossShotReady && bossEmitter == null && boss.hasArrived()) {
+            bossShotReady = false;
+            timers.schedule(bossShotTimer, ticksAtLeast(BOSS_SHOT_INTERVAL));
+            bossTurret = boss.pickTurret(random);
+            if (bossTurret >= 0) {
+                bossEmitter = new BulletPattern.Emitter(random.nextBoolean() ? BulletPattern.RING : BulletPattern.SPIRAL);
+            }
+        }
+        // The pattern stops when its turret is destroyed
+        if (bossEmitter != null && (!boss.isPartActive(bossTurret) || !bossEmitter.tick(boss.getPartCenterX(bossTurret),
+                boss.getPartCenterY(bossTurret), playerX, playerY, enemyBullets))) {
+            bossEmitter = null;
+        }
+    }
+    
+    private void snapshotEnemyBoxes() {
+        int count = enemies.size();
+        if (boxLeft.length < count) {
+            int capacity = Math.max(count, boxLeft.length * 2);
+            boxLeft = new double[capacity];
+            boxTop = new double[capacity];
+            boxRight = new double[capacity];
+            boxBottom = new double[capacity];
+        }
+        for (int i = 0; i < count; i++) {
+            Enemy enemy = enemies.get(i);
+            CollisionMask mask = enemy.getMask();
+            double startX = enemy.getX() - enemy.getMoveX();
+            double startY = enemy.getHitY() - enemy.getMoveY();
+            boxLeft[i] = Math.min(enemy.getX(), startX) + mask.getLeft();
+            boxTop[i] = Math.min(enemy.getHitY(), startY) + mask.getTop();
+            boxRight[i] = Math.max(enemy.getX(), startX) + mask.getLeft() + mask.getWidth();
+            boxBottom[i] = Math.max(enemy.getHitY(), startY) + mask.getTop() + mask.getHeight();
+        }
+        boxCount = count;
+    }
+    
+    private int prepareHitSearch() {
+        if (firstHit.length < projectiles.size()) {
+            firstHit = new int[Math.max(projectiles.size(), firstHit.length * 2)];
+            hitTime = new double[firstHit.length];
+            bossHit = new int[firstHit.length];
+            bossHitTime = new double[firstHit.length];
+        }
+        return projectiles.size();
+    }
+    
+    /**
+     * The enemy projectile {@code i} reaches first during this tick, ordered by time of impact and
+     * then by index, after the impact ({@code afterTime}, {@code afterIndex}); -1 if none. The time
+     * goes to {@code hitTime[i]}. Enemies whose swept box the projectile's swept box does not
+     * touch are skipped by the kernel, the rest get the swept pixel test. Only reads enemy
+     * positions and the box snapshot, which do not change while hits are resolved.
+     */
+    private int findHit(int i, Projectile projectile, double afterTime, int afterIndex) {
+        if (!projectile.isActive()) return -1;
+        double left = Math.min(projectile.getX(), projectile.getPreviousX());
+        double top = Math.min(projectile.getY(), projectile.getPreviousY());
+        double width = Math.abs(projectile.getX() - projectile.getPreviousX()) + projectile.getWidth();
+        double height = Math.abs(projectile.getY() - projectile.getPreviousY()) + projectile.getHeight();
+        
+        int best = -1;
+        double bestTime = 0;
+        for (int j = kernels.firstOverlap(left, top, width, height, boxLeft, boxTop, boxRight, boxBottom, 0, boxCount);
+             j >= 0; j = kernels.firstOverlap(left, top, width, height, boxLeft, boxTop, boxRight, boxBottom, j + 1, boxCount)) {
+            Enemy enemy = enemies.get(j);
+            double time = projectile.impactTime(enemy.getMask(), enemy.getX(), enemy.getHitY(),
+                enemy.getMoveX(), enemy.getMoveY());
+            if (time < 0 || time < afterTime || (time == afterTime && j <= afterIndex)) continue;
+            if (best < 0 || time < bestTime) {
+                best = j;
+                bestTime = time;
+            }
+        }
+        hitTime[i] = bestTime;
+        return best;
+    }
+    
+    /**
+     * Apply projectile hits in list order. A projectile hits the first enemy or boss part on its
+     * path this tick that is still alive; the search already skipped the ones it does not reach.
+     */
+    private void updateProjectileCombat() {
+        int kept = 0;
+        for (int i = 0; i < projectiles.size(); i++) {
+            Projectile projectile = projectiles.get(i);
+            
+            // Check collision with enemies and boss parts, earliest impact first
+            int j = firstHit[i];
+            int part = boss != null ? bossHit[i] : -1;
+            while (j >= 0 || part >= 0) {
+                if (part < 0 || (j >= 0 && hitTime[i] <= bossHitTime[i])) {
+                    Enemy enemy = enemies.get(j);
+                    if (enemy.isActive()) {
                         enemy.takeDamage(bulletDamage);
                         projectile.deactivate();
                         particleSystem.createHitEffect(enemy.getX(), enemy.getY());
@@ -688,30 +1477,97 @@ public class Game {
                         }
                         break;
                     }
-                }
-            } else {
-                // Enemy projectile - check collision with player
-                if (!isInvulnerable && projectile.collidesWith(playerX, playerY, 50, 50)) {
-                    takeDamage(15);
-                    projectile.deactivate();
+                    j = findHit(i, projectile, hitTime[i], j);
+                } else {
+                    if (boss.isPartActive(part)) {
+                        projectile.deactivate();
+                        hitBossPart(part);
+                        break;
+                    }
+                    part = boss.findHit(projectile, bossHitTime[i], part, bossHitTime, i);
                 }
             }
             
-            if (!projectile.isActive()) {
-                iterator.remove();
+            if (projectile.isActive()) {
+                projectiles.set(kept++, projectile);
             }
         }
+        projectiles.subList(kept, projectiles.size()).clear();
     }
     
-    private void saveScoreToFirebase() {
-        long survivalTime = (System.nanoTime() - gameStartTime) / 1_000_000_000; // Convert to seconds
-        System.out.println("Calling saveScore with: playerName=" + playerName + ", score=" + score + ", survivalTime=" + survivalTime);
+    /**
+     * Enemy bullets leave the screen or hit the player; one hit per tick, as the player is
+     * invulnerable right after it.
+     */
+    private void updateBulletCombat() {
+        enemyBullets.removeOffscreen(-50, -50, 1400, 800); // Where a Projectile deactivates
+        if (isInvulnerable) return;
+        int hit = enemyBullets.findHit(PLAYER_MASK, playerX, playerY, playerX - playerStartX, playerY - playerStartY);
+        if (hit >= 0) {
+            takeDamage(15);
+            enemyBullets.remove(hit);
+        }
+    }
+    
+    private void updateParallax() {
+        // Update parallax scrolling (right to left)
+        if (canAutoScroll) {
+            clouds1X -= scrollSpeed * 0.2;
+            clouds2X -= scrollSpeed * 0.3;
+            housesBgX -= scrollSpeed * 0.5;
+            groundHousesX -= scrollSpeed * 0.8;
+            roadX -= scrollSpeed * 1.2;
+            fenceX -= scrollSpeed * 1.5;
+        }
         
-        FirebaseService.getInstance().saveScore(playerName, score, survivalTime)
-            .thenAccept(v -> System.out.println("Firebase save completed successfully!"))
+        // Wrap backgrounds
+        if (bgClouds1 != null) {
+            double cloudWidth = bgClouds1.getWidth();
+            if (clouds1X <= -cloudWidth) clouds1X += cloudWidth;
+            if (clouds2X <= -cloudWidth) clouds2X += cloudWidth;
+        }
+        if (bgRoad != null) {
+            double roadWidth = bgRoad.getWidth();
+            if (roadX <= -roadWidth) roadX += roadWidth;
+            if (fenceX <= -roadWidth) fenceX += roadWidth;
+            if (groundHousesX <= -roadWidth) groundHousesX += roadWidth;
+            if (housesBgX <= -roadWidth) housesBgX += roadWidth;
+        }
+    }
+    
+    private void fetchScoreSketch() {
+        FirebaseService.getInstance().getScoreSketch().thenAccept(sketch -> scoreSketch = sketch);
+    }
+    
+    /**
+     * "You beat X% of runs", or null if no scores are known yet.
+     */
+    private String formatPercentile(int finalScore) {
+        QuantileSketch sketch = scoreSketch;
+        if (sketch == null || sketch.getCount() == 0) return null;
+        int percent = (int) Math.floor(sketch.percentileRank(finalScore) * 100);
+        return "You beat " + percent + "% of runs";
+    }
+    
+    private void saveRunToHistory() {
+        RunHistoryStore.Run run = new RunHistoryStore.Run(System.currentTimeMillis(), finalScore,
+            (int) getSurvivalSeconds(), playerLevel, kills, upgradesBought);
+        // File write and remap, not needed before the game over screen is drawn
+        scheduler.submit(FrameScheduler.Priority.NORMAL, () -> RunHistoryStore.getInstance().append(run));
+    }
+    
+    private void saveScoreToFirebase() {
+        long survivalTime = getSurvivalSeconds();
+        Log.info("Run finished", "playerName", playerName, "score", finalScore, "survivalTime", survivalTime);
+        
+        FirebaseService.getInstance().saveScore(playerName, finalScore, survivalTime, UPLOAD_REPLAYS ? inputLog : null)
+            .thenAccept(v -> {
+                Log.debug("Firebase save completed");
+                // The new score may have changed the top scores, refresh before the menu is shown
+                LeaderboardCache.getInstance().refresh();
+            })
             .exceptionally(ex -> {
-                System.err.println("Firebase save failed: " + ex.getMessage());
-                ex.printStackTrace();
+                Log.warn("Firebase save failed", "error", ex.getMessage());
                 return null;
             });
     }
@@ -822,6 +1678,7 @@ public class Game {
         
         if (currency >= cost) {
             currency -= cost;
+            upgradesBought++;
             upgradeLevels.put(type, currentLevel + 1);
             applyUpgrade(type);
         }
@@ -833,6 +1690,11 @@ public class Game {
         switch (type) {
             case FIRE_RATE:
                 playerShootCooldown = (long)(type.getEffectValue(level) * 1_000_000_000L);
+                if (lastPlayerShot != NEVER) {
+                    // The running cooldown counts against the new rate
+                    shotReady = false;
+                    scheduleFrom(shotTimer, lastPlayerShot, ticksAfter(playerShootCooldown));
+                }
                 break;
             case BULLET_DAMAGE:
                 bulletDamage = (int)type.getEffectValue(level);
@@ -866,18 +1728,52 @@ public class Game {
             
             // Show notification
             showLevelUpNotification = true;
-            levelUpNotificationTime = System.nanoTime();
+            levelUpNotificationTime = simTime;
+            timers.schedule(levelUpNotificationEnd, ticksAtLeast(3_000_000_000L));
         }
     }
     
     private void updateDifficulty() {
         // Spawn enemies faster as level increases (max 0.8 seconds)
         double spawnReduction = Math.min(2.2, (playerLevel - 1) * 0.15);
-        currentSpawnInterval = (long)((3.0 - spawnReduction) * 1_000_000_000L);
-        currentSpawnInterval = Math.max(800_000_000L, currentSpawnInterval);
+        long interval = Math.max(800_000_000L, (long)((3.0 - spawnReduction) * 1_000_000_000L));
+        if (interval != currentSpawnInterval) {
+            currentSpawnInterval = interval;
+            if (lastEnemySpawn != NEVER) {
+                spawnDue = false;
+                scheduleFrom(spawnTimer, lastEnemySpawn, ticksAfter(currentSpawnInterval));
+            }
+        }
+    }
+    
+    /**
+     * Ticks until "elapsed > nanos" holds, as the timestamp checks the timers replaced had it.
+     */
+    private static long ticksAfter(long nanos) {
+        return nanos / TICK_NANOS + 1;
     }
     
-    private void returnToMenu() {
+    /**
+     * Ticks until "elapsed >= nanos" holds.
+     */
+    private static long ticksAtLeast(long nanos) {
+        return (nanos + TICK_NANOS - 1) / TICK_NANOS;
+    }
+    
+    /**
+     * Schedule a timer for {@code ticks} after tick {@code start}, or run it now if that has passed.
+     */
+    private void scheduleFrom(TimerWheel.Timer timer, long start, long ticks) {
+        long remaining = start + ticks - timers.now();
+        if (remaining > 0) {
+            timers.schedule(timer, remaining);
+        } else {
+            timers.fireNow(timer);
+        }
+    }
+    
+    void returnToMenu() {
+        stop();
         if (menu != null) {
             menu.show();
         }
@@ -900,36 +1796,25 @@ public class Game {
     
     private void addScreenShake(double intensity) {
         shakeIntensity = intensity;
-        shakeStartTime = System.nanoTime();
+        shakeStartTime = timers.now();
+        timers.schedule(shakeEnd, ticksAtLeast(shakeDuration));
     }
     
     private void updateScreenShake(long now) {
         if (shakeIntensity > 0) {
-            long elapsed = now - shakeStartTime;
-            if (elapsed < shakeDuration) {
-                double progress = (double) elapsed / shakeDuration;
-                double currentIntensity = shakeIntensity * (1 - progress);
-                
-                shakeX = (random.nextDouble() - 0.5) * currentIntensity * 2;
-                shakeY = (random.nextDouble() - 0.5) * currentIntensity * 2;
-            } else {
-                shakeX = 0;
-                shakeY = 0;
-                shakeIntensity = 0;
-            }
+            double progress = (double) ((now - shakeStartTime) * TICK_NANOS) / shakeDuration;
+            double currentIntensity = shakeIntensity * (1 - progress);
+            
+            shakeX = (effectsRandom.nextDouble() - 0.5) * currentIntensity * 2;
+            shakeY = (effectsRandom.nextDouble() - 0.5) * currentIntensity * 2;
         }
     }
     
     private void addKill() {
-        long now = System.nanoTime();
-        
-        // Check if combo timed out
-        if (now - lastKillTime > comboTimeout) {
-            comboCount = 0;
-        }
-        
+        // A combo that timed out was already reset by its timer
+        kills++;
         comboCount++;
-        lastKillTime = now;
+        timers.schedule(comboEnd, ticksAfter(comboTimeout));
         
         // Calculate multiplier
         if (comboCount >= 10) {
@@ -949,7 +1834,8 @@ public class Game {
             comboText = "";
         }
         
-        comboTextTime = now;
+        showComboText = true;
+        timers.schedule(comboTextEnd, ticksAtLeast(comboTextDuration));
         
         // Add score with multiplier
         int killScore = (int) (50 * comboMultiplier);
@@ -992,7 +1878,7 @@ public class Game {
     }
     
     private void drawLevelUpNotification() {
-        long elapsed = System.nanoTime() - levelUpNotificationTime;
+        long elapsed = simTime - levelUpNotificationTime;
         double progress = elapsed / 3_000_000_000.0; // 3 seconds duration
         
         // Pulse and fade effect
@@ -1084,6 +1970,10 @@ public class Game {
         gc.setFill(Color.WHITE);
         gc.setFont(javafx.scene.text.Font.font("Arial", 16));
         gc.fillText("Enemies: " + enemies.size(), WIDTH - 190, 190);
+        if (hordeSize > 0) {
+            gc.setFill(Color.ORANGE);
+            gc.fillText("HORDE " + hordeSize + (hordeReport == null ? " (report logged)" : ""), WIDTH - 190, 210);
+        }
         
         // Control hints (bottom left)
         gc.setFill(Color.rgb(0, 0, 0, 0.5));
@@ -1101,6 +1991,7 @@ public class Game {
         if (debugMode) {
             gc.setFont(javafx.scene.text.Font.font("Arial", 12));
             gc.fillText("Particles: " + particleSystem.getParticleCount(), WIDTH - 190, 150);
+            gc.fillText("Deferred: " + scheduler.getQueuedCount() + " queued, " + scheduler.getCompletedCount() + " done", WIDTH - 190, 165);
         }
         
         // Controls (bottom left)
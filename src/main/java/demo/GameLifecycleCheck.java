@@ -0,0 +1,110 @@
+package demo;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.stage.Stage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Checks that menu round trips do not leak game loops: plays and leaves a session
+ * 100 times, then compares the FX thread's CPU use in game against the first session.
+ * Needs a display. Exits with 1 if a loop leaked or CPU use grew by more than half.
+ *
+ * Usage: java -cp target/classes:... demo.GameLifecycleCheck [--rounds 100]
+ */
+public class GameLifecycleCheck extends Application {
+    private static final long SAMPLE_MILLIS = 2_000;
+    private static final long IN_GAME_MILLIS = 100;
+    private static final long IN_MENU_MILLIS = 50;
+    private static final double MAX_CPU_GROWTH = 1.5;
+    private static int rounds = 100;
+
+    private MainMenu menu;
+    private long fxThreadId;
+
+    public static void main(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rounds") && i + 1 < args.length) {
+                rounds = Integer.parseInt(args[++i]);
+            }
+        }
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) {
+        fxThreadId = Thread.currentThread().threadId();
+        menu = new MainMenu(stage);
+        menu.show();
+        stage.show();
+
+        Thread driver = new Thread(this::run, "lifecycle-check");
+        driver.setDaemon(true);
+        driver.start();
+    }
+
+    private void run() {
+        boolean passed = true;
+        try {
+            onFx(menu::startGame);
+            double firstCpu = sampleCpu();
+            onFx(() -> menu.getGame().returnToMenu());
+
+            int maxLoops = 0;
+            for (int i = 1; i < rounds; i++) {
+                onFx(menu::startGame);
+                Thread.sleep(IN_GAME_MILLIS);
+                maxLoops = Math.max(maxLoops, Game.getRunningLoopCount());
+                onFx(() -> menu.getGame().returnToMenu());
+                Thread.sleep(IN_MENU_MILLIS);
+                if (Game.getRunningLoopCount() != 0) {
+                    System.out.println("Round " + i + ": game loop still running in the menu");
+                    passed = false;
+                }
+            }
+
+            onFx(menu::startGame);
+            double lastCpu = sampleCpu();
+            onFx(() -> menu.getGame().returnToMenu());
+
+            System.out.printf("Rounds: %d, most loops running at once: %d%n", rounds, maxLoops);
+            System.out.printf("FX thread CPU in game: first session %.1f%%, after %d round trips %.1f%%%n",
+                firstCpu * 100, rounds, lastCpu * 100);
+            passed &= maxLoops == 1;
+            passed &= lastCpu <= Math.max(firstCpu * MAX_CPU_GROWTH, firstCpu + 0.05);
+        } catch (Exception e) {
+            e.printStackTrace();
+            passed = false;
+        }
+        System.out.println(passed ? "Lifecycle check passed" : "Lifecycle check FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Fraction of one core the FX thread used over the sample window.
+     */
+    private double sampleCpu() throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Thread.sleep(500); // Let the session settle
+        long cpuStart = threads.getThreadCpuTime(fxThreadId);
+        long start = System.nanoTime();
+        Thread.sleep(SAMPLE_MILLIS);
+        return (double) (threads.getThreadCpuTime(fxThreadId) - cpuStart) / (System.nanoTime() - start);
+    }
+
+    private static void onFx(Runnable action) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                action.run();
+                done.complete(null);
+            } catch (Throwable t) {
+                done.completeExceptionally(t);
+            }
+        });
+        done.get();
+    }
+}
@@ -0,0 +1,131 @@
+package demo;
+
+import javafx.scene.canvas.Canvas;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Warms up the JIT while the main menu is shown, so the first seconds of a session
+ * do not stutter while the simulation and render paths are still being compiled.
+ * Plays scripted headless runs through {@link Game#step(int)} and draws each frame into an
+ * offscreen canvas, in batches, until a batch adds almost no compilation time.
+ * Disable with -Dgame.warmup=false (e.g. to compare frame times).
+ */
+public class GameWarmup {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("game.warmup", "true"));
+    private static final int BATCH_TICKS = 600;
+    private static final int MIN_TICKS = 20_000;           // Past the C2 thresholds for the per-tick methods
+    private static final long SETTLED_COMPILE_MILLIS = 5;  // A batch that compiles less than this is "settled"
+    private static final int SETTLED_BATCHES = 3;          // ... this many times in a row
+    private static final long MAX_MILLIS = 20_000;
+
+    private static Thread thread;
+    private static volatile boolean cancelled = false;
+    private static volatile String status = "not run";
+
+    /**
+     * Start the warm-up in the background (once per process).
+     *
+     * @param tickPool the pool the game's tick jobs will run on, so the parallel path is warmed up too
+     */
+    public static synchronized void start(ForkJoinPool tickPool) {
+        if (!ENABLED) {
+            status = "disabled";
+            return;
+        }
+        if (thread != null) return;
+
+        thread = new Thread(() -> {
+            Canvas canvas = new Canvas(1280, 720);
+            Result result = run(canvas, tickPool, MAX_MILLIS);
+            status = result.toString();
+            Log.info("JIT warm-up finished", "result", status);
+        }, "game-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY); // The menu stays responsive
+        thread.start();
+    }
+
+    /**
+     * Stop early, e.g. when a session starts; the game should not share the CPU with its warm-up.
+     */
+    public static void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * "disabled", "not run", "running" or a summary of the finished warm-up.
+     */
+    public static String getStatus() {
+        Thread running = thread;
+        if (running != null && running.isAlive()) return "running";
+        return status;
+    }
+
+    static class Result {
+        int ticks;
+        int runs;
+        long millis;
+        long compileMillis;
+        boolean settled;
+        boolean cancelled;
+
+        @Override
+        public String toString() {
+            return String.format("%s after %d ticks (%d runs) in %d ms, %d ms compiling",
+                settled ? "settled" : cancelled ? "cancelled" : "time limit", ticks, runs, millis, compileMillis);
+        }
+    }
+
+    /**
+     * Run the scripted workload on the calling thread. {@code canvas} may be null for simulation only,
+     * {@code tickPool} null to run the tick jobs on the calling thread.
+     */
+    static Result run(Canvas canvas, ForkJoinPool tickPool, long maxMillis) {
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean timed = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        Random seeds = new Random(2024);
+        Result result = new Result();
+        long start = System.currentTimeMillis();
+        long startCompile = timed ? compiler.getTotalCompilationTime() : 0;
+        long lastCompile = startCompile;
+        int quietBatches = 0;
+
+        Game game = null;
+        BotInput bot = null;
+        while (result.ticks < MIN_TICKS || quietBatches < SETTLED_BATCHES) {
+            if (cancelled) {
+                result.cancelled = true;
+                break;
+            }
+            if (System.currentTimeMillis() - start >= maxMillis) break;
+
+            for (int i = 0; i < BATCH_TICKS; i++) {
+                if (game == null || game.isGameOver()) {
+                    game = new Game(seeds.nextLong(), canvas, tickPool);
+                    bot = new BotInput(new Random(seeds.nextLong()), false);
+                    result.runs++;
+                }
+                game.step(bot.next());
+                game.renderFrame();
+            }
+            result.ticks += BATCH_TICKS;
+
+            if (timed) {
+                long compile = compiler.getTotalCompilationTime();
+                quietBatches = compile - lastCompile < SETTLED_COMPILE_MILLIS ? quietBatches + 1 : 0;
+                lastCompile = compile;
+            } else {
+                quietBatches++; // No counters to watch, fall back to a fixed number of batches
+            }
+        }
+
+        result.settled = quietBatches >= SETTLED_BATCHES;
+        result.millis = System.currentTimeMillis() - start;
+        result.compileMillis = lastCompile - startCompile;
+        return result;
+    }
+}
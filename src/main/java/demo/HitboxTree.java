@@ -0,0 +1,149 @@
+package demo;
+
+/**
+ * Bounding-volume hierarchy over a fixed set of boxes, e.g. the parts of a boss. The tree's
+ * shape is built once from the boxes' starting centers (median splits along the wider axis);
+ * after that only the node boxes are refit from the leaves, which is cheap enough to do every
+ * tick while the boxes move. Queries descend only into nodes whose box they touch.
+ *
+ * Nodes are stored in preorder, so a node's first child is the next node and children always
+ * come after their parent. Not thread-safe against refit; queries may run concurrently.
+ */
+final class HitboxTree {
+    private final int leafCount;
+    private final int[] secondChild;  // -1 for leaves
+    private final int[] leafBox;      // Box index of a leaf, -1 for inner nodes
+    private final double[] nodeLeft;
+    private final double[] nodeTop;
+    private final double[] nodeRight;
+    private final double[] nodeBottom;
+    private int nextNode = 0;
+
+    HitboxTree(double[] centerX, double[] centerY, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("A hitbox tree needs at least one box");
+        }
+        leafCount = count;
+        int nodes = 2 * count - 1;
+        secondChild = new int[nodes];
+        leafBox = new int[nodes];
+        nodeLeft = new double[nodes];
+        nodeTop = new double[nodes];
+        nodeRight = new double[nodes];
+        nodeBottom = new double[nodes];
+
+        int[] boxes = new int[count];
+        for (int i = 0; i < count; i++) {
+            boxes[i] = i;
+        }
+        build(boxes, 0, count, centerX, centerY);
+    }
+
+    int getNodeCount() {
+        return secondChild.length;
+    }
+
+    int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Recompute every node box from the given boxes, bottom up. A box with left > right is
+     * empty (e.g. a destroyed part) and never matches a query.
+     */
+    void refit(double[] left, double[] top, double[] right, double[] bottom) {
+        for (int node = secondChild.length - 1; node >= 0; node--) {
+            int box = leafBox[node];
+            if (box >= 0) {
+                nodeLeft[node] = left[box];
+                nodeTop[node] = top[box];
+                nodeRight[node] = right[box];
+                nodeBottom[node] = bottom[box];
+            } else {
+                int first = node + 1;
+                int second = secondChild[node];
+                nodeLeft[node] = Math.min(nodeLeft[first], nodeLeft[second]);
+                nodeTop[node] = Math.min(nodeTop[first], nodeTop[second]);
+                nodeRight[node] = Math.max(nodeRight[first], nodeRight[second]);
+                nodeBottom[node] = Math.max(nodeBottom[first], nodeBottom[second]);
+            }
+        }
+    }
+
+    /**
+     * Whether the query box overlaps the root, i.e. could touch any box at all.
+     */
+    boolean mayOverlap(double left, double top, double right, double bottom) {
+        return overlaps(0, left, top, right, bottom);
+    }
+
+    /**
+     * Write the indices of the boxes that overlap the query box (strictly) to {@code out},
+     * which must hold {@link #getLeafCount()} entries; returns how many there are.
+     */
+    int collect(double left, double top, double right, double bottom, int[] out) {
+        return collect(0, left, top, right, bottom, out, 0);
+    }
+
+    private int collect(int node, double left, double top, double right, double bottom, int[] out, int found) {
+        if (!overlaps(node, left, top, right, bottom)) return found;
+        if (leafBox[node] >= 0) {
+            out[found] = leafBox[node];
+            return found + 1;
+        }
+        found = collect(node + 1, left, top, right, bottom, out, found);
+        return collect(secondChild[node], left, top, right, bottom, out, found);
+    }
+
+    /**
+     * Node boxes for the debug overlay: {left, top, right, bottom} of {@code node}.
+     */
+    double[] getNodeBox(int node) {
+        return new double[] {nodeLeft[node], nodeTop[node], nodeRight[node], nodeBottom[node]};
+    }
+
+    private boolean overlaps(int node, double left, double top, double right, double bottom) {
+        return left < nodeRight[node] && right > nodeLeft[node] && top < nodeBottom[node] && bottom > nodeTop[node];
+    }
+
+    private int build(int[] boxes, int from, int to, double[] centerX, double[] centerY) {
+        int node = nextNode++;
+        if (to - from == 1) {
+            leafBox[node] = boxes[from];
+            secondChild[node] = -1;
+            return node;
+        }
+        leafBox[node] = -1;
+
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            minX = Math.min(minX, centerX[boxes[i]]);
+            maxX = Math.max(maxX, centerX[boxes[i]]);
+            minY = Math.min(minY, centerY[boxes[i]]);
+            maxY = Math.max(maxY, centerY[boxes[i]]);
+        }
+        double[] key = maxX - minX >= maxY - minY ? centerX : centerY;
+        sort(boxes, from, to, key);
+
+        int middle = (from + to) >>> 1;
+        build(boxes, from, middle, centerX, centerY);
+        secondChild[node] = build(boxes, middle, to, centerX, centerY);
+        return node;
+    }
+
+    /**
+     * Insertion sort by key; the trees are small and only built once.
+     */
+    private static void sort(int[] boxes, int from, int to, double[] key) {
+        for (int i = from + 1; i < to; i++) {
+            int box = boxes[i];
+            int j = i - 1;
+            while (j >= from && key[boxes[j]] > key[box]) {
+                boxes[j + 1] = boxes[j];
+                j--;
+            }
+            boxes[j + 1] = box;
+        }
+    }
+}
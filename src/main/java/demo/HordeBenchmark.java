@@ -0,0 +1,106 @@
+package demo;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import javafx.scene.canvas.Canvas;
+
+/**
+ * Headless horde stress test, the same load as the game's horde mode: at each step a run is
+ * kept at that many enemies (spawned through the normal spawn path), projectiles and
+ * particles while it ticks and draws into an offscreen canvas. Prints tick and render times,
+ * heap and GC per step, then the scaling of every tick job and of rendering, and which one
+ * grows faster than linear first. Render time is the cost of issuing the draw calls; the
+ * canvas is rasterized by JavaFX on its own thread, which is not measured.
+ *
+ * Usage: java -cp target/classes:... demo.HordeBenchmark [--steps 100,1000,10000] [--ticks 300] [--threads 1]
+ */
+public class HordeBenchmark {
+    private static final int WARMUP_TICKS = 3000; // At the first step, so its numbers are not from cold code
+    private static final int SETTLE_TICKS = 300;  // The new horde spreads out
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        int[] steps = Game.HORDE_STEPS;
+        int ticks = 300;
+        int threads = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--steps":
+                    steps = Arrays.stream(args[i + 1].split(",")).mapToInt(n -> Integer.parseInt(n.trim())).toArray();
+                    break;
+                case "--ticks":
+                    ticks = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+        ForkJoinPool pool = Game.createTickPool(threads);
+        try {
+            run(pool, steps, ticks);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+    }
+
+    private static void run(ForkJoinPool pool, int[] steps, int ticks) {
+        int threads = pool != null ? pool.getParallelism() : 1;
+        System.out.printf("%d tick threads, %d measured ticks per step after %d to settle%n", threads, ticks, SETTLE_TICKS);
+
+        Canvas canvas = new Canvas(1280, 720);
+        if (steps.length > 0) {
+            settle(startHorde(pool, canvas, steps[0]), new BotInput(new Random(SEED), false), WARMUP_TICKS);
+        }
+        HordeReport report = null;
+        for (int size : steps) {
+            Game game = startHorde(pool, canvas, size);
+            TickGraph graph = game.getTickGraph();
+            if (report == null) {
+                report = new HordeReport(graph.getJobNames());
+            }
+            BotInput bot = new BotInput(new Random(SEED + 1), false);
+            settle(game, bot, SETTLE_TICKS);
+
+            graph.setTimed(true);
+            report.begin(size);
+            for (int i = 0; i < ticks; i++) {
+                int input = bot.next();
+                long start = System.nanoTime();
+                game.step(input);
+                long stepped = System.nanoTime();
+                game.renderFrame();
+                report.recordTick(stepped - start, game.getEnemyCount(), game.getProjectileCount(), game.getParticleCount());
+                report.recordRender(System.nanoTime() - stepped);
+            }
+            report.end(graph.takeJobNanos());
+            System.out.printf("step %d done%n", size);
+        }
+        if (report == null) return;
+
+        System.out.println();
+        report.formatSteps().forEach(System.out::println);
+        System.out.println();
+        report.formatScaling().forEach(System.out::println);
+        System.out.println();
+        System.out.println(report.findFirstSuperlinear());
+    }
+
+    private static Game startHorde(ForkJoinPool pool, Canvas canvas, int size) {
+        Game game = new Game(SEED, canvas, pool);
+        game.setHordeSize(size);
+        return game;
+    }
+
+    private static void settle(Game game, BotInput bot, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            game.step(bot.next());
+            game.renderFrame();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package demo;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measurements of a horde stress test (Game's horde mode and {@link HordeBenchmark}): per step
+ * of the entity count, tick and render time, time per tick job, peak heap and GC activity.
+ * The scaling table shows how each subsystem's time per tick grows from step to step as an
+ * exponent of the count (1 is linear), and which subsystem grows faster than linear first.
+ */
+final class HordeReport {
+    private static final double SUPERLINEAR = 1.3;        // Growth exponent above this counts as superlinear
+    private static final double MIN_MICROS = 10;          // Parts cheaper than this per tick are noise, not scaling
+    private static final String OTHER = "other (player, spawning)";
+    private static final String RENDER = "render";
+
+    static final class Step {
+        final int count;
+        final LatencyHistogram ticks = new LatencyHistogram();
+        final LatencyHistogram renders = new LatencyHistogram();
+        private final long[] entitySums = new long[3]; // Enemies, projectiles, particles, summed over ticks
+        private long[] jobNanos;
+        private long peakHeapBytes;
+        private long gcCount;
+        private long gcMillis;
+
+        private Step(int count) {
+            this.count = count;
+        }
+
+        double getMeanEnemies() {
+            return (double) entitySums[0] / Math.max(1, ticks.getCount());
+        }
+
+        double getMeanProjectiles() {
+            return (double) entitySums[1] / Math.max(1, ticks.getCount());
+        }
+
+        double getMeanParticles() {
+            return (double) entitySums[2] / Math.max(1, ticks.getCount());
+        }
+
+        long getPeakHeapBytes() {
+            return peakHeapBytes;
+        }
+
+        long getGcCount() {
+            return gcCount;
+        }
+
+        long getGcMillis() {
+            return gcMillis;
+        }
+    }
+
+    private final List<String> jobNames;
+    private final List<Step> steps = new ArrayList<>();
+    private Step current;
+
+    /**
+     * @param jobNames the tick graph's jobs, see {@link TickGraph#getJobNames()}
+     */
+    HordeReport(List<String> jobNames) {
+        this.jobNames = jobNames;
+    }
+
+    /**
+     * Start measuring a step with {@code count} enemies, projectiles and particles.
+     */
+    void begin(int count) {
+        current = new Step(count);
+        current.gcCount = -totalGcCount();
+        current.gcMillis = -totalGcMillis();
+        steps.add(current);
+    }
+
+    /**
+     * Record one tick. Call once per tick, not per frame: job times from {@link #end} are
+     * divided by the number of ticks recorded here.
+     */
+    void recordTick(long tickNanos, int enemies, int projectiles, int particles) {
+        current.ticks.record(tickNanos);
+        current.entitySums[0] += enemies;
+        current.entitySums[1] += projectiles;
+        current.entitySums[2] += particles;
+        Runtime runtime = Runtime.getRuntime();
+        current.peakHeapBytes = Math.max(current.peakHeapBytes, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    void recordRender(long renderNanos) {
+        current.renders.record(renderNanos);
+    }
+
+    /**
+     * Finish the current step with the time its ticks spent in each job, see {@link TickGraph#takeJobNanos()}.
+     */
+    Step end(long[] jobNanos) {
+        current.jobNanos = jobNanos;
+        current.gcCount += totalGcCount();
+        current.gcMillis += totalGcMillis();
+        Step done = current;
+        current = null;
+        return done;
+    }
+
+    /**
+     * One line per step: entity counts, tick and render percentiles, heap and GC.
+     */
+    List<String> formatSteps() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-7s %8s %8s %9s %9s %9s %10s %10s %8s %5s %7s", "step", "enemies", "shots",
+            "particles", "tick p50", "tick p99", "render p50", "render p99", "heap MB", "GCs", "GC ms"));
+        for (Step step : steps) {
+            lines.add(String.format("%-7d %8.0f %8.0f %9.0f %9.3f %9.3f %10.3f %10.3f %8.1f %5d %7d", step.count,
+                step.getMeanEnemies(), step.getMeanProjectiles(), step.getMeanParticles(),
+                step.ticks.getPercentileMillis(0.50), step.ticks.getPercentileMillis(0.99),
+                step.renders.getPercentileMillis(0.50), step.renders.getPercentileMillis(0.99),
+                step.peakHeapBytes / (1024.0 * 1024.0), step.gcCount, step.gcMillis));
+        }
+        return lines;
+    }
+
+    /**
+     * One line per subsystem: mean microseconds per tick at each step, then the growth
+     * exponent between each pair of steps ("-" where it is too cheap to tell).
+     */
+    List<String> formatScaling() {
+        List<String> names = getSubsystems();
+        double[][] micros = getMicrosPerTick();
+        StringBuilder header = new StringBuilder(String.format("%-26s", "us per tick"));
+        for (Step step : steps) {
+            header.append(String.format(" %10d", step.count));
+        }
+        for (int s = 1; s < steps.size(); s++) {
+            header.append(String.format(" %13s", "exp " + shortCount(steps.get(s - 1).count) + "-" + shortCount(steps.get(s).count)));
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(header.toString());
+        for (int k = 0; k < names.size(); k++) {
+            StringBuilder line = new StringBuilder(String.format("%-26s", names.get(k)));
+            for (int s = 0; s < steps.size(); s++) {
+                line.append(String.format(" %10.1f", micros[s][k]));
+            }
+            for (int s = 1; s < steps.size(); s++) {
+                double exponent = exponent(s, micros[s - 1][k], micros[s][k]);
+                line.append(Double.isNaN(exponent) ? String.format(" %13s", "-") : String.format(" %13.2f", exponent));
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * The subsystem that grows faster than linear at the earliest step (the fastest growing
+     * one if several do at the same step), or a note that none does.
+     */
+    String findFirstSuperlinear() {
+        List<String> names = getSubsystems();
+        double[][] micros = getMicrosPerTick();
+        for (int s = 1; s < steps.size(); s++) {
+            int worst = -1;
+            double worstExponent = SUPERLINEAR;
+            for (int k = 0; k < names.size(); k++) {
+                double exponent = exponent(s, micros[s - 1][k], micros[s][k]);
+                if (exponent > worstExponent) {
+                    worst = k;
+                    worstExponent = exponent;
+                }
+            }
+            if (worst >= 0) {
+                return String.format("First superlinear: %s, exponent %.2f from %d to %d (%.1f -> %.1f us per tick)",
+                    names.get(worst), worstExponent, steps.get(s - 1).count, steps.get(s).count,
+                    micros[s - 1][worst], micros[s][worst]);
+            }
+        }
+        return String.format("No subsystem grew faster than linear (exponent %.1f) up to %d",
+            SUPERLINEAR, steps.isEmpty() ? 0 : steps.get(steps.size() - 1).count);
+    }
+
+    private List<String> getSubsystems() {
+        List<String> names = new ArrayList<>(jobNames);
+        names.add(OTHER);
+        names.add(RENDER);
+        return names;
+    }
+
+    /**
+     * [step][subsystem] mean microseconds per tick. "Other" is the tick time outside the jobs.
+     */
+    private double[][] getMicrosPerTick() {
+        double[][] micros = new double[steps.size()][jobNames.size() + 2];
+        for (int s = 0; s < steps.size(); s++) {
+            Step step = steps.get(s);
+            double ticks = Math.max(1, step.ticks.getCount());
+            double jobs = 0;
+            for (int k = 0; k < jobNames.size(); k++) {
+                micros[s][k] = step.jobNanos[k] / 1000.0 / ticks;
+                jobs += micros[s][k];
+            }
+            micros[s][jobNames.size()] = Math.max(0, step.ticks.getMeanMillis() * 1000 - jobs);
+            micros[s][jobNames.size() + 1] = step.renders.getMeanMillis() * 1000;
+        }
+        return micros;
+    }
+
+    /**
+     * How the time grows with the count from step s - 1 to s: time ~ count^exponent. NaN when
+     * the later time is too small to say.
+     */
+    private double exponent(int s, double before, double after) {
+        if (after < MIN_MICROS || before <= 0) return Double.NaN;
+        return Math.log(after / before) / Math.log((double) steps.get(s).count / steps.get(s - 1).count);
+    }
+
+    private static String shortCount(int count) {
+        return count >= 1000 && count % 1000 == 0 ? count / 1000 + "k" : Integer.toString(count);
+    }
+
+    private static long totalGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
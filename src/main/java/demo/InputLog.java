@@ -0,0 +1,106 @@
+package demo;
+
+import java.util.Arrays;
+
+/**
+ * Seed plus per-tick input bits of one run, run-length encoded.
+ * Together with {@link Game#step(int)} this is enough to replay the run exactly.
+ * Encoded as comma separated "bits*count" pairs in base 36, e.g. "0*1o,5*c,4*2s".
+ */
+public class InputLog {
+    // Held keys
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int SHOOT = 1 << 2;
+    public static final int JUMP = 1 << 3;
+    public static final int PAUSED = 1 << 4;
+    // Upgrade purchases, one bit per UpgradeType starting here
+    private static final int PURCHASE_SHIFT = 5;
+
+    private final long seed;
+    private int[] inputs = new int[64];
+    private int[] counts = new int[64];
+    private int runs = 0;
+    private long ticks = 0;
+
+    public InputLog(long seed) {
+        this.seed = seed;
+    }
+
+    public static int purchaseBit(UpgradeType type) {
+        return 1 << (PURCHASE_SHIFT + type.ordinal());
+    }
+
+    public void record(int input) {
+        ticks++;
+        if (runs > 0 && inputs[runs - 1] == input && counts[runs - 1] < Integer.MAX_VALUE) {
+            counts[runs - 1]++;
+            return;
+        }
+        appendRun(input, 1);
+    }
+
+    private void appendRun(int input, int count) {
+        if (runs == inputs.length) {
+            inputs = Arrays.copyOf(inputs, runs * 2);
+            counts = Arrays.copyOf(counts, runs * 2);
+        }
+        inputs[runs] = input;
+        counts[runs] = count;
+        runs++;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTickCount() {
+        return ticks;
+    }
+
+    public int getRunCount() {
+        return runs;
+    }
+
+    public int getRunInput(int run) {
+        return inputs[run];
+    }
+
+    public int getRunLength(int run) {
+        return counts[run];
+    }
+
+    public String encode() {
+        StringBuilder out = new StringBuilder(runs * 6);
+        for (int i = 0; i < runs; i++) {
+            if (i > 0) out.append(',');
+            out.append(Integer.toString(inputs[i], 36)).append('*').append(Integer.toString(counts[i], 36));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Parse the output of {@link #encode()}.
+     * @throws IllegalArgumentException if the text is malformed
+     */
+    public static InputLog decode(long seed, String encoded) {
+        InputLog log = new InputLog(seed);
+        if (encoded.isEmpty()) return log;
+
+        try {
+            for (String run : encoded.split(",")) {
+                int star = run.indexOf('*');
+                int input = Integer.parseInt(run.substring(0, star), 36);
+                int count = Integer.parseInt(run.substring(star + 1), 36);
+                if (count <= 0) {
+                    throw new IllegalArgumentException("Bad run length: " + run);
+                }
+                log.appendRun(input, count);
+                log.ticks += count;
+            }
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed input log", e);
+        }
+        return log;
+    }
+}
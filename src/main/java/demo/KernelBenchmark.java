@@ -0,0 +1,100 @@
+package demo;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the scalar and Vector API entity kernels: particle integration over many particles
+ * and the projectile-vs-enemy hitbox search, checking that both give identical results.
+ *
+ * Usage: java --add-modules jdk.incubator.vector -cp target/classes:... demo.KernelBenchmark
+ *        [particles] [projectiles] [enemies]
+ */
+public class KernelBenchmark {
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 500;
+
+    public static void main(String[] args) throws Exception {
+        int particles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int projectiles = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int enemies = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        EntityKernels scalar = new EntityKernels.Scalar();
+        EntityKernels vector;
+        try {
+            vector = (EntityKernels) Class.forName("demo.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.out.println("Vector API not available, run with --add-modules jdk.incubator.vector");
+            return;
+        }
+
+        System.out.printf("Integrate %d particles, search %d projectiles x %d enemies%n", particles, projectiles, enemies);
+        double[][] scalarState = integrate(scalar, particles, WARMUP_ROUNDS, null);
+        double[][] vectorState = integrate(vector, particles, WARMUP_ROUNDS, null);
+        integrate(scalar, particles, MEASURED_ROUNDS, "integrate  " + scalar.describe());
+        integrate(vector, particles, MEASURED_ROUNDS, "integrate  " + vector.describe());
+        System.out.println("integrate results identical: " + Arrays.deepEquals(scalarState, vectorState));
+
+        long scalarHits = search(scalar, projectiles, enemies, WARMUP_ROUNDS / 10, null);
+        long vectorHits = search(vector, projectiles, enemies, WARMUP_ROUNDS / 10, null);
+        search(scalar, projectiles, enemies, MEASURED_ROUNDS / 10, "hitboxes   " + scalar.describe());
+        search(vector, projectiles, enemies, MEASURED_ROUNDS / 10, "hitboxes   " + vector.describe());
+        System.out.println("hitbox results identical: " + (scalarHits == vectorHits));
+    }
+
+    private static double[][] integrate(EntityKernels kernels, int n, int rounds, String label) {
+        Random random = new Random(1);
+        double[] x = new double[n], y = new double[n], vx = new double[n], vy = new double[n], life = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * 1280;
+            y[i] = random.nextDouble() * 720;
+            vx[i] = (random.nextDouble() - 0.5) * 6;
+            vy[i] = (random.nextDouble() - 0.5) * 6;
+            life[i] = 20 + random.nextInt(200);
+        }
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            kernels.integrate(x, y, vx, vy, life, 0, n, 0.1);
+        }
+        report(label, System.nanoTime() - start, (long) rounds * n, "particle");
+        return new double[][] {x, y, vx, vy, life};
+    }
+
+    /**
+     * Each projectile finds every enemy it overlaps (as the hit resolution does after a miss),
+     * returns a checksum of the hits.
+     */
+    private static long search(EntityKernels kernels, int projectiles, int enemies, int rounds, String label) {
+        Random random = new Random(2);
+        double[] left = new double[enemies], top = new double[enemies], right = new double[enemies], bottom = new double[enemies];
+        for (int i = 0; i < enemies; i++) {
+            left[i] = random.nextDouble() * 1280;
+            top[i] = 300 + random.nextDouble() * 250;
+            right[i] = left[i] + 40 + random.nextInt(20);
+            bottom[i] = top[i] + 40 + random.nextInt(20);
+        }
+        double[] px = new double[projectiles], py = new double[projectiles];
+        for (int i = 0; i < projectiles; i++) {
+            px[i] = random.nextDouble() * 1280;
+            py[i] = random.nextDouble() * 720;
+        }
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (int p = 0; p < projectiles; p++) {
+                for (int j = kernels.firstOverlap(px[p], py[p], 8, 8, left, top, right, bottom, 0, enemies); j >= 0;
+                     j = kernels.firstOverlap(px[p], py[p], 8, 8, left, top, right, bottom, j + 1, enemies)) {
+                    checksum = checksum * 31 + p * 1_000_003L + j;
+                }
+            }
+        }
+        report(label, System.nanoTime() - start, (long) rounds * projectiles * enemies, "box test");
+        return checksum;
+    }
+
+    private static void report(String label, long nanos, long operations, String unit) {
+        if (label == null) return;
+        System.out.printf("%-36s %8.3f ns/%s%n", label, (double) nanos / operations, unit);
+    }
+}
@@ -0,0 +1,95 @@
+package demo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size latency histogram with log-linear buckets (about 3% relative error),
+ * safe to record into from many threads without locking.
+ * Covers 1 microsecond up to about 70 seconds; larger values land in the last bucket.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;                   // 32 linear steps per power of two
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long UNIT_NANOS = 1_000;                   // Resolution: 1 microsecond
+    private static final int MAGNITUDES = 22;                       // Up to 2^26 us, about 67 s
+    private static final int BUCKET_COUNT = MAGNITUDES * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value / UNIT_NANOS));
+        total.increment();
+        sumNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public double getMeanMillis() {
+        long count = total.sum();
+        return count == 0 ? 0 : sumNanos.sum() / 1_000_000.0 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Latency at quantile q in [0, 1], in milliseconds (upper edge of the bucket).
+     */
+    public double getPercentileMillis(double q) {
+        long count = total.sum();
+        if (count == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i) * UNIT_NANOS, maxNanos.get()) / 1_000_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sumNanos.reset();
+        maxNanos.reset();
+    }
+
+    /**
+     * "n=1234 mean=1.20 p50=0.98 p99=7.10 max=12.40 ms"
+     */
+    public String summary() {
+        return String.format("n=%d mean=%.2f p50=%.2f p99=%.2f max=%.2f ms",
+            getCount(), getMeanMillis(), getPercentileMillis(0.50), getPercentileMillis(0.99), getMaxMillis());
+    }
+
+    // Values below SUB_BUCKETS map 1:1; above, each power of two is split into SUB_BUCKETS steps
+    private static int bucketOf(long units) {
+        if (units < SUB_BUCKETS) return (int) units;
+        int magnitude = 63 - Long.numberOfLeadingZeros(units) - SUB_BUCKET_BITS + 1;
+        if (magnitude >= MAGNITUDES) return BUCKET_COUNT - 1;
+        int sub = (int) (units >>> (magnitude - 1)) - SUB_BUCKETS;
+        return magnitude * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        int magnitude = bucket / SUB_BUCKETS;
+        int sub = bucket % SUB_BUCKETS;
+        if (magnitude == 0) return sub + 1;
+        return ((long) (SUB_BUCKETS + sub + 1) << (magnitude - 1));
+    }
+}
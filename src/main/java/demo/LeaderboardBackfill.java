@@ -0,0 +1,146 @@
+package demo;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One-off migration for scores saved before the flat leaderboard index existed. The game
+ * reads every rank from leaderboard/, so a score that is only under
+ * scores/{playerId}/{scoreId} would never be shown. Copies each such score to
+ * leaderboard/{scoreId} in multi-location updates; entries already in the index are kept,
+ * so it is safe to run again.
+ *
+ * Usage: java -cp target/classes:... demo.LeaderboardBackfill [--dry-run]
+ * The database comes from -Dfirebase.databaseUrl (and serviceAccountKey.json if present).
+ */
+public class LeaderboardBackfill {
+    private static final int CHUNK = 5_000; // Entries per multi-location PATCH
+
+    private final boolean dryRun;
+    private long scannedCount = 0;
+    private long copiedCount = 0;
+
+    public LeaderboardBackfill(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean dryRun = false;
+        for (String arg : args) {
+            if (arg.equals("--dry-run")) {
+                dryRun = true;
+            } else {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(2);
+            }
+        }
+
+        FirebaseService firebase = FirebaseService.getInstance();
+        firebase.initializeFromClasspath();
+        if (!firebase.isInitialized()) {
+            System.err.println("No database configured (set -Dfirebase.databaseUrl or add serviceAccountKey.json)");
+            System.exit(1);
+        }
+
+        LeaderboardBackfill backfill = new LeaderboardBackfill(dryRun);
+        backfill.run();
+        System.out.printf("%d scores scanned, %d %s%n", backfill.scannedCount, backfill.copiedCount,
+            dryRun ? "missing from the leaderboard" : "copied to the leaderboard");
+        System.exit(0);
+    }
+
+    /**
+     * Stream scores/ and copy every entry whose score ID is not in leaderboard/ yet.
+     */
+    public void run() throws IOException, InterruptedException {
+        Set<String> indexed = readLeaderboardKeys();
+        JsonObject update = new JsonObject();
+        try (Reader body = get("scores")) {
+            JsonReader reader = new JsonReader(body);
+            if (reader.peek() == JsonToken.NULL) return;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String playerId = reader.nextName();
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String scoreId = reader.nextName();
+                    FirebaseService.ScoreEntry entry = LeaderboardParser.readScoreEntry(reader);
+                    scannedCount++;
+                    if (entry == null || indexed.contains(scoreId)) continue;
+
+                    JsonObject copy = new JsonObject();
+                    copy.addProperty("playerId", playerId);
+                    copy.addProperty("playerName", entry.playerName);
+                    copy.addProperty("score", entry.score);
+                    copy.addProperty("timestamp", entry.timestamp);
+                    update.add("leaderboard/" + scoreId, copy);
+                    copiedCount++;
+                    if (update.size() >= CHUNK) {
+                        write(update);
+                        update = new JsonObject();
+                    }
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        }
+        if (update.size() > 0) {
+            write(update);
+        }
+    }
+
+    private Set<String> readLeaderboardKeys() throws IOException, InterruptedException {
+        Set<String> keys = new HashSet<>();
+        try (Reader body = get("leaderboard")) {
+            JsonReader reader = new JsonReader(body);
+            if (reader.peek() == JsonToken.NULL) return keys;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                keys.add(reader.nextName());
+                reader.skipValue();
+            }
+            reader.endObject();
+        }
+        return keys;
+    }
+
+    private Reader get(String path) throws IOException, InterruptedException {
+        FirebaseService firebase = FirebaseService.getInstance();
+        HttpRequest request = firebase.newRequest(path).GET().build();
+        HttpResponse<java.io.InputStream> response = firebase.getHttpClient()
+            .send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Failed to read " + path + ". Status: " + response.statusCode());
+        }
+        return new InputStreamReader(response.body(), StandardCharsets.UTF_8);
+    }
+
+    private void write(JsonObject update) throws IOException, InterruptedException {
+        if (dryRun) return;
+        FirebaseService firebase = FirebaseService.getInstance();
+        HttpRequest request = firebase.newRequest("")
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(update.toString()))
+            .header("Content-Type", "application/json")
+            .build();
+        HttpResponse<String> response = firebase.getHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Backfill write failed. Status: " + response.statusCode());
+        }
+        Log.info("Backfilled leaderboard entries", "count", update.size());
+    }
+}
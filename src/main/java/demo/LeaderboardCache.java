@@ -0,0 +1,237 @@
+package demo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Client-side leaderboard cache.
+ * Keeps the last known top scores on disk so the menu can show them instantly,
+ * and refreshes them in the background (stale-while-revalidate).
+ */
+public class LeaderboardCache {
+    private static final int LIMIT = 10;
+    private static final long TTL_MILLIS = 60_000; // Entries younger than this are served without a refresh
+    private static final long FAILURE_BACKOFF_MILLIS = 10_000; // No background refresh this soon after a failed one
+
+    private static LeaderboardCache instance;
+
+    private final Path cacheFile = Paths.get(System.getProperty("user.home"), ".postapocalyptic_leaderboard_cache");
+    private final List<Consumer<List<FirebaseService.ScoreEntry>>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile List<FirebaseService.ScoreEntry> entries = new ArrayList<>();
+    private volatile long fetchedAt = 0; // Wall clock millis, 0 = never fetched
+    private volatile long failedAt = 0;  // Wall clock millis of the last failed refresh
+    private CompletableFuture<List<FirebaseService.ScoreEntry>> inFlight;
+
+    // Metrics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+    private final AtomicLong totalRefreshNanos = new AtomicLong();
+    private volatile long lastRefreshNanos = 0;
+
+    private LeaderboardCache() {
+        loadFromDisk();
+    }
+
+    public static synchronized LeaderboardCache getInstance() {
+        if (instance == null) {
+            instance = new LeaderboardCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cached entries right away (possibly stale or empty) and
+     * starts a background refresh when they are older than the TTL.
+     * Listeners are notified when fresh entries arrive.
+     */
+    public List<FirebaseService.ScoreEntry> get() {
+        if (hasData()) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        if (shouldRefresh()) {
+            refresh();
+        }
+        return entries;
+    }
+
+    /**
+     * Warm the cache ahead of time (menu opened, score just saved).
+     */
+    public void prefetch() {
+        if (shouldRefresh()) {
+            refresh();
+        }
+    }
+
+    private boolean shouldRefresh() {
+        return isStale() && System.currentTimeMillis() - failedAt >= FAILURE_BACKOFF_MILLIS;
+    }
+
+    /**
+     * Fetch the leaderboard now, ignoring the TTL.
+     * Concurrent callers share the same in-flight request. If the fetch fails the
+     * returned future fails, and the cached entries are kept and still served.
+     */
+    public synchronized CompletableFuture<List<FirebaseService.ScoreEntry>> refresh() {
+        if (inFlight != null) {
+            return inFlight;
+        }
+        if (!FirebaseService.getInstance().isInitialized()) {
+            // Offline: keep serving whatever was persisted last time
+            return CompletableFuture.completedFuture(entries);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<List<FirebaseService.ScoreEntry>> request = FirebaseService.getInstance().getTopScores(LIMIT)
+            .whenComplete((scores, ex) -> {
+                long elapsed = System.nanoTime() - start;
+                synchronized (this) {
+                    inFlight = null;
+                }
+                if (ex != null) {
+                    // Keep serving the stale entries; they are still the best we have
+                    failedRefreshes.incrementAndGet();
+                    failedAt = System.currentTimeMillis();
+                    Log.warn("Leaderboard refresh failed, keeping cached entries", "error", ex.getMessage());
+                    return;
+                }
+                refreshes.incrementAndGet();
+                totalRefreshNanos.addAndGet(elapsed);
+                lastRefreshNanos = elapsed;
+                update(scores);
+            });
+        if (!request.isDone()) {
+            inFlight = request;
+        }
+        return request;
+    }
+
+    /**
+     * Store entries that arrived another way (e.g. the live leaderboard stream).
+     */
+    public void offer(List<FirebaseService.ScoreEntry> scores) {
+        update(scores);
+    }
+
+    private void update(List<FirebaseService.ScoreEntry> scores) {
+        entries = new ArrayList<>(scores);
+        fetchedAt = System.currentTimeMillis();
+        saveToDisk();
+        for (Consumer<List<FirebaseService.ScoreEntry>> listener : listeners) {
+            listener.accept(entries);
+        }
+    }
+
+    public void addListener(Consumer<List<FirebaseService.ScoreEntry>> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<List<FirebaseService.ScoreEntry>> listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasData() {
+        return fetchedAt > 0;
+    }
+
+    public boolean isStale() {
+        return System.currentTimeMillis() - fetchedAt > TTL_MILLIS;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    public long getFailedRefreshCount() {
+        return failedRefreshes.get();
+    }
+
+    public double getLastRefreshMillis() {
+        return lastRefreshNanos / 1_000_000.0;
+    }
+
+    public double getAverageRefreshMillis() {
+        long count = refreshes.get();
+        return count == 0 ? 0 : totalRefreshNanos.get() / 1_000_000.0 / count;
+    }
+
+    public String getMetricsSummary() {
+        return String.format("cache hit rate %.0f%% (%d/%d), refresh last %.0f ms / avg %.0f ms, %d failed",
+            getHitRate() * 100, hits.get(), hits.get() + misses.get(),
+            getLastRefreshMillis(), getAverageRefreshMillis(), failedRefreshes.get());
+    }
+
+    /**
+     * Cache file format: first line is the fetch time, then one
+     * "score<TAB>timestamp<TAB>playerName" line per entry.
+     */
+    private void loadFromDisk() {
+        if (!Files.exists(cacheFile)) return;
+
+        try {
+            List<String> lines = Files.readAllLines(cacheFile);
+            if (lines.isEmpty()) return;
+
+            long savedAt = Long.parseLong(lines.get(0).trim());
+            List<FirebaseService.ScoreEntry> loaded = new ArrayList<>();
+            for (int i = 1; i < lines.size(); i++) {
+                String[] parts = lines.get(i).split("\t", 3);
+                if (parts.length < 3) continue;
+                loaded.add(new FirebaseService.ScoreEntry(parts[2], Integer.parseInt(parts[0]), Long.parseLong(parts[1])));
+            }
+            entries = loaded;
+            fetchedAt = savedAt;
+        } catch (IOException | NumberFormatException e) {
+            Log.warn("Could not read leaderboard cache", "error", e.getMessage());
+        }
+    }
+
+    private void saveToDisk() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(fetchedAt).append('\n');
+        for (FirebaseService.ScoreEntry entry : entries) {
+            String name = entry.playerName.replace('\t', ' ').replace('\n', ' ');
+            sb.append(entry.score).append('\t').append(entry.timestamp).append('\t').append(name).append('\n');
+        }
+
+        try {
+            // Write to a temp file first so a crash never leaves a half-written cache
+            Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            Files.writeString(tempFile, sb.toString());
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.warn("Could not save leaderboard cache", "error", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package demo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Load test for the leaderboard REST paths. Fills a local stand-in database with a
+ * synthetic score distribution across N players, then drives concurrent saveScore,
+ * getTopScores and getLeaderboardPage calls from virtual threads and reports
+ * throughput and p50/p99 latency per operation.
+ *
+ * Usage: java -cp target/classes:... demo.LeaderboardLoadTest [--scores 1000000] [--players 10000]
+ *        [--distribution uniform|normal|exponential] [--writers 32] [--top-readers 2]
+ *        [--page-readers 8] [--duration 30] [--url http://localhost:9000]
+ * Without --url an in-process FakeRealtimeDatabase is started (give it a large heap, e.g. -Xmx4g).
+ */
+public class LeaderboardLoadTest {
+    private static final int FILL_CHUNK = 5_000; // Entries per multi-location PATCH
+    private static final int TOP_LIMIT = 10;
+    private static final int PAGE_SIZE = 50;
+    private static final long PROGRESS_MILLIS = 5_000;
+
+    private int scores = 1_000_000;
+    private int players = 10_000;
+    private String distribution = "normal";
+    private int writers = 32;
+    private int topReaders = 2;
+    private int pageReaders = 8;
+    private int durationSeconds = 30;
+    private String url = null;
+
+    private final Operation save = new Operation("saveScore");
+    private final Operation topScores = new Operation("getTopScores");
+    private final Operation page = new Operation("getLeaderboardPage");
+
+    /**
+     * Latency and outcome counters for one operation type.
+     */
+    private static class Operation {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+
+        Operation(String name) {
+            this.name = name;
+        }
+    }
+
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LeaderboardLoadTest test = new LeaderboardLoadTest();
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--scores": test.scores = Integer.parseInt(value); i++; break;
+                case "--players": test.players = Integer.parseInt(value); i++; break;
+                case "--distribution": test.distribution = value; i++; break;
+                case "--writers": test.writers = Integer.parseInt(value); i++; break;
+                case "--top-readers": test.topReaders = Integer.parseInt(value); i++; break;
+                case "--page-readers": test.pageReaders = Integer.parseInt(value); i++; break;
+                case "--duration": test.durationSeconds = Integer.parseInt(value); i++; break;
+                case "--url": test.url = value; i++; break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        test.run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        FakeRealtimeDatabase db = null;
+        if (url == null) {
+            db = FakeRealtimeDatabase.start(0);
+            url = db.getBaseUrl();
+        }
+        FirebaseService firebase = FirebaseService.getInstance();
+        firebase.setDatabaseUrl(url);
+        firebase.initializeUnauthenticated();
+
+        fill(scoreSource(distribution, new Random(42)));
+        long requestsBefore = db != null ? db.getRequestCount() : 0;
+
+        System.out.printf("Running %d writers, %d top-score readers, %d page readers for %d s...%n",
+            writers, topReaders, pageReaders, durationSeconds);
+        PrintStream out = System.out;
+        // saveScore logs every call (and its background updates keep logging after the run);
+        // keep the console readable, results are printed to the original stream
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+        long deadline = System.nanoTime() + durationSeconds * 1_000_000_000L;
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntSupplier newScores = scoreSource(distribution, new Random(7));
+            for (int i = 0; i < writers; i++) {
+                threads.submit(() -> loop(save, deadline, () -> {
+                    int player = ThreadLocalRandom.current().nextInt(players);
+                    int score;
+                    synchronized (newScores) {
+                        score = newScores.getAsInt();
+                    }
+                    firebase.saveScore("player-" + player, "Player" + player, score, score / 100, null).get();
+                }));
+            }
+            for (int i = 0; i < topReaders; i++) {
+                threads.submit(() -> loop(topScores, deadline, () -> firebase.getTopScores(TOP_LIMIT).get()));
+            }
+            for (int i = 0; i < pageReaders; i++) {
+                threads.submit(() -> loop(page, deadline, () -> firebase.getLeaderboardPage(null, PAGE_SIZE).get()));
+            }
+
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(PROGRESS_MILLIS);
+                out.printf("  saves=%d topScores=%d pages=%d%n",
+                    save.latency.getCount(), topScores.latency.getCount(), page.latency.getCount());
+            }
+        }
+
+        report(out, db != null ? db.getRequestCount() - requestsBefore : -1);
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    /**
+     * Repeat a call until the deadline, recording latency and failures.
+     */
+    private static void loop(Operation operation, long deadline, Call call) {
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                call.run();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                operation.errors.increment();
+            }
+            operation.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Write the synthetic scores in the same two places saveScore does (scores/ and leaderboard/).
+     */
+    private void fill(IntSupplier source) throws IOException, InterruptedException {
+        System.out.printf("Filling %s with %d %s scores across %d players...%n", url, scores, distribution, players);
+        FirebaseService firebase = FirebaseService.getInstance();
+        long start = System.nanoTime();
+        long timestamp = System.currentTimeMillis();
+
+        for (int written = 0; written < scores; written += FILL_CHUNK) {
+            StringBuilder body = new StringBuilder(FILL_CHUNK * 200).append('{');
+            int end = Math.min(scores, written + FILL_CHUNK);
+            for (int i = written; i < end; i++) {
+                int player = i % players;
+                int score = source.getAsInt();
+                String scoreId = String.format("s%07d", i);
+                if (i > written) body.append(',');
+                body.append(String.format(
+                    "\"scores/player-%d/%s\":{\"playerName\":\"Player%d\",\"score\":%d,\"survivalTime\":%d,\"timestamp\":%d},"
+                        + "\"leaderboard/%s\":{\"playerId\":\"player-%d\",\"playerName\":\"Player%d\",\"score\":%d,\"timestamp\":%d}",
+                    player, scoreId, player, score, score / 100, timestamp + i,
+                    scoreId, player, player, score, timestamp + i));
+            }
+            body.append('}');
+
+            HttpRequest request = firebase.newRequest("")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body.toString()))
+                .header("Content-Type", "application/json")
+                .build();
+            HttpResponse<String> response = firebase.getHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Fill failed. Status: " + response.statusCode());
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Filled in %.1f s (%.0f scores/s)%n", seconds, scores / seconds);
+    }
+
+    private void report(PrintStream out, long databaseRequests) {
+        out.println();
+        out.printf("%-20s %9s %9s %7s %9s %9s %9s %9s%n", "operation", "ops", "ops/s", "errors", "mean ms", "p50 ms", "p99 ms", "max ms");
+        for (Operation operation : List.of(save, topScores, page)) {
+            LatencyHistogram latency = operation.latency;
+            out.printf("%-20s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f%n",
+                operation.name, latency.getCount(), latency.getCount() / (double) durationSeconds,
+                operation.errors.sum(), latency.getMeanMillis(), latency.getPercentileMillis(0.50),
+                latency.getPercentileMillis(0.99), latency.getMaxMillis());
+        }
+        if (databaseRequests >= 0) {
+            // Includes the player stats and score sketch updates saveScore issues in the background
+            out.printf("Database requests during the run: %d (%.0f/s)%n",
+                databaseRequests, databaseRequests / (double) durationSeconds);
+        }
+    }
+
+    private static IntSupplier scoreSource(String distribution, Random random) {
+        switch (distribution) {
+            case "uniform":
+                return () -> random.nextInt(10_000);
+            case "exponential":
+                return () -> (int) (-Math.log(1 - random.nextDouble()) * 2_000);
+            case "normal":
+                return () -> Math.max(0, (int) (5_000 + random.nextGaussian() * 1_500));
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+    }
+}
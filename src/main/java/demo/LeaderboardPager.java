@@ -0,0 +1,199 @@
+package demo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cursor-based paging over the flat leaderboard index, best score first.
+ * Each page is fetched with endAt = last score seen; entries already returned
+ * with that same score are skipped, so ties spanning pages are handled.
+ * The cursor each page started from is kept, so a page the caller dropped
+ * can be fetched again without walking the pages before it.
+ */
+public class LeaderboardPager {
+    private final int pageSize;
+
+    private Cursor cursor = new Cursor();                        // Where the next page starts
+    private final List<Cursor> pageStarts = new ArrayList<>();   // Where each loaded page started
+    private final List<Integer> pageRanks = new ArrayList<>();   // Rank of each loaded page's first entry
+    private boolean exhausted = false;
+    private CompletableFuture<Page> pending;
+    private final Map<Integer, CompletableFuture<Page>> reloads = new HashMap<>();
+    private int fetchCount = 0;
+    private int loadedCount = 0;
+
+    /**
+     * A position in the ordering: the last score returned and the entries returned with it.
+     */
+    private static class Cursor {
+        Integer score = null;                      // null = start from the top
+        final Set<String> keys = new HashSet<>();  // Entries already returned with score
+
+        Cursor copy() {
+            Cursor copy = new Cursor();
+            copy.score = score;
+            copy.keys.addAll(keys);
+            return copy;
+        }
+    }
+
+    /**
+     * One fetched page; startRank is the zero-based rank of the first entry.
+     */
+    public static class Page {
+        public final int index;
+        public final int startRank;
+        public final List<FirebaseService.ScoreEntry> entries;
+
+        Page(int index, int startRank, List<FirebaseService.ScoreEntry> entries) {
+            this.index = index;
+            this.startRank = startRank;
+            this.entries = entries;
+        }
+    }
+
+    public LeaderboardPager(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Fetch the next page. Concurrent calls share the request in flight;
+     * an empty page means the end of the leaderboard was reached.
+     */
+    public synchronized CompletableFuture<Page> nextPage() {
+        if (pending != null) {
+            return pending;
+        }
+        if (exhausted) {
+            return CompletableFuture.completedFuture(new Page(pageStarts.size(), loadedCount, new ArrayList<>()));
+        }
+
+        Cursor start = cursor.copy();
+        int requested = pageSize + start.keys.size();
+        fetchCount++;
+        CompletableFuture<Page> request = FirebaseService.getInstance()
+            .getLeaderboardPage(start.score, requested)
+            .thenApply(page -> acceptPage(start, page, requested))
+            .whenComplete((page, ex) -> {
+                synchronized (this) {
+                    pending = null;
+                }
+            });
+        if (!request.isDone()) {
+            pending = request;
+        }
+        return request;
+    }
+
+    /**
+     * Fetch an already loaded page again, e.g. after the caller dropped it to save memory.
+     * Returns at most as many entries as the page had, so the ranks after it stay in place.
+     */
+    public synchronized CompletableFuture<Page> reloadPage(int index) {
+        CompletableFuture<Page> inFlight = reloads.get(index);
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        Cursor start = pageStarts.get(index);
+        int startRank = pageRanks.get(index);
+        int size = getPageEnd(index) - startRank;
+        fetchCount++;
+        CompletableFuture<Page> request = FirebaseService.getInstance()
+            .getLeaderboardPage(start.score, size + start.keys.size())
+            .thenApply(page -> new Page(index, startRank, skipSeen(start.copy(), page, size)))
+            .whenComplete((page, ex) -> {
+                synchronized (this) {
+                    reloads.remove(index);
+                }
+            });
+        if (!request.isDone()) {
+            reloads.put(index, request);
+        }
+        return request;
+    }
+
+    private synchronized Page acceptPage(Cursor start, LinkedHashMap<String, FirebaseService.ScoreEntry> page, int requested) {
+        if (page.size() < requested) {
+            exhausted = true;
+        }
+
+        Cursor end = start.copy();
+        List<FirebaseService.ScoreEntry> fresh = skipSeen(end, page, Integer.MAX_VALUE);
+        Page result = new Page(pageStarts.size(), loadedCount, fresh);
+        pageStarts.add(start);
+        pageRanks.add(loadedCount);
+        cursor = end;
+        loadedCount += fresh.size();
+        return result;
+    }
+
+    /**
+     * The entries of a fetched page that come after the cursor, at most {@code max} of them.
+     * Moves the cursor past the returned entries.
+     */
+    private static List<FirebaseService.ScoreEntry> skipSeen(Cursor position, LinkedHashMap<String, FirebaseService.ScoreEntry> page, int max) {
+        List<FirebaseService.ScoreEntry> fresh = new ArrayList<>();
+        for (Map.Entry<String, FirebaseService.ScoreEntry> entry : page.entrySet()) {
+            if (fresh.size() >= max) break;
+            int score = entry.getValue().score;
+            if (position.score != null && score == position.score && position.keys.contains(entry.getKey())) {
+                continue; // Already returned on the previous page
+            }
+            fresh.add(entry.getValue());
+
+            if (position.score == null || score != position.score) {
+                position.score = score;
+                position.keys.clear();
+            }
+            position.keys.add(entry.getKey());
+        }
+        return fresh;
+    }
+
+    /**
+     * Index of the loaded page holding this rank, or -1 if it is not loaded yet.
+     */
+    public synchronized int getPageAt(int rank) {
+        if (rank < 0 || rank >= loadedCount) return -1;
+        int found = Collections.binarySearch(pageRanks, rank);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    public synchronized int getPageStart(int index) {
+        return pageRanks.get(index);
+    }
+
+    /**
+     * Rank after the last entry of a loaded page.
+     */
+    public synchronized int getPageEnd(int index) {
+        return index + 1 < pageRanks.size() ? pageRanks.get(index + 1) : loadedCount;
+    }
+
+    public synchronized boolean isExhausted() {
+        return exhausted;
+    }
+
+    public synchronized boolean isLoading() {
+        return pending != null;
+    }
+
+    /**
+     * Number of entries returned so far, i.e. the rank after the last loaded one.
+     */
+    public synchronized int getLoadedCount() {
+        return loadedCount;
+    }
+
+    public synchronized int getFetchCount() {
+        return fetchCount;
+    }
+}
@@ -0,0 +1,113 @@
+package demo;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the streaming leaderboard page parser the game uses against a full-tree
+ * parse (the shape of the old DataSnapshot path) on a synthetic leaderboard/ payload,
+ * as returned by an orderBy score / limitToLast query.
+ *
+ * Usage: java -cp target/classes:... demo.LeaderboardParseBenchmark [entries]
+ */
+public class LeaderboardParseBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        String payload = generatePayload(entries, 42);
+        System.out.printf("Payload: %d entries, %.1f MB%n", entries, payload.length() / (1024.0 * 1024.0));
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parseStreaming(payload);
+            parseTree(payload);
+        }
+
+        report("streaming (JsonReader)", payload, true);
+        report("full tree (snapshot-style)", payload, false);
+    }
+
+    private static void report(String label, String payload, boolean streaming) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long totalNanos = 0;
+        long totalAllocated = 0;
+        int resultSize = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            Map<String, FirebaseService.ScoreEntry> page = streaming ? parseStreaming(payload) : parseTree(payload);
+            totalNanos += System.nanoTime() - start;
+            totalAllocated += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            resultSize = page.size();
+        }
+
+        System.out.printf("%-36s %8.2f ms/op %10.1f MB allocated/op (%d results)%n",
+            label, totalNanos / 1_000_000.0 / MEASURED_ROUNDS,
+            totalAllocated / (1024.0 * 1024.0) / MEASURED_ROUNDS, resultSize);
+    }
+
+    private static Map<String, FirebaseService.ScoreEntry> parseStreaming(String payload) throws IOException {
+        return LeaderboardParser.parseLeaderboardPage(new StringReader(payload));
+    }
+
+    /**
+     * Materialize the whole tree, collect every entry and sort, like the
+     * Admin SDK DataSnapshot implementation did.
+     */
+    private static Map<String, FirebaseService.ScoreEntry> parseTree(String payload) {
+        JsonObject root = JsonParser.parseReader(new StringReader(payload)).getAsJsonObject();
+        List<Map.Entry<String, FirebaseService.ScoreEntry>> scores = new ArrayList<>();
+        for (Map.Entry<String, JsonElement> scoreNode : root.entrySet()) {
+            JsonObject score = scoreNode.getValue().getAsJsonObject();
+            scores.add(new AbstractMap.SimpleEntry<>(scoreNode.getKey(), new FirebaseService.ScoreEntry(
+                score.get("playerName").getAsString(),
+                score.get("score").getAsInt(),
+                score.get("timestamp").getAsLong())));
+        }
+        scores.sort((a, b) -> {
+            int result = Integer.compare(b.getValue().score, a.getValue().score);
+            return result != 0 ? result : a.getKey().compareTo(b.getKey());
+        });
+        Map<String, FirebaseService.ScoreEntry> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, FirebaseService.ScoreEntry> entry : scores) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    /**
+     * A flat leaderboard/ node: {scoreId: {playerId, playerName, score, timestamp}}.
+     */
+    static String generatePayload(int entries, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(entries * 110);
+        sb.append('{');
+        for (int i = 0; i < entries; i++) {
+            if (i > 0) sb.append(',');
+            int player = i / 10;
+            sb.append("\"s").append(i).append("\":{")
+                .append("\"playerId\":\"p").append(player).append("\",")
+                .append("\"playerName\":\"Player").append(player).append("\",")
+                .append("\"score\":").append(random.nextInt(50_000)).append(',')
+                .append("\"timestamp\":").append(1_700_000_000_000L + i)
+                .append('}');
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,211 @@
+package demo;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming parsers for Realtime Database REST responses.
+ * Responses are read token by token so large responses are never
+ * materialized as a JSON tree.
+ */
+public class LeaderboardParser {
+
+    private LeaderboardParser() {}
+
+    /**
+     * Parse a flat leaderboard page ({scoreId: {playerName, score, timestamp}}).
+     * Returns the entries keyed by score ID, sorted best first (ties by key).
+     */
+    public static LinkedHashMap<String, FirebaseService.ScoreEntry> parseLeaderboardPage(Reader body) throws IOException {
+        List<Map.Entry<String, FirebaseService.ScoreEntry>> page = new ArrayList<>();
+
+        JsonReader reader = new JsonReader(body);
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return new LinkedHashMap<>();
+        }
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            FirebaseService.ScoreEntry entry = readScoreEntry(reader);
+            if (entry != null) {
+                page.add(new AbstractMap.SimpleEntry<>(key, entry));
+            }
+        }
+        reader.endObject();
+
+        page.sort((a, b) -> {
+            int result = Integer.compare(b.getValue().score, a.getValue().score);
+            return result != 0 ? result : a.getKey().compareTo(b.getKey());
+        });
+        LinkedHashMap<String, FirebaseService.ScoreEntry> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, FirebaseService.ScoreEntry> entry : page) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    /**
+     * Read one score object, or return null if it is malformed.
+     */
+    static FirebaseService.ScoreEntry readScoreEntry(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        String name = null;
+        Integer score = null;
+        long timestamp = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "playerName":
+                    name = reader.nextString();
+                    break;
+                case "score":
+                    score = reader.nextInt();
+                    break;
+                case "timestamp":
+                    timestamp = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (name == null || score == null) return null;
+        return new FirebaseService.ScoreEntry(name, score, timestamp);
+    }
+
+    /**
+     * Parse a "players/{playerId}" node. Returns null if the player does not exist yet.
+     */
+    public static FirebaseService.PlayerStats parsePlayerStats(Reader body) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return null;
+        }
+
+        FirebaseService.PlayerStats stats = new FirebaseService.PlayerStats();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "name":
+                    stats.name = reader.nextString();
+                    break;
+                case "gamesPlayed":
+                    stats.gamesPlayed = reader.nextInt();
+                    break;
+                case "highScore":
+                    stats.highScore = reader.nextInt();
+                    break;
+                case "lastPlayed":
+                    stats.lastPlayed = reader.nextLong();
+                    break;
+                case "countedScoreIds":
+                    stats.countedScoreIds = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return stats;
+    }
+
+    /**
+     * Parse a batch of the "replayQueue" node ({scoreId: {playerId, score, survivalTime, seed, ticks, inputs}}).
+     * Malformed entries are returned with {@code inputs == null} so they can be rejected and removed.
+     */
+    public static List<ReplayVerifier.Submission> parseReplayQueue(Reader body) throws IOException {
+        List<ReplayVerifier.Submission> submissions = new ArrayList<>();
+
+        JsonReader reader = new JsonReader(body);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return submissions;
+        }
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            ReplayVerifier.Submission submission = new ReplayVerifier.Submission(reader.nextName());
+            submissions.add(submission);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+
+            String seed = null;
+            String inputs = null;
+            boolean malformed = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                try {
+                    switch (field) {
+                        case "playerId":
+                            submission.playerId = reader.nextString();
+                            break;
+                        case "score":
+                            submission.score = reader.nextInt();
+                            break;
+                        case "survivalTime":
+                            submission.survivalTime = reader.nextLong();
+                            break;
+                        case "seed":
+                            seed = reader.nextString(); // Sent as a string, doubles cannot hold 64 bits
+                            break;
+                        case "ticks":
+                            submission.ticks = reader.nextLong();
+                            break;
+                        case "inputs":
+                            inputs = reader.nextString();
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                } catch (NumberFormatException e) {
+                    reader.skipValue(); // The bad value is left unconsumed
+                    malformed = true;
+                }
+            }
+            reader.endObject();
+
+            if (!malformed && seed != null && inputs != null && submission.playerId != null) {
+                try {
+                    submission.inputs = InputLog.decode(Long.parseLong(seed), inputs);
+                } catch (IllegalArgumentException e) {
+                    submission.inputs = null; // Also covers a bad seed (NumberFormatException)
+                }
+            }
+        }
+        reader.endObject();
+        return submissions;
+    }
+}
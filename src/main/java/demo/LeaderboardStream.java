@@ -0,0 +1,309 @@
+package demo;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URLDecoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Live leaderboard subscription using the Realtime Database REST streaming
+ * protocol (text/event-stream). Subscribes to the flat leaderboard index with an
+ * orderBy score / limitToLast query, so only the top entries are ever sent and kept.
+ * Incremental put/patch events are applied to an in-memory sorted set, and listeners
+ * are only notified when the top entries change. The connection is re-established
+ * with backoff if it drops; the server resends the whole window on reconnect, which
+ * is diffed against the current state.
+ */
+public class LeaderboardStream {
+    private static final long MIN_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final int limit;
+    private final List<Consumer<List<FirebaseService.ScoreEntry>>> listeners = new CopyOnWriteArrayList<>();
+
+    // scoreId -> entry, plus the same entries ordered best first
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>((a, b) -> {
+        int result = Integer.compare(b.score.score, a.score.score);
+        return result != 0 ? result : a.key.compareTo(b.key);
+    });
+    private List<FirebaseService.ScoreEntry> published = new ArrayList<>();
+
+    private volatile boolean running = false;
+    private volatile Stream<String> currentStream;
+    private Thread thread;
+
+    // Stats
+    private volatile long eventCount = 0;
+    private volatile long reconnectCount = 0;
+
+    private static class Entry {
+        final String key;
+        final JsonObject value; // As stored, for field level updates
+        final FirebaseService.ScoreEntry score;
+
+        Entry(String key, JsonObject value, FirebaseService.ScoreEntry score) {
+            this.key = key;
+            this.value = value;
+            this.score = score;
+        }
+    }
+
+    public LeaderboardStream(int limit) {
+        this.limit = limit;
+    }
+
+    public void addListener(Consumer<List<FirebaseService.ScoreEntry>> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<List<FirebaseService.ScoreEntry>> listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "leaderboard-stream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        Stream<String> stream = currentStream;
+        if (stream != null) {
+            stream.close(); // Unblocks the reader
+        }
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    public long getReconnectCount() {
+        return reconnectCount;
+    }
+
+    public synchronized List<FirebaseService.ScoreEntry> getTopScores() {
+        return new ArrayList<>(published);
+    }
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (running) {
+            try {
+                HttpRequest request = FirebaseService.getInstance()
+                    .newRequest("leaderboard", "orderBy=%22score%22&limitToLast=" + limit)
+                    .header("Accept", "text/event-stream")
+                    .GET()
+                    .build();
+                HttpResponse<Stream<String>> response = FirebaseService.getInstance().getHttpClient()
+                    .send(request, HttpResponse.BodyHandlers.ofLines());
+
+                if (response.statusCode() != 200) {
+                    response.body().close();
+                    throw new IOException("HTTP " + response.statusCode());
+                }
+
+                currentStream = response.body();
+                backoff = MIN_BACKOFF_MILLIS; // Connected, reset the backoff
+                readEvents(response.body());
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    Log.warn("Leaderboard stream disconnected", "error", e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                currentStream = null;
+            }
+
+            if (!running) return;
+            reconnectCount++;
+            try {
+                Thread.sleep(backoff + (long) (Math.random() * backoff / 2));
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+        }
+    }
+
+    private void readEvents(Stream<String> lines) throws IOException {
+        String[] event = new String[1];
+        StringBuilder data = new StringBuilder();
+        try {
+            lines.forEach(line -> {
+                if (line.isEmpty()) {
+                    if (event[0] != null) {
+                        dispatch(event[0], data.toString());
+                    }
+                    event[0] = null;
+                    data.setLength(0);
+                } else if (line.startsWith("event:")) {
+                    event[0] = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5).trim());
+                }
+            });
+        } catch (java.io.UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (running) {
+            throw new IOException("stream closed by server");
+        }
+    }
+
+    private void dispatch(String event, String data) {
+        eventCount++;
+        switch (event) {
+            case "put":
+            case "patch":
+                JsonObject payload = JsonParser.parseString(data).getAsJsonObject();
+                String path = payload.get("path").getAsString();
+                JsonElement value = payload.get("data");
+                apply(event.equals("patch"), splitPath(path), value);
+                break;
+            case "keep-alive":
+                break;
+            case "cancel":
+            case "auth_revoked":
+                // Reconnect, which also picks up a fresh access token
+                throw new IllegalStateException("stream " + event);
+            default:
+                Log.warn("Unknown leaderboard stream event", "event", event);
+        }
+    }
+
+    /**
+     * Apply a put or patch at a path relative to the leaderboard node.
+     */
+    synchronized void apply(boolean patch, List<String> path, JsonElement value) {
+        if (patch) {
+            if (value != null && value.isJsonObject()) {
+                for (Map.Entry<String, JsonElement> child : value.getAsJsonObject().entrySet()) {
+                    List<String> childPath = new ArrayList<>(path);
+                    childPath.addAll(splitPath(child.getKey()));
+                    put(childPath, child.getValue());
+                }
+            }
+        } else {
+            put(path, value);
+        }
+        publishIfChanged();
+    }
+
+    /**
+     * Split a database path such as "/scoreId/score" into its decoded segments.
+     * Also used by {@link FakeRealtimeDatabase}, so both sides read paths the same way.
+     */
+    static List<String> splitPath(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+            }
+        }
+        return segments;
+    }
+
+    private void put(List<String> path, JsonElement value) {
+        boolean isNull = value == null || value.isJsonNull();
+        switch (path.size()) {
+            case 0:
+                // Whole window (initial event or reconnect)
+                entries.clear();
+                ranking.clear();
+                if (!isNull && value.isJsonObject()) {
+                    for (Map.Entry<String, JsonElement> score : value.getAsJsonObject().entrySet()) {
+                        putScore(score.getKey(), score.getValue());
+                    }
+                }
+                break;
+            case 1:
+                putScore(path.get(0), value);
+                break;
+            default:
+                // Field level update, e.g. /scoreId/score
+                Entry existing = entries.get(path.get(0));
+                JsonObject merged = existing != null ? existing.value.deepCopy() : new JsonObject();
+                if (path.size() == 2) {
+                    if (isNull) merged.remove(path.get(1));
+                    else merged.add(path.get(1), value);
+                }
+                putScore(path.get(0), merged);
+        }
+    }
+
+    private void putScore(String key, JsonElement value) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            ranking.remove(old);
+        }
+
+        FirebaseService.ScoreEntry score = null;
+        if (value != null && value.isJsonObject()) {
+            try {
+                score = LeaderboardParser.readScoreEntry(new JsonReader(new StringReader(value.toString())));
+            } catch (IOException | IllegalStateException | NumberFormatException e) {
+                score = null;
+            }
+        }
+        if (score == null) return;
+
+        Entry entry = new Entry(key, value.getAsJsonObject(), score);
+        entries.put(key, entry);
+        ranking.add(entry);
+    }
+
+    private void publishIfChanged() {
+        List<FirebaseService.ScoreEntry> top = new ArrayList<>(limit);
+        for (Entry entry : ranking) {
+            if (top.size() >= limit) break;
+            top.add(entry.score);
+        }
+
+        if (sameScores(top, published)) return;
+        published = top;
+        for (Consumer<List<FirebaseService.ScoreEntry>> listener : listeners) {
+            listener.accept(new ArrayList<>(top));
+        }
+    }
+
+    private static boolean sameScores(List<FirebaseService.ScoreEntry> a, List<FirebaseService.ScoreEntry> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            FirebaseService.ScoreEntry x = a.get(i);
+            FirebaseService.ScoreEntry y = b.get(i);
+            if (x.score != y.score || x.timestamp != y.timestamp || !x.playerName.equals(y.playerName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
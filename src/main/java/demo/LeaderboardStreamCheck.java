@@ -0,0 +1,121 @@
+package demo;
+
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * End-to-end check of {@link LeaderboardStream} against an in-process
+ * {@link FakeRealtimeDatabase}: the initial window, a put and a patch moving entries
+ * in and out of the top, a field level update, and a reconnect after the server drops
+ * the stream with writes made while it was down. Exits with status 1 if any check fails.
+ *
+ * Usage: java -cp target/classes:... demo.LeaderboardStreamCheck
+ */
+public class LeaderboardStreamCheck {
+    private static final int LIMIT = 3;
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private static final AtomicReference<List<FirebaseService.ScoreEntry>> latest = new AtomicReference<>(List.of());
+
+    public static void main(String[] args) throws Exception {
+        FakeRealtimeDatabase db = FakeRealtimeDatabase.start(0);
+        FirebaseService firebase = FirebaseService.getInstance();
+        firebase.setDatabaseUrl(db.getBaseUrl());
+        firebase.initializeUnauthenticated();
+
+        // Legacy scores/ entries must not show up, the stream only reads the index
+        db.put("scores/p9/old", score("p9", "Legacy", 99_999));
+        for (int i = 1; i <= 5; i++) {
+            db.put("leaderboard/s" + i, score("p" + i, "P" + i, i * 100));
+        }
+
+        LeaderboardStream stream = new LeaderboardStream(LIMIT);
+        stream.addListener(latest::set);
+        stream.start();
+
+        boolean passed = true;
+        passed &= check("initial window", () -> names().equals(List.of("P5", "P4", "P3")));
+
+        long events = stream.getEventCount();
+        db.put("leaderboard/s6", score("p6", "P6", 450));
+        passed &= check("put enters the window", () -> names().equals(List.of("P5", "P6", "P4")));
+        passed &= check("put is one event", () -> stream.getEventCount() == events + 1);
+
+        JsonObject patch = new JsonObject();
+        patch.add("s1", score("p1", "P1", 1_000));
+        patch.add("s7", score("p7", "P7", 10));
+        patch(firebase, "leaderboard", patch);
+        passed &= check("patch moves an entry to the top", () -> names().equals(List.of("P1", "P5", "P6")));
+
+        db.put("leaderboard/s5/score", new JsonPrimitive(50));
+        passed &= check("field update leaves the window", () -> names().equals(List.of("P1", "P6", "P4")));
+
+        long reconnects = stream.getReconnectCount();
+        db.disconnectSubscribers();
+        db.put("leaderboard/s8", score("p8", "P8", 2_000)); // Before the stream is back
+        passed &= check("reconnected", () -> stream.getReconnectCount() > reconnects && db.getSubscriberCount() == 1);
+        passed &= check("window resent after reconnect", () -> names().equals(List.of("P8", "P1", "P6")));
+
+        db.put("leaderboard/s1", JsonNull.INSTANCE);
+        passed &= check("delete after reconnect", () -> names().equals(List.of("P8", "P6", "P4")));
+
+        stream.stop();
+        db.stop();
+
+        System.out.println(passed ? "All checks passed" : "Some checks FAILED");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static JsonObject score(String playerId, String playerName, int score) {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("playerId", playerId);
+        entry.addProperty("playerName", playerName);
+        entry.addProperty("score", score);
+        entry.addProperty("timestamp", 1_000L + score);
+        return entry;
+    }
+
+    private static void patch(FirebaseService firebase, String path, JsonObject body) throws IOException, InterruptedException {
+        HttpRequest request = firebase.newRequest(path)
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(body.toString()))
+            .header("Content-Type", "application/json")
+            .build();
+        HttpResponse<String> response = firebase.getHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("PATCH failed. Status: " + response.statusCode());
+        }
+    }
+
+    private static List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (FirebaseService.ScoreEntry entry : latest.get()) {
+            names.add(entry.playerName);
+        }
+        return names;
+    }
+
+    /**
+     * Wait for the condition, the stream applies events on its own thread.
+     */
+    private static boolean check(String name, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                System.out.printf("FAIL %-32s top %s%n", name, names());
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        System.out.printf("ok   %-32s top %s%n", name, names());
+        return true;
+    }
+}
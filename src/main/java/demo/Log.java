@@ -0,0 +1,336 @@
+package demo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Small asynchronous logging facade.
+ * Callers only put an event into a lock-free ring buffer; a background thread formats it
+ * and writes it to the console and a rolling file, so logging never blocks on I/O.
+ * When the buffer is full new events are dropped (and counted) instead of waiting.
+ *
+ * Usage: {@code Log.info("Score saved", "playerId", id, "score", score)}, fields as key/value pairs.
+ * System properties: log.level (DEBUG, INFO, WARN, ERROR; default INFO), log.console (default true),
+ * log.dir (default ~/.postapocalyptic_logs, empty to disable the file).
+ */
+public final class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final int CAPACITY = 1 << 13; // Events, power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_PARK_NANOS = 5_000_000;
+    private static final long MAX_FILE_BYTES = 5 * 1024 * 1024;
+    private static final int MAX_ARCHIVES = 3; // game.log.1 .. game.log.3
+    private static final DateTimeFormatter TIME_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private static final Level minLevel = parseLevel(System.getProperty("log.level", "INFO"));
+    private static final boolean console = Boolean.parseBoolean(System.getProperty("log.console", "true"));
+
+    // Ring buffer (multi-producer, single consumer). sequences[i] == position + 1 once slot i holds
+    // the event for that position, and == position + CAPACITY once the writer has freed it again
+    private static final Event[] slots = new Event[CAPACITY];
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong tail = new AtomicLong();
+    private static long head = 0; // Writer thread only
+    private static final AtomicLong dropped = new AtomicLong(); // Total since startup
+
+    private static final Thread writer;
+    private static volatile boolean running = true;
+    private static FileSink fileSink;
+
+    private static class Event {
+        final Level level;
+        final long timestamp;
+        final String thread;
+        final String message;
+        final Object[] fields;
+        final Throwable error;
+
+        Event(Level level, String message, Object[] fields, Throwable error) {
+            this.level = level;
+            this.timestamp = System.currentTimeMillis();
+            this.thread = Thread.currentThread().getName();
+            this.message = message;
+            this.fields = fields;
+            this.error = error;
+        }
+    }
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+        String dir = System.getProperty("log.dir", Paths.get(System.getProperty("user.home"), ".postapocalyptic_logs").toString());
+        if (!dir.isEmpty()) {
+            fileSink = new FileSink(Paths.get(dir, "game.log"));
+        }
+
+        writer = new Thread(Log::drainLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::shutdown, "log-shutdown"));
+    }
+
+    private Log() {
+    }
+
+    public static void debug(String message, Object... fields) {
+        log(Level.DEBUG, message, null, fields);
+    }
+
+    public static void info(String message, Object... fields) {
+        log(Level.INFO, message, null, fields);
+    }
+
+    public static void warn(String message, Object... fields) {
+        log(Level.WARN, message, null, fields);
+    }
+
+    public static void warn(String message, Throwable error, Object... fields) {
+        log(Level.WARN, message, error, fields);
+    }
+
+    public static void error(String message, Object... fields) {
+        log(Level.ERROR, message, null, fields);
+    }
+
+    public static void error(String message, Throwable error, Object... fields) {
+        log(Level.ERROR, message, error, fields);
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(minLevel) >= 0;
+    }
+
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private static void log(Level level, String message, Throwable error, Object[] fields) {
+        if (!isEnabled(level)) return;
+        if (!offer(new Event(level, message, fields, error))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Claim the next slot with a CAS on the tail. Never waits: returns false when the buffer is full.
+     */
+    private static boolean offer(Event event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & MASK);
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = event;
+                    sequences.set(index, position + 1); // Publishes the slot to the writer
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false; // Writer has not freed this slot yet
+            } else {
+                position = tail.get(); // Another producer took it
+            }
+        }
+    }
+
+    private static Event poll() {
+        int index = (int) (head & MASK);
+        if (sequences.get(index) != head + 1) return null;
+        Event event = slots[index];
+        slots[index] = null;
+        sequences.set(index, head + CAPACITY);
+        head++;
+        return event;
+    }
+
+    private static void drainLoop() {
+        StringBuilder line = new StringBuilder(256);
+        long reportedDropped = 0;
+        while (true) {
+            boolean wasRunning = running;
+            boolean wrote = false;
+            Event event;
+            while ((event = poll()) != null) {
+                write(event, line);
+                wrote = true;
+            }
+            long lost = dropped.get() - reportedDropped;
+            if (lost > 0) {
+                reportedDropped += lost;
+                write(new Event(Level.WARN, "Log buffer full, events dropped", new Object[] {"count", lost}, null), line);
+                wrote = true;
+            }
+            if (wrote && fileSink != null) {
+                fileSink.flush();
+            }
+            if (!wasRunning) {
+                // Closed here, not in shutdown(): the sink is only touched from this thread
+                if (fileSink != null) {
+                    fileSink.close();
+                }
+                return;
+            }
+            if (!wrote) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private static void write(Event event, StringBuilder line) {
+        line.setLength(0);
+        line.append(TIME_FORMAT.format(Instant.ofEpochMilli(event.timestamp)))
+            .append(' ').append(event.level)
+            .append(" [").append(event.thread).append("] ")
+            .append(event.message);
+        Object[] fields = event.fields;
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(' ').append(fields[i]).append('=');
+            appendValue(line, fields[i + 1]);
+        }
+        if (event.error != null) {
+            StringWriter trace = new StringWriter();
+            event.error.printStackTrace(new PrintWriter(trace));
+            line.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+        String text = line.toString();
+
+        if (console) {
+            if (event.level.compareTo(Level.WARN) >= 0) {
+                System.err.println(text);
+            } else {
+                System.out.println(text);
+            }
+        }
+        if (fileSink != null) {
+            fileSink.write(text);
+        }
+    }
+
+    private static void appendValue(StringBuilder line, Object value) {
+        String text = String.valueOf(value);
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ' ' || c == '=' || c == '"' || c == '\n';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"').append(text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+    }
+
+    /**
+     * Stop accepting new work and give the writer a moment to write out everything still
+     * buffered and close the file.
+     */
+    private static void shutdown() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Appends to a log file and rolls it over to numbered archives once it grows past MAX_FILE_BYTES.
+     * Only used from the writer thread.
+     */
+    private static class FileSink {
+        private final Path path;
+        private BufferedWriter out;
+        private long size;
+        private boolean failed = false;
+
+        FileSink(Path path) {
+            this.path = path;
+        }
+
+        void write(String line) {
+            if (failed) return;
+            try {
+                if (out == null) {
+                    open();
+                } else if (size >= MAX_FILE_BYTES) {
+                    roll();
+                }
+                out.write(line);
+                out.newLine();
+                size += line.length() + 1;
+            } catch (IOException e) {
+                // Nowhere else to report it; keep logging to the console only
+                failed = true;
+                System.err.println("Log file disabled: " + e.getMessage());
+            }
+        }
+
+        void flush() {
+            if (out == null || failed) return;
+            try {
+                out.flush();
+            } catch (IOException e) {
+                failed = true;
+                System.err.println("Log file disabled: " + e.getMessage());
+            }
+        }
+
+        void close() {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Shutting down anyway
+            }
+            out = null;
+        }
+
+        private void open() throws IOException {
+            Files.createDirectories(path.getParent());
+            out = Files.newBufferedWriter(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            size = Files.size(path);
+        }
+
+        private void roll() throws IOException {
+            close();
+            for (int i = MAX_ARCHIVES - 1; i >= 1; i--) {
+                Path from = archive(i);
+                if (Files.exists(from)) {
+                    Files.move(from, archive(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, archive(1), StandardCopyOption.REPLACE_EXISTING);
+            open();
+        }
+
+        private Path archive(int n) {
+            return path.resolveSibling(path.getFileName() + "." + n);
+        }
+    }
+
+    private static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
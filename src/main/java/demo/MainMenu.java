@@ -12,7 +12,9 @@ import javafx.stage.Stage;
 
 import java.io.*;
 import java.nio.file.*;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
 
 public class MainMenu {
     private Stage stage;
@@ -21,11 +23,44 @@ public class MainMenu {
     private String playerName = "Player";
     private String playerId;
     private Label playerIdLabel;
+    private final Label personalStatsLabel = new Label();
+    
+    // Leaderboard list is virtualized: cells are recycled and ranks are paged in as the player scrolls.
+    // Pages far from the one in view are dropped (their ranks hold null) and fetched again when shown.
+    private static final int LEADERBOARD_SIZE = 10;
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 20; // Fetch the next page when a cell this close to the end is shown
+    private static final int KEEP_PAGES = 2;         // Loaded pages kept on either side of the one in view
+    private final ListView<FirebaseService.ScoreEntry> scoreList = new ListView<>();
+    private LeaderboardPager leaderboardPager;
+    private final java.util.BitSet loadedPages = new java.util.BitSet(); // Pages whose entries are in the list
+    private int viewedPage = 0;
+    private final FrameScheduler.Task leaderboardTrim = deadline -> {
+        dropFarLeaderboardPages();
+        return true;
+    };
+    private final Label leaderboardStatusLabel = new Label();
+    private final Label leaderboardMetricsLabel = new Label();
+    private LeaderboardStream leaderboardStream;
+    // Live updates are rendered as deferred work; a burst of updates renders only the newest
+    private volatile List<FirebaseService.ScoreEntry> latestScores;
+    private final FrameScheduler.Task leaderboardRender = deadline -> {
+        if (leaderboardBox.isVisible()) {
+            renderLeaderboard(latestScores);
+        }
+        return true;
+    };
+    private Game game; // Created on the first PLAY and reused for every later session
+    // Tick jobs of the game run in parallel on this pool; -Dgame.tickThreads=1 runs them all on the game thread
+    private final ForkJoinPool tickPool = Game.createTickPool(
+        Integer.getInteger("game.tickThreads", Runtime.getRuntime().availableProcessors()));
     
     public MainMenu(Stage stage) {
         this.stage = stage;
         this.playerId = loadOrGeneratePlayerId();
         createMenuScene();
+        
+        LeaderboardCache.getInstance().addListener(this::onLeaderboardUpdated);
     }
     
     private void createMenuScene() {
@@ -84,10 +119,19 @@ public class MainMenu {
         idBox.setAlignment(Pos.CENTER);
         idBox.getChildren().addAll(playerIdLabel, copyIdButton);
         
+        // Personal stats come from the local run history, so they show offline too
+        personalStatsLabel.setFont(Font.font("Arial", 13));
+        personalStatsLabel.setTextFill(Color.LIGHTGRAY);
+        personalStatsLabel.setTextAlignment(javafx.scene.text.TextAlignment.CENTER);
+        updatePersonalStats();
+        
         // Buttons
         Button playButton = createStyledButton("PLAY GAME", "#e94560");
         playButton.setOnAction(e -> startGame());
         
+        Button hordeButton = createStyledButton("HORDE TEST", "#0f3460");
+        hordeButton.setOnAction(e -> startGame(true));
+        
         Button leaderboardButton = createStyledButton("LEADERBOARD", "#0f3460");
         leaderboardButton.setOnAction(e -> showLeaderboard());
         
@@ -95,23 +139,35 @@ public class MainMenu {
         settingsButton.setOnAction(e -> showSettings());
         
         Button exitButton = createStyledButton("EXIT", "#533483");
-        exitButton.setOnAction(e -> stage.close());
+        exitButton.setOnAction(e -> {
+            if (game != null) {
+                game.dispose();
+            }
+            if (tickPool != null) {
+                tickPool.shutdown();
+            }
+            stage.close();
+        });
         
         // Firebase status
         Label firebaseStatus = new Label();
         firebaseStatus.setFont(Font.font("Arial", 12));
-        if (FirebaseService.getInstance().isInitialized()) {
-            firebaseStatus.setText("✓ Connected to Firebase");
-            firebaseStatus.setTextFill(Color.LIGHTGREEN);
-        } else {
-            firebaseStatus.setText("✗ Firebase not connected (Playing offline)");
-            firebaseStatus.setTextFill(Color.ORANGE);
-        }
+        updateFirebaseStatus(firebaseStatus, FirebaseService.getInstance().getStatus());
+        Tooltip requestMetrics = new Tooltip();
+        requestMetrics.setOnShowing(e -> requestMetrics.setText(FirebaseService.getInstance().getRequestMetricsSummary()));
+        firebaseStatus.setTooltip(requestMetrics);
+        FirebaseService.getInstance().statusProperty().addListener((obs, oldVal, newVal) -> {
+            updateFirebaseStatus(firebaseStatus, newVal);
+            if (newVal == ConnectionStatus.CONNECTED) {
+                LeaderboardCache.getInstance().prefetch();
+            }
+        });
         
         // Leaderboard preview box (hidden initially)
         leaderboardBox = new VBox(10);
         leaderboardBox.setAlignment(Pos.CENTER);
         leaderboardBox.setVisible(false);
+        createScoreList();
         leaderboardBox.setStyle("-fx-background-color: rgba(0, 0, 0, 0.7); -fx-padding: 20; -fx-background-radius: 10;");
         
         root.getChildren().addAll(
@@ -120,7 +176,9 @@ public class MainMenu {
             new Label(""), // Spacer
             nameBox,
             idBox,
+            personalStatsLabel,
             playButton,
+            hordeButton,
             leaderboardButton,
             settingsButton,
             exitButton,
@@ -132,6 +190,48 @@ public class MainMenu {
         menuScene = new Scene(root, 1280, 720);
     }
     
+    private void updatePersonalStats() {
+        RunHistoryStore history = RunHistoryStore.getInstance();
+        RunHistoryStore.Run best = history.getPersonalBest();
+        if (best == null) {
+            personalStatsLabel.setText("No runs yet");
+            return;
+        }
+        
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Runs: %d  |  Best: %d (level %d, %ds)", history.getRunCount(), best.score, best.level, best.survivalSeconds));
+        RunHistoryStore.DayStats today = history.getDay(java.time.LocalDate.now());
+        if (today != null) {
+            text.append(String.format("  |  Today: %d runs, best %d", today.runs, today.bestScore));
+        }
+        List<RunHistoryStore.Run> recent = history.getLastRuns(5);
+        text.append("\nRecent:");
+        for (RunHistoryStore.Run run : recent) {
+            text.append(' ').append(run.score);
+        }
+        personalStatsLabel.setText(text.toString());
+    }
+    
+    private void updateFirebaseStatus(Label firebaseStatus, ConnectionStatus status) {
+        switch (status) {
+            case CONNECTING:
+                firebaseStatus.setText("… Connecting to Firebase");
+                firebaseStatus.setTextFill(Color.LIGHTGRAY);
+                break;
+            case CONNECTED:
+                firebaseStatus.setText("✓ Connected to Firebase");
+                firebaseStatus.setTextFill(Color.LIGHTGREEN);
+                break;
+            case UNREACHABLE:
+                firebaseStatus.setText("⚠ Firebase unreachable (scores are saved locally and uploaded later)");
+                firebaseStatus.setTextFill(Color.ORANGE);
+                break;
+            default:
+                firebaseStatus.setText("✗ Firebase not connected (Playing offline)");
+                firebaseStatus.setTextFill(Color.ORANGE);
+        }
+    }
+    
     private Button createStyledButton(String text, String color) {
         Button button = new Button(text);
         button.setFont(Font.font("Arial", FontWeight.BOLD, 20));
@@ -171,55 +271,280 @@ public class MainMenu {
         return button;
     }
     
-    private void startGame() {
+    void startGame() {
+        startGame(false);
+    }
+    
+    /**
+     * Start a session, as a normal run or as a horde stress test that is not scored.
+     */
+    void startGame(boolean horde) {
+        GameWarmup.cancel(); // Done or not, the session gets the CPU now
+        stopLeaderboardStream();
         FirebaseService.getInstance().setCurrentPlayer(playerId);
-        new Game(stage, this, playerName);
+        if (game == null) {
+            game = new Game(stage, this, playerName, tickPool);
+        } else {
+            game.setPlayerName(playerName);
+        }
+        game.setHorde(horde);
+        game.start();
+    }
+    
+    Game getGame() {
+        return game;
     }
     
     private void showLeaderboard() {
         leaderboardBox.setVisible(!leaderboardBox.isVisible());
         
         if (leaderboardBox.isVisible()) {
-            leaderboardBox.getChildren().clear();
+            LeaderboardCache cache = LeaderboardCache.getInstance();
+            List<FirebaseService.ScoreEntry> cached = cache.get();
             
-            Label title = new Label("TOP SCORES");
-            title.setFont(Font.font("Arial", FontWeight.BOLD, 24));
-            title.setTextFill(Color.web("#e94560"));
-            leaderboardBox.getChildren().add(title);
+            if (cache.hasData()) {
+                // Show cached scores instantly; a background refresh updates them if stale
+                renderLeaderboard(cached);
+            } else if (isOnline()) {
+                renderLeaderboardMessage("Loading...", Color.WHITE);
+            } else {
+                renderLeaderboardMessage("Leaderboard unavailable in offline mode", Color.ORANGE);
+            }
+            startLeaderboardStream();
+            resetLeaderboardPager();
+        } else {
+            stopLeaderboardStream();
+            leaderboardPager = null;
+        }
+    }
+    
+    private void createScoreList() {
+        scoreList.setPrefSize(420, 300);
+        scoreList.setFixedCellSize(26);
+        scoreList.setFocusTraversable(false);
+        scoreList.setStyle("-fx-background-color: transparent; -fx-control-inner-background: transparent;");
+        
+        Label placeholder = new Label("No scores yet. Be the first!");
+        placeholder.setTextFill(Color.WHITE);
+        scoreList.setPlaceholder(placeholder);
+        
+        scoreList.setCellFactory(list -> new ListCell<>() {
+            {
+                setFont(Font.font("Arial", 16));
+                setTextFill(Color.WHITE);
+                setStyle("-fx-background-color: transparent;");
+            }
             
-            if (FirebaseService.getInstance().isInitialized()) {
-                Label loading = new Label("Loading...");
-                loading.setTextFill(Color.WHITE);
-                leaderboardBox.getChildren().add(loading);
+            @Override
+            protected void updateItem(FirebaseService.ScoreEntry entry, boolean empty) {
+                super.updateItem(entry, empty);
+                if (empty) {
+                    setText(null);
+                    return;
+                }
+                onLeaderboardRankShown(getIndex());
+                if (entry == null) {
+                    setText(String.format("%d. ...", getIndex() + 1)); // Dropped page, being fetched again
+                    return;
+                }
+                setText(String.format("%d. %s - %d points", getIndex() + 1, entry.playerName, entry.score));
+                
+                // Recycled cells near the end of the loaded ranks pull in the next page
+                if (getIndex() >= list.getItems().size() - PREFETCH_DISTANCE) {
+                    loadNextLeaderboardPage();
+                }
+            }
+        });
+    }
+    
+    private void resetLeaderboardPager() {
+        if (!FirebaseService.getInstance().isInitialized()) return;
+        leaderboardPager = new LeaderboardPager(PAGE_SIZE);
+        loadedPages.clear();
+        viewedPage = 0;
+        loadNextLeaderboardPage();
+    }
+    
+    /**
+     * Track the page in view; a dropped page is fetched again, and moving to another page
+     * drops the ones that are now far away (deferred, cells must not change the list while laid out).
+     */
+    private void onLeaderboardRankShown(int rank) {
+        LeaderboardPager pager = leaderboardPager;
+        if (pager == null) return;
+        int page = pager.getPageAt(rank);
+        if (page < 0) return;
+        
+        if (!loadedPages.get(page)) {
+            reloadLeaderboardPage(pager, page);
+        }
+        if (page != viewedPage) {
+            viewedPage = page;
+            FrameScheduler.getInstance().submit(FrameScheduler.Priority.LOW, leaderboardTrim);
+        }
+    }
+    
+    /**
+     * Replace the entries of pages more than KEEP_PAGES away from the one in view with null,
+     * so the entries held stay bounded however far the player scrolls. The first page holds
+     * the live top scores and is always kept.
+     */
+    private void dropFarLeaderboardPages() {
+        LeaderboardPager pager = leaderboardPager;
+        if (pager == null) return;
+        javafx.collections.ObservableList<FirebaseService.ScoreEntry> items = scoreList.getItems();
+        for (int page = loadedPages.nextSetBit(1); page >= 0; page = loadedPages.nextSetBit(page + 1)) {
+            if (Math.abs(page - viewedPage) <= KEEP_PAGES) continue;
+            int start = pager.getPageStart(page);
+            int end = Math.min(pager.getPageEnd(page), items.size());
+            if (start < end) {
+                items.remove(start, end);
+                items.addAll(start, java.util.Collections.nCopies(end - start, null));
+            }
+            loadedPages.clear(page);
+        }
+    }
+    
+    private void reloadLeaderboardPage(LeaderboardPager pager, int index) {
+        pager.reloadPage(index).thenAccept(page -> FrameScheduler.getInstance().submit(FrameScheduler.Priority.HIGH, () -> {
+            if (pager != leaderboardPager || loadedPages.get(page.index)) return;
+            javafx.collections.ObservableList<FirebaseService.ScoreEntry> items = scoreList.getItems();
+            for (int i = 0; i < page.entries.size(); i++) {
+                int rank = page.startRank + i;
+                if (rank < items.size() && items.get(rank) == null) {
+                    items.set(rank, page.entries.get(i));
+                }
+            }
+            loadedPages.set(page.index);
+        })).exceptionally(ex -> {
+            Log.warn("Failed to reload leaderboard page", "error", ex.getMessage());
+            return null;
+        });
+    }
+    
+    private void loadNextLeaderboardPage() {
+        LeaderboardPager pager = leaderboardPager;
+        if (pager == null || pager.isLoading() || pager.isExhausted()) return;
+        
+        pager.nextPage().thenAccept(page -> FrameScheduler.getInstance().submit(FrameScheduler.Priority.HIGH,
+            new FrameScheduler.Task() {
+                private int next = 0;
                 
-                FirebaseService.getInstance().getTopScores(10).thenAccept(scores -> {
-                    javafx.application.Platform.runLater(() -> {
-                        leaderboardBox.getChildren().clear();
-                        leaderboardBox.getChildren().add(title);
-                        
-                        if (scores.isEmpty()) {
-                            Label noScores = new Label("No scores yet. Be the first!");
-                            noScores.setTextFill(Color.WHITE);
-                            leaderboardBox.getChildren().add(noScores);
-                        } else {
-                            int rank = 1;
-                            for (FirebaseService.ScoreEntry entry : scores) {
-                                Label scoreLabel = new Label(
-                                    String.format("%d. %s - %d points", rank++, entry.playerName, entry.score)
-                                );
-                                scoreLabel.setFont(Font.font("Arial", 16));
-                                scoreLabel.setTextFill(Color.WHITE);
-                                leaderboardBox.getChildren().add(scoreLabel);
+                // Appends the page a few entries at a time, so a large page can span several frames
+                @Override
+                public boolean runSlice(long deadline) {
+                    if (pager != leaderboardPager) return true; // Leaderboard was closed or reopened meanwhile
+                    
+                    // Ranks already on screen (e.g. the live top scores) stay as they are
+                    do {
+                        for (int end = Math.min(next + 8, page.entries.size()); next < end; next++) {
+                            int rank = page.startRank + next;
+                            if (rank == scoreList.getItems().size()) {
+                                scoreList.getItems().add(page.entries.get(next));
                             }
                         }
-                    });
-                });
-            } else {
-                Label offlineMsg = new Label("Leaderboard unavailable in offline mode");
-                offlineMsg.setTextFill(Color.ORANGE);
-                leaderboardBox.getChildren().add(offlineMsg);
+                    } while (next < page.entries.size() && System.nanoTime() < deadline);
+                    if (next < page.entries.size()) return false;
+                    
+                    loadedPages.set(page.index);
+                    leaderboardMetricsLabel.setText(LeaderboardCache.getInstance().getMetricsSummary()
+                        + String.format(", %d ranks in %d fetches", scoreList.getItems().size(), pager.getFetchCount()));
+                    return true;
+                }
+            })).exceptionally(ex -> {
+            Log.warn("Failed to load leaderboard page", "error", ex.getMessage());
+            return null;
+        });
+    }
+    
+    /**
+     * Subscribe to live leaderboard changes while the leaderboard is visible.
+     * Updates go through the cache, which persists them and notifies onLeaderboardUpdated.
+     */
+    private void startLeaderboardStream() {
+        if (leaderboardStream != null || !FirebaseService.getInstance().isInitialized()) return;
+        
+        leaderboardStream = new LeaderboardStream(LEADERBOARD_SIZE);
+        leaderboardStream.addListener(LeaderboardCache.getInstance()::offer);
+        leaderboardStream.start();
+    }
+    
+    private void stopLeaderboardStream() {
+        if (leaderboardStream != null) {
+            leaderboardStream.stop();
+            leaderboardStream = null;
+        }
+    }
+    
+    private void onLeaderboardUpdated(List<FirebaseService.ScoreEntry> scores) {
+        latestScores = scores;
+        FrameScheduler.getInstance().submit(FrameScheduler.Priority.HIGH, leaderboardRender);
+    }
+    
+    private Label createLeaderboardTitle() {
+        Label title = new Label("TOP SCORES");
+        title.setFont(Font.font("Arial", FontWeight.BOLD, 24));
+        title.setTextFill(Color.web("#e94560"));
+        return title;
+    }
+    
+    private void renderLeaderboardMessage(String message, Color color) {
+        leaderboardBox.getChildren().clear();
+        leaderboardBox.getChildren().add(createLeaderboardTitle());
+        
+        Label messageLabel = new Label(message);
+        messageLabel.setTextFill(color);
+        leaderboardBox.getChildren().add(messageLabel);
+    }
+    
+    /**
+     * Render the top scores into the list. Unchanged top scores leave the (possibly long,
+     * paged) list alone. When they changed, ranks below them may have shifted too (a new
+     * score pushes every rank down one), so the list restarts from the new top and pages
+     * are fetched again from a consistent state rather than patched in place.
+     */
+    private void renderLeaderboard(List<FirebaseService.ScoreEntry> scores) {
+        if (!leaderboardBox.getChildren().contains(scoreList)) {
+            leaderboardStatusLabel.setFont(Font.font("Arial", 11));
+            leaderboardStatusLabel.setTextFill(Color.LIGHTGRAY);
+            leaderboardMetricsLabel.setFont(Font.font("Arial", 10));
+            leaderboardMetricsLabel.setTextFill(Color.GRAY);
+            
+            leaderboardBox.getChildren().clear();
+            leaderboardBox.getChildren().addAll(createLeaderboardTitle(), scoreList, leaderboardStatusLabel, leaderboardMetricsLabel);
+        }
+        
+        javafx.collections.ObservableList<FirebaseService.ScoreEntry> items = scoreList.getItems();
+        // Not paging (offline), the list is exactly the top scores
+        boolean changed = leaderboardPager == null ? items.size() != scores.size() : items.size() < scores.size();
+        for (int i = 0; i < scores.size() && !changed; i++) {
+            changed = items.get(i) == null || !sameEntry(items.get(i), scores.get(i));
+        }
+        if (changed) {
+            items.setAll(scores);
+            if (leaderboardPager != null) {
+                resetLeaderboardPager();
             }
         }
+        
+        LeaderboardCache cache = LeaderboardCache.getInstance();
+        if (leaderboardStream != null) {
+            leaderboardStatusLabel.setText("● Live");
+        } else if (cache.isStale()) {
+            leaderboardStatusLabel.setText(isOnline() ? "Refreshing..." : "Offline - showing cached scores");
+        } else {
+            leaderboardStatusLabel.setText("");
+        }
+        leaderboardMetricsLabel.setText(cache.getMetricsSummary());
+    }
+    
+    private static boolean isOnline() {
+        ConnectionStatus status = FirebaseService.getInstance().getStatus();
+        return status == ConnectionStatus.CONNECTING || status == ConnectionStatus.CONNECTED;
+    }
+    
+    private static boolean sameEntry(FirebaseService.ScoreEntry a, FirebaseService.ScoreEntry b) {
+        return a.score == b.score && a.timestamp == b.timestamp && a.playerName.equals(b.playerName);
     }
     
     private void showSettings() {
@@ -246,12 +571,12 @@ public class MainMenu {
             if (Files.exists(idFile)) {
                 String savedId = Files.readString(idFile).trim();
                 if (!savedId.isEmpty()) {
-                    System.out.println("Loaded existing player ID: " + savedId);
+                    Log.info("Loaded existing player ID", "playerId", savedId);
                     return savedId;
                 }
             }
         } catch (IOException e) {
-            System.err.println("Could not read player ID file: " + e.getMessage());
+            Log.warn("Could not read player ID file", "error", e.getMessage());
         }
         
         // Generate new player ID
@@ -259,9 +584,9 @@ public class MainMenu {
         
         try {
             Files.writeString(idFile, newId);
-            System.out.println("Generated new player ID: " + newId);
+            Log.info("Generated new player ID", "playerId", newId);
         } catch (IOException e) {
-            System.err.println("Could not save player ID: " + e.getMessage());
+            Log.warn("Could not save player ID", "error", e.getMessage());
         }
         
         return newId;
@@ -270,6 +595,11 @@ public class MainMenu {
     public void show() {
         stage.setScene(menuScene);
         stage.setTitle("Post-Apocalyptic Runner - Main Menu");
+        updatePersonalStats();
+        
+        // Warm the leaderboard cache and the JIT while the player is still on the menu
+        LeaderboardCache.getInstance().prefetch();
+        GameWarmup.start(tickPool);
     }
     
     public Scene getScene() {
@@ -2,61 +2,173 @@ package demo;
 
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Random;
 
+/**
+ * Particles are kept as a structure of arrays, so the per-tick update is one tight loop over
+ * primitive arrays (see {@link EntityKernels#integrate}).
+ */
 public class ParticleSystem {
-    private List<Particle> particles;
+    private static final double GRAVITY = 0.1;
+    
+    /**
+     * Particle fields, one array each; entries [0, count) are in use.
+     */
+    private static class Buffer {
+        double[] x, y, vx, vy, size, life, maxLife;
+        Color[] color;
+        int count;
+        
+        Buffer(int capacity) {
+            x = new double[capacity];
+            y = new double[capacity];
+            vx = new double[capacity];
+            vy = new double[capacity];
+            size = new double[capacity];
+            life = new double[capacity];
+            maxLife = new double[capacity];
+            color = new Color[capacity];
+        }
+        
+        void add(double px, double py, double pvx, double pvy, double psize, Color pcolor, double plife) {
+            if (count == x.length) {
+                int capacity = x.length * 2;
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                vx = Arrays.copyOf(vx, capacity);
+                vy = Arrays.copyOf(vy, capacity);
+                size = Arrays.copyOf(size, capacity);
+                life = Arrays.copyOf(life, capacity);
+                maxLife = Arrays.copyOf(maxLife, capacity);
+                color = Arrays.copyOf(color, capacity);
+            }
+            x[count] = px;
+            y[count] = py;
+            vx[count] = pvx;
+            vy[count] = pvy;
+            size[count] = psize;
+            life[count] = plife;
+            maxLife[count] = plife;
+            color[count] = pcolor;
+            count++;
+        }
+        
+        void copy(int from, Buffer target) {
+            target.add(x[from], y[from], vx[from], vy[from], size[from], color[from], life[from]);
+            target.maxLife[target.count - 1] = maxLife[from];
+        }
+    }
+    
+    private final EntityKernels kernels = EntityKernels.get();
+    private final Buffer particles = new Buffer(256);
+    // New particles wait here until the next finishUpdate(), so particles can be updated on other
+    // threads while effects are being created
+    private final Buffer spawned = new Buffer(64);
     private Random random;
+    private boolean enabled = true;
     
     public ParticleSystem() {
-        this.particles = new ArrayList<>();
         this.random = new Random();
     }
     
+    /**
+     * A disabled system ignores every create call (headless simulation).
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
     public void update() {
-        Iterator<Particle> iterator = particles.iterator();
-        while (iterator.hasNext()) {
-            Particle particle = iterator.next();
-            particle.update();
-            if (!particle.isActive()) {
-                iterator.remove();
+        updateRange(0, getUpdateCount());
+        finishUpdate();
+    }
+    
+    /**
+     * Particles to step with {@link #updateRange(int, int)}; each one is independent of the others.
+     */
+    int getUpdateCount() {
+        return particles.count;
+    }
+    
+    void updateRange(int from, int to) {
+        kernels.integrate(particles.x, particles.y, particles.vx, particles.vy, particles.life, from, to, GRAVITY);
+    }
+    
+    /**
+     * Drop finished particles and take in the ones spawned since the last update, stepping those once too.
+     */
+    void finishUpdate() {
+        Buffer p = particles;
+        int kept = 0;
+        for (int i = 0; i < p.count; i++) {
+            if (p.life[i] > 0) {
+                if (kept != i) {
+                    p.x[kept] = p.x[i];
+                    p.y[kept] = p.y[i];
+                    p.vx[kept] = p.vx[i];
+                    p.vy[kept] = p.vy[i];
+                    p.size[kept] = p.size[i];
+                    p.life[kept] = p.life[i];
+                    p.maxLife[kept] = p.maxLife[i];
+                    p.color[kept] = p.color[i];
+                }
+                kept++;
+            }
+        }
+        Arrays.fill(p.color, kept, p.count, null);
+        p.count = kept;
+        
+        kernels.integrate(spawned.x, spawned.y, spawned.vx, spawned.vy, spawned.life, 0, spawned.count, GRAVITY);
+        for (int i = 0; i < spawned.count; i++) {
+            if (spawned.life[i] > 0) {
+                spawned.copy(i, p);
             }
         }
+        Arrays.fill(spawned.color, 0, spawned.count, null);
+        spawned.count = 0;
     }
     
     public void render(GraphicsContext gc) {
-        for (Particle particle : particles) {
-            particle.render(gc);
+        Buffer p = particles;
+        for (int i = 0; i < p.count; i++) {
+            Color color = p.color[i];
+            double alpha = p.life[i] / p.maxLife[i];
+            gc.setFill(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha * color.getOpacity()));
+            gc.fillOval(p.x[i] - p.size[i] / 2, p.y[i] - p.size[i] / 2, p.size[i], p.size[i]);
         }
     }
     
     // Dust particles when player lands
     public void createLandingDust(double x, double y) {
+        if (!enabled) return;
+        
         for (int i = 0; i < 15; i++) {
             double vx = (random.nextDouble() - 0.5) * 4;
             double vy = -random.nextDouble() * 3;
             double size = 3 + random.nextDouble() * 4;
             Color dustColor = new Color(0.6, 0.5, 0.4, 0.7);
-            particles.add(new Particle(x + random.nextDouble() * 50, y + 50, vx, vy, size, dustColor, 30));
+            spawned.add(x + random.nextDouble() * 50, y + 50, vx, vy, size, dustColor, 30);
         }
     }
     
     // Running dust trail
     public void createRunningDust(double x, double y) {
+        if (!enabled) return;
+        
         if (random.nextDouble() < 0.3) { // Not every frame
             double vx = -random.nextDouble() * 2;
             double vy = -random.nextDouble() * 2;
             double size = 2 + random.nextDouble() * 3;
             Color dustColor = new Color(0.6, 0.5, 0.4, 0.5);
-            particles.add(new Particle(x + random.nextDouble() * 30, y + 50, vx, vy, size, dustColor, 20));
+            spawned.add(x + random.nextDouble() * 30, y + 50, vx, vy, size, dustColor, 20);
         }
     }
     
     // Explosion effect for enemies
     public void createExplosion(double x, double y, Color baseColor) {
+        if (!enabled) return;
+        
         for (int i = 0; i < 25; i++) {
             double angle = random.nextDouble() * Math.PI * 2;
             double speed = 2 + random.nextDouble() * 4;
@@ -70,23 +182,27 @@ public class ParticleSystem {
             double b = Math.max(0.0, Math.min(1.0, baseColor.getBlue() + (random.nextDouble() - 0.5) * 0.3));
             Color particleColor = new Color(r, g, b, 0.8);
             
-            particles.add(new Particle(x + 20, y + 20, vx, vy, size, particleColor, 40));
+            spawned.add(x + 20, y + 20, vx, vy, size, particleColor, 40);
         }
     }
     
     // Hit effect when player takes damage
     public void createHitEffect(double x, double y) {
+        if (!enabled) return;
+        
         for (int i = 0; i < 10; i++) {
             double vx = (random.nextDouble() - 0.5) * 6;
             double vy = (random.nextDouble() - 0.5) * 6;
             double size = 3 + random.nextDouble() * 4;
             Color hitColor = new Color(1.0, 0, 0, 0.8);
-            particles.add(new Particle(x + 25, y + 25, vx, vy, size, hitColor, 25));
+            spawned.add(x + 25, y + 25, vx, vy, size, hitColor, 25);
         }
     }
     
     // Ambient environmental particles (ash, debris)
     public void createAmbientParticles(double screenWidth, double screenHeight) {
+        if (!enabled) return;
+        
         if (random.nextDouble() < 0.05) { // Spawn occasionally
             double x = screenWidth + 10;
             double y = random.nextDouble() * screenHeight * 0.7; // Upper portion of screen
@@ -94,11 +210,11 @@ public class ParticleSystem {
             double vy = random.nextDouble() * 0.5;
             double size = 2 + random.nextDouble() * 3;
             Color ashColor = new Color(0.7, 0.7, 0.7, 0.4);
-            particles.add(new Particle(x, y, vx, vy, size, ashColor, 200));
+            spawned.add(x, y, vx, vy, size, ashColor, 200);
         }
     }
     
     public int getParticleCount() {
-        return particles.size();
+        return particles.count + spawned.count;
     }
 }
@@ -4,12 +4,18 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
 public class Projectile {
+    static final double SIZE = 8;
+    // The solid core drawn by render; the glow around it is translucent
+    static final CollisionMask MASK = new CollisionMask.Builder().oval(0, 0, 8, 8).build();
+    
     private double x;
     private double y;
     private double velocityX;
     private double velocityY;
-    private double width = 8;
-    private double height = 8;
+    private double previousX; // Position at the start of the tick, for swept collision
+    private double previousY;
+    private double width = SIZE;
+    private double height = SIZE;
     private boolean active = true;
     private boolean fromPlayer;
     private Color color;
@@ -17,6 +23,8 @@ public class Projectile {
     public Projectile(double x, double y, double velocityX, double velocityY, boolean fromPlayer) {
         this.x = x;
         this.y = y;
+        this.previousX = x;
+        this.previousY = y;
         this.velocityX = velocityX;
         this.velocityY = velocityY;
         this.fromPlayer = fromPlayer;
@@ -24,6 +32,8 @@ public class Projectile {
     }
     
     public void update() {
+        previousX = x;
+        previousY = y;
         x += velocityX;
         y += velocityY;
         
@@ -50,12 +60,103 @@ public class Projectile {
     
     public boolean collidesWith(double px, double py, double pWidth, double pHeight) {
         if (!active) return false;
+        return boxOverlaps(px, py, pWidth, pHeight) && MASK.overlapsRect(x, y, px, py, pWidth, pHeight);
+    }
+    
+    private boolean boxOverlaps(double px, double py, double pWidth, double pHeight) {
         return x < px + pWidth && 
                x + width > px && 
                y < py + pHeight && 
                y + height > py;
     }
     
+    /**
+     * Swept AABB test of this tick's movement against a box that ended the tick at (bx, by) after
+     * moving by (moveX, moveY). The projectile's path relative to the box is cast as a ray against
+     * the box grown by the projectile's size, so a fast projectile cannot pass through a thin target.
+     * Returns the time of impact in [0, 1] (0 = start of the tick), or -1 if they never overlap.
+     * Every overlap of the boxes at the end of the tick is a hit at time 1 at the latest.
+     */
+    public double sweptImpactTime(double bx, double by, double bWidth, double bHeight, double moveX, double moveY) {
+        if (!active) return -1;
+        return sweptImpactTime(previousX, previousY, x, y, bx, by, bWidth, bHeight, moveX, moveY);
+    }
+    
+    /**
+     * {@link #sweptImpactTime(double, double, double, double, double, double)} for a projectile
+     * that moved from (previousX, previousY) to (x, y), for projectiles kept outside this class.
+     */
+    static double sweptImpactTime(double previousX, double previousY, double x, double y,
+                                  double bx, double by, double bWidth, double bHeight, double moveX, double moveY) {
+        double dx = (x - previousX) - moveX;
+        double dy = (y - previousY) - moveY;
+        // Box at the start of the tick, grown so the projectile is a point at its top left corner
+        double minX = bx - moveX - SIZE;
+        double maxX = bx - moveX + bWidth;
+        double minY = by - moveY - SIZE;
+        double maxY = by - moveY + bHeight;
+        
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        if (dx != 0) {
+            double t1 = (minX - previousX) / dx;
+            double t2 = (maxX - previousX) / dx;
+            enter = Math.min(t1, t2);
+            exit = Math.max(t1, t2);
+        } else if (previousX <= minX || previousX >= maxX) {
+            exit = enter; // Never overlaps on this axis
+        }
+        if (dy != 0) {
+            double t1 = (minY - previousY) / dy;
+            double t2 = (maxY - previousY) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        } else if (previousY <= minY || previousY >= maxY) {
+            exit = enter;
+        }
+        
+        if (enter < exit && enter < 1 && exit > 0) {
+            return Math.max(enter, 0);
+        }
+        // Rounding in the divisions must not lose a hit the end position test finds
+        boolean overlapsAtEnd = x < bx + bWidth && x + SIZE > bx && y < by + bHeight && y + SIZE > by;
+        return overlapsAtEnd ? 1 : -1;
+    }
+    
+    /**
+     * Pixel-accurate time of impact against a target drawn with {@code mask} that ended the tick
+     * at (tx, ty) after moving by (moveX, moveY), or -1. The swept test on the mask bounds finds
+     * when the boxes start to overlap; from there the masks are compared at steps of at most a
+     * pixel of relative movement, ending with the positions at the end of the tick.
+     */
+    public double impactTime(CollisionMask mask, double tx, double ty, double moveX, double moveY) {
+        if (!active) return -1;
+        return impactTime(previousX, previousY, x, y, mask, tx, ty, moveX, moveY);
+    }
+    
+    /**
+     * {@link #impactTime(CollisionMask, double, double, double, double)} for a projectile that
+     * moved from (previousX, previousY) to (x, y).
+     */
+    static double impactTime(double previousX, double previousY, double x, double y,
+                             CollisionMask mask, double tx, double ty, double moveX, double moveY) {
+        double enter = sweptImpactTime(previousX, previousY, x, y, tx + mask.getLeft(), ty + mask.getTop(),
+            mask.getWidth(), mask.getHeight(), moveX, moveY);
+        if (enter < 0) return -1;
+        double dx = (x - previousX) - moveX;
+        double dy = (y - previousY) - moveY;
+        int steps = Math.max(1, (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy)) * (1 - enter)));
+        for (int step = 0; step < steps; step++) {
+            double t = enter + (1 - enter) * step / steps;
+            double atX = previousX + (x - previousX) * t;
+            double atY = previousY + (y - previousY) * t;
+            if (MASK.overlaps(atX, atY, mask, tx - moveX * (1 - t), ty - moveY * (1 - t))) {
+                return t;
+            }
+        }
+        return MASK.overlaps(x, y, mask, tx, ty) ? 1 : -1;
+    }
+    
     public boolean isActive() {
         return active;
     }
@@ -75,4 +176,20 @@ public class Projectile {
     public double getY() {
         return y;
     }
+    
+    public double getPreviousX() {
+        return previousX;
+    }
+    
+    public double getPreviousY() {
+        return previousY;
+    }
+    
+    public double getWidth() {
+        return width;
+    }
+    
+    public double getHeight() {
+        return height;
+    }
 }
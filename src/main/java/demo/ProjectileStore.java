@@ -0,0 +1,143 @@
+package demo;
+
+import java.util.Arrays;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Enemy bullets as parallel primitive arrays (structure of arrays), so thousands of them cost
+ * no objects and move in one vectorizable pass (see {@link EntityKernels#integrate}). The
+ * arrays only grow and are reused from tick to tick; a removed bullet is replaced by the last
+ * one, so the order changes but stays the same from run to run. Bullets have the size and the
+ * collision mask of a {@link Projectile}.
+ */
+final class ProjectileStore {
+    private static final double LIFETIME = 600; // Ticks; bullets leave the screen long before
+    private static final Color GLOW = new Color(1, 0, 0, 0.3);
+
+    private final EntityKernels kernels = EntityKernels.get();
+    private double[] x = new double[256];
+    private double[] y = new double[256];
+    private double[] previousX = new double[256];
+    private double[] previousY = new double[256];
+    private double[] velocityX = new double[256];
+    private double[] velocityY = new double[256];
+    private double[] life = new double[256];
+    private int size = 0;
+
+    int size() {
+        return size;
+    }
+
+    void add(double bulletX, double bulletY, double bulletVelocityX, double bulletVelocityY) {
+        if (size == x.length) {
+            grow();
+        }
+        x[size] = previousX[size] = bulletX;
+        y[size] = previousY[size] = bulletY;
+        velocityX[size] = bulletVelocityX;
+        velocityY[size] = bulletVelocityY;
+        life[size] = LIFETIME;
+        size++;
+    }
+
+    /**
+     * Move bullets [from, to) one tick. Ranges can move in parallel.
+     */
+    void moveRange(int from, int to) {
+        System.arraycopy(x, from, previousX, from, to - from);
+        System.arraycopy(y, from, previousY, from, to - from);
+        kernels.integrate(x, y, velocityX, velocityY, life, from, to, 0);
+    }
+
+    /**
+     * Drop bullets that left the screen area or expired.
+     */
+    void removeOffscreen(double left, double top, double right, double bottom) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (x[i] < left || x[i] > right || y[i] < top || y[i] > bottom || life[i] <= 0) {
+                remove(i);
+            }
+        }
+    }
+
+    /**
+     * Index of the first bullet (in store order) that hits the target this tick, or -1; see
+     * {@link Projectile#impactTime(CollisionMask, double, double, double, double)}.
+     */
+    int findHit(CollisionMask mask, double targetX, double targetY, double moveX, double moveY) {
+        // Broad phase on the boxes both swept this tick
+        double left = Math.min(targetX, targetX - moveX) + mask.getLeft() - Projectile.SIZE;
+        double right = Math.max(targetX, targetX - moveX) + mask.getLeft() + mask.getWidth();
+        double top = Math.min(targetY, targetY - moveY) + mask.getTop() - Projectile.SIZE;
+        double bottom = Math.max(targetY, targetY - moveY) + mask.getTop() + mask.getHeight();
+        for (int i = 0; i < size; i++) {
+            if (Math.max(x[i], previousX[i]) <= left || Math.min(x[i], previousX[i]) >= right
+                || Math.max(y[i], previousY[i]) <= top || Math.min(y[i], previousY[i]) >= bottom) {
+                continue;
+            }
+            if (Projectile.impactTime(previousX[i], previousY[i], x[i], y[i], mask, targetX, targetY, moveX, moveY) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    void remove(int i) {
+        size--;
+        x[i] = x[size];
+        y[i] = y[size];
+        previousX[i] = previousX[size];
+        previousY[i] = previousY[size];
+        velocityX[i] = velocityX[size];
+        velocityY[i] = velocityY[size];
+        life[i] = life[size];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Draw like enemy {@link Projectile}s, one layer at a time so the fill changes three times
+     * per frame instead of three times per bullet.
+     */
+    void render(GraphicsContext gc) {
+        double diameter = Projectile.SIZE;
+        gc.setFill(GLOW);
+        for (int i = 0; i < size; i++) {
+            gc.fillOval(x[i] - 4, y[i] - 4, diameter + 8, diameter + 8);
+        }
+        gc.setFill(Color.RED);
+        for (int i = 0; i < size; i++) {
+            gc.fillOval(x[i], y[i], diameter, diameter);
+        }
+        gc.setFill(Color.WHITE);
+        for (int i = 0; i < size; i++) {
+            gc.fillOval(x[i] + 2, y[i] + 2, diameter - 4, diameter - 4);
+        }
+    }
+
+    /**
+     * Checksum of the bullets' positions, to compare runs tick by tick.
+     */
+    long checksum() {
+        long hash = size;
+        for (int i = 0; i < size; i++) {
+            hash = hash * 31 + Double.hashCode(x[i]) * 7L + Double.hashCode(y[i]);
+        }
+        return hash;
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        life = Arrays.copyOf(life, capacity);
+    }
+}
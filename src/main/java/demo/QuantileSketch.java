@@ -0,0 +1,322 @@
+package demo;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mergeable KLL quantile sketch over integer scores.
+ * Keeps O(k log(n/k)) items no matter how many scores are added, and answers
+ * rank queries with an error of roughly 1.7/k of n (about 1% for k = 200).
+ * Serializes to a small JSON object so it can live in a single database node.
+ * Levels are stored as base64 strings of packed ints under "h0", "h1", ... keys: the
+ * Realtime Database drops empty arrays and turns arrays into index-keyed objects,
+ * which would not read back as the levels that were written.
+ */
+public class QuantileSketch {
+    public static final int DEFAULT_K = 200;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final String LEVEL_PREFIX = "h"; // Keys must not be plain indexes, or the database returns an array
+
+    private final int k;
+    private long n = 0;
+    // levels.get(h) holds items of weight 2^h
+    private final List<int[]> levels = new ArrayList<>();
+    private final List<Integer> levelSizes = new ArrayList<>();
+    private final Random random = new Random();
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        this.k = k;
+        addLevel();
+    }
+
+    public void add(int value) {
+        append(0, value);
+        n++;
+        compressIfNeeded();
+    }
+
+    /**
+     * Merge another sketch into this one. The other sketch is not modified.
+     */
+    public void merge(QuantileSketch other) {
+        while (levels.size() < other.levels.size()) {
+            addLevel();
+        }
+        for (int h = 0; h < other.levels.size(); h++) {
+            int[] items = other.levels.get(h);
+            for (int i = 0; i < other.levelSizes.get(h); i++) {
+                append(h, items[i]);
+            }
+        }
+        n += other.n;
+        compressIfNeeded();
+    }
+
+    /**
+     * Estimated number of added values strictly below {@code value}.
+     */
+    public long rank(int value) {
+        long rank = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            int[] items = levels.get(h);
+            int count = 0;
+            for (int i = 0; i < levelSizes.get(h); i++) {
+                if (items[i] < value) count++;
+            }
+            rank += (long) count << h;
+        }
+        return rank;
+    }
+
+    /**
+     * Fraction of added values strictly below {@code value}, in [0, 1].
+     */
+    public double percentileRank(int value) {
+        return n == 0 ? 0 : Math.min(1.0, (double) rank(value) / n);
+    }
+
+    /**
+     * Estimated value at quantile q in [0, 1].
+     */
+    public int quantile(double q) {
+        List<long[]> weighted = new ArrayList<>(); // {value, weight}
+        for (int h = 0; h < levels.size(); h++) {
+            int[] items = levels.get(h);
+            for (int i = 0; i < levelSizes.get(h); i++) {
+                weighted.add(new long[] {items[i], 1L << h});
+            }
+        }
+        if (weighted.isEmpty()) return 0;
+
+        weighted.sort((a, b) -> Long.compare(a[0], b[0]));
+        long target = (long) (q * n);
+        long cumulative = 0;
+        for (long[] item : weighted) {
+            cumulative += item[1];
+            if (cumulative > target) return (int) item[0];
+        }
+        return (int) weighted.get(weighted.size() - 1)[0];
+    }
+
+    public long getCount() {
+        return n;
+    }
+
+    public int getRetainedItems() {
+        int total = 0;
+        for (int size : levelSizes) total += size;
+        return total;
+    }
+
+    private void addLevel() {
+        levels.add(new int[MIN_LEVEL_CAPACITY]);
+        levelSizes.add(0);
+    }
+
+    private void append(int level, int value) {
+        int[] items = levels.get(level);
+        int size = levelSizes.get(level);
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+            levels.set(level, items);
+        }
+        items[size] = value;
+        levelSizes.set(level, size + 1);
+    }
+
+    private int capacity(int level) {
+        int height = levels.size();
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, height - level - 1)));
+    }
+
+    /**
+     * While the sketch is over its total capacity, compact the lowest full level.
+     */
+    private void compressIfNeeded() {
+        while (getRetainedItems() >= totalCapacity()) {
+            for (int h = 0; h < levels.size(); h++) {
+                if (levelSizes.get(h) >= capacity(h)) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int h = 0; h < levels.size(); h++) total += capacity(h);
+        return total;
+    }
+
+    /**
+     * Sort a level and promote every other item (random offset) to the next level.
+     * An odd leftover item stays behind so no weight is lost.
+     */
+    private void compact(int level) {
+        if (level + 1 == levels.size()) {
+            addLevel();
+        }
+        int[] items = levels.get(level);
+        int size = levelSizes.get(level);
+        Arrays.sort(items, 0, size);
+
+        boolean odd = size % 2 == 1;
+        int leftover = items[size - 1];
+        if (odd) size--;
+
+        int offset = random.nextBoolean() ? 1 : 0;
+        for (int i = offset; i < size; i += 2) {
+            append(level + 1, items[i]);
+        }
+
+        levelSizes.set(level, 0);
+        if (odd) {
+            append(level, leftover);
+        }
+    }
+
+    public String toJson() {
+        StringWriter out = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(out)) {
+            writer.beginObject();
+            writer.name("k").value(k);
+            writer.name("n").value(n);
+            writer.name("height").value(levels.size());
+            writer.name("levels").beginObject();
+            for (int h = 0; h < levels.size(); h++) {
+                int size = levelSizes.get(h);
+                if (size == 0) continue; // Missing key = empty level
+                ByteBuffer packed = ByteBuffer.allocate(size * Integer.BYTES);
+                packed.asIntBuffer().put(levels.get(h), 0, size);
+                writer.name(LEVEL_PREFIX + h).value(Base64.getEncoder().encodeToString(packed.array()));
+            }
+            writer.endObject();
+            writer.endObject();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringWriter does not throw
+        }
+        return out.toString();
+    }
+
+    /**
+     * Read a sketch written by {@link #toJson()}. A JSON null gives an empty sketch.
+     * Also reads the older array-of-arrays layout, including the shapes the database turns it
+     * into (nulls for dropped empty levels, or an object keyed by level index).
+     */
+    public static QuantileSketch fromJson(Reader body) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return new QuantileSketch();
+        }
+
+        int k = DEFAULT_K;
+        long n = 0;
+        int height = 1;
+        List<int[]> levels = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "k":
+                    k = reader.nextInt();
+                    break;
+                case "n":
+                    n = reader.nextLong();
+                    break;
+                case "height":
+                    height = Math.max(height, reader.nextInt());
+                    break;
+                case "levels":
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        for (int h = 0; reader.hasNext(); h++) {
+                            readLevel(reader, h, levels, sizes);
+                        }
+                        reader.endArray();
+                    } else if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            String key = reader.nextName();
+                            int h = Integer.parseInt(key.startsWith(LEVEL_PREFIX) ? key.substring(LEVEL_PREFIX.length()) : key);
+                            readLevel(reader, h, levels, sizes);
+                        }
+                        reader.endObject();
+                    } else {
+                        reader.skipValue(); // null: every level was empty
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        QuantileSketch sketch = new QuantileSketch(k);
+        sketch.levels.clear();
+        sketch.levelSizes.clear();
+        for (int h = 0; h < Math.max(height, levels.size()); h++) {
+            if (h < levels.size() && levels.get(h) != null) {
+                sketch.levels.add(levels.get(h));
+                sketch.levelSizes.add(sizes.get(h));
+            } else {
+                sketch.addLevel();
+            }
+        }
+        sketch.n = n;
+        return sketch;
+    }
+
+    /**
+     * Read one level (a packed string, an array of ints, or null for empty) into slot h.
+     */
+    private static void readLevel(JsonReader reader, int h, List<int[]> levels, List<Integer> sizes) throws IOException {
+        int[] items;
+        int size;
+        switch (reader.peek()) {
+            case STRING:
+                ByteBuffer packed = ByteBuffer.wrap(Base64.getDecoder().decode(reader.nextString()));
+                size = packed.remaining() / Integer.BYTES;
+                items = new int[Math.max(MIN_LEVEL_CAPACITY, size)];
+                packed.asIntBuffer().get(items, 0, size);
+                break;
+            case BEGIN_ARRAY:
+                items = new int[MIN_LEVEL_CAPACITY];
+                size = 0;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (size == items.length) items = Arrays.copyOf(items, size * 2);
+                    items[size++] = reader.nextInt();
+                }
+                reader.endArray();
+                break;
+            default:
+                reader.skipValue();
+                return;
+        }
+        while (levels.size() <= h) {
+            levels.add(null);
+            sizes.add(0);
+        }
+        levels.set(h, items);
+        sizes.set(h, size);
+    }
+}
@@ -0,0 +1,210 @@
+package demo;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Accuracy and size check for {@link QuantileSketch} against exact ranks on
+ * synthetic score distributions. Also checks that merged and JSON round-tripped
+ * sketches stay within the same bound, including after the rewrites the Realtime Database
+ * applies to stored JSON (empty arrays dropped, arrays turned into index-keyed objects),
+ * for the current layout and the older array-of-arrays one. Exits with status 1 if any
+ * check fails.
+ *
+ * Usage: java -cp target/classes:... demo.QuantileSketchCheck [scores] [k]
+ */
+public class QuantileSketchCheck {
+    private static final double MAX_RANK_ERROR = 0.02;   // Fraction of n
+    private static final int MAX_JSON_BYTES = 16 * 1024; // Must stay a small node
+    private static final int QUERY_POINTS = 200;
+    private static final int MERGED_PARTS = 8;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : QuantileSketch.DEFAULT_K;
+        Random random = new Random(42);
+
+        boolean passed = true;
+        System.out.printf("%-16s %-8s %10s %9s %10s %12s%n", "distribution", "mode", "max error", "retained", "json bytes", "rank query");
+        passed &= check("uniform", count, k, () -> random.nextInt(100_000));
+        passed &= check("normal", count, k, () -> Math.max(0, (int) (5_000 + random.nextGaussian() * 1_500)));
+        passed &= check("exponential", count, k, () -> (int) (-Math.log(1 - random.nextDouble()) * 2_000));
+        passed &= check("coarse (x100)", count, k, () -> random.nextInt(50) * 100); // Heavy ties
+        passed &= check("sorted", count, k, new IntSupplier() {
+            int next = 0;
+
+            @Override
+            public int getAsInt() {
+                return next++;
+            }
+        });
+
+        System.out.println(passed ? "All checks passed" : "Some checks FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(String name, int count, int k, IntSupplier source) throws IOException {
+        int[] values = new int[count];
+        QuantileSketch single = new QuantileSketch(k);
+        QuantileSketch[] parts = new QuantileSketch[MERGED_PARTS];
+        for (int i = 0; i < MERGED_PARTS; i++) {
+            parts[i] = new QuantileSketch(k);
+        }
+        for (int i = 0; i < count; i++) {
+            values[i] = source.getAsInt();
+            single.add(values[i]);
+            parts[i % MERGED_PARTS].add(values[i]);
+        }
+
+        QuantileSketch merged = new QuantileSketch(k);
+        for (QuantileSketch part : parts) {
+            merged.merge(part);
+        }
+        QuantileSketch roundTripped = QuantileSketch.fromJson(new StringReader(single.toJson()));
+        QuantileSketch stored = QuantileSketch.fromJson(new StringReader(throughDatabase(single.toJson())));
+        QuantileSketch legacy = QuantileSketch.fromJson(new StringReader(throughDatabase(legacyJson(single.toJson()))));
+
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        boolean passed = true;
+        passed &= report(name, "single", single, sorted);
+        passed &= report(name, "merged", merged, sorted);
+        passed &= report(name, "json", roundTripped, sorted);
+        passed &= report(name, "database", stored, sorted);
+        passed &= report(name, "legacy", legacy, sorted);
+        return passed;
+    }
+
+    private static boolean report(String name, String mode, QuantileSketch sketch, int[] sorted) {
+        int n = sorted.length;
+        double maxError = 0;
+        long queryNanos = 0;
+        for (int i = 0; i < QUERY_POINTS; i++) {
+            int value = sorted[(int) ((long) i * (n - 1) / (QUERY_POINTS - 1))];
+            long exact = lowerBound(sorted, value);
+
+            long start = System.nanoTime();
+            long estimate = sketch.rank(value);
+            queryNanos += System.nanoTime() - start;
+
+            maxError = Math.max(maxError, Math.abs(estimate - exact) / (double) n);
+        }
+
+        int jsonBytes = sketch.toJson().length();
+        boolean passed = sketch.getCount() == n && maxError <= MAX_RANK_ERROR && jsonBytes <= MAX_JSON_BYTES;
+        System.out.printf("%-16s %-8s %9.3f%% %9d %10d %9.1f us%s%n",
+            name, mode, maxError * 100, sketch.getRetainedItems(), jsonBytes,
+            queryNanos / 1_000.0 / QUERY_POINTS, passed ? "" : "  FAILED");
+        return passed;
+    }
+
+    /**
+     * What reading back a written node returns: the database keeps no nulls, empty arrays
+     * or empty objects, stores arrays as objects keyed by index, and returns an object
+     * whose keys are mostly dense indexes as an array again (nulls for the missing ones).
+     */
+    private static String throughDatabase(String json) {
+        JsonElement stored = store(JsonParser.parseString(json));
+        return stored == null ? "null" : load(stored).toString();
+    }
+
+    private static JsonElement store(JsonElement value) {
+        if (value.isJsonNull()) return null;
+        if (value.isJsonPrimitive()) return value;
+
+        JsonObject node = new JsonObject();
+        if (value.isJsonArray()) {
+            JsonArray array = value.getAsJsonArray();
+            for (int i = 0; i < array.size(); i++) {
+                JsonElement child = store(array.get(i));
+                if (child != null) node.add(Integer.toString(i), child);
+            }
+        } else {
+            for (Map.Entry<String, JsonElement> entry : value.getAsJsonObject().entrySet()) {
+                JsonElement child = store(entry.getValue());
+                if (child != null) node.add(entry.getKey(), child);
+            }
+        }
+        return node.size() == 0 ? null : node;
+    }
+
+    private static JsonElement load(JsonElement node) {
+        if (!node.isJsonObject()) return node;
+        JsonObject object = node.getAsJsonObject();
+
+        int maxIndex = -1;
+        for (String key : object.keySet()) {
+            if (!key.matches("0|[1-9][0-9]{0,8}")) {
+                maxIndex = Integer.MAX_VALUE;
+                break;
+            }
+            maxIndex = Math.max(maxIndex, Integer.parseInt(key));
+        }
+        if (maxIndex < 2 * object.size()) {
+            JsonArray array = new JsonArray();
+            for (int i = 0; i <= maxIndex; i++) {
+                JsonElement child = object.get(Integer.toString(i));
+                array.add(child == null ? null : load(child));
+            }
+            return array;
+        }
+
+        JsonObject loaded = new JsonObject();
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            loaded.add(entry.getKey(), load(entry.getValue()));
+        }
+        return loaded;
+    }
+
+    /**
+     * The same sketch in the older layout, levels as an array of int arrays (empty ones included).
+     */
+    private static String legacyJson(String json) {
+        JsonObject sketch = JsonParser.parseString(json).getAsJsonObject();
+        JsonObject packedLevels = sketch.remove("levels").getAsJsonObject();
+        int height = sketch.remove("height").getAsInt();
+
+        JsonArray levels = new JsonArray();
+        for (int h = 0; h < height; h++) {
+            JsonArray items = new JsonArray();
+            JsonElement packed = packedLevels.get("h" + h);
+            if (packed != null) {
+                ByteBuffer bytes = ByteBuffer.wrap(Base64.getDecoder().decode(packed.getAsString()));
+                while (bytes.hasRemaining()) {
+                    items.add(bytes.getInt());
+                }
+            }
+            levels.add(items);
+        }
+        sketch.add("levels", levels);
+        return sketch.toString();
+    }
+
+    /**
+     * Number of values strictly below {@code value} in a sorted array.
+     */
+    private static long lowerBound(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,399 @@
+package demo;
+
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Server-side check of submitted scores. Each queued submission is re-simulated
+ * headless from its seed and input log (see {@link Game#step(int)}) and accepted only
+ * if the run ends on its last recorded tick with the claimed score and survival time.
+ * Batches are verified in parallel, one worker per core. Every verdict is written to
+ * replayResults/{scoreId}, rejected scores are removed from scores/ and leaderboard/,
+ * and the entry is dropped from replayQueue/ in the same multi-location update.
+ *
+ * Usage: java -cp target/classes:... demo.ReplayVerifier [--once] [--threads N]
+ *        java -cp target/classes:... demo.ReplayVerifier --selftest [runs] [--threads N]
+ * The database comes from -Dfirebase.databaseUrl (and serviceAccountKey.json if present);
+ * --selftest runs against an in-process FakeRealtimeDatabase instead.
+ */
+public class ReplayVerifier {
+    private static final int BATCH_SIZE = 64;
+    private static final long POLL_MILLIS = 5_000;
+    // Longest run accepted for replay: two hours of ticks, paused ones included
+    private static final long MAX_TICKS = 2L * 60 * 60 * Game.TICKS_PER_SECOND;
+
+    private final ExecutorService workers;
+    private final int threads;
+
+    // Stats
+    private long submissionCount = 0;
+    private long acceptedCount = 0;
+    private long simulatedTicks = 0;
+    private long replayNanos = 0; // Summed over workers, i.e. CPU time spent replaying
+
+    /**
+     * One queued score with its replay.
+     */
+    public static class Submission {
+        public final String scoreId;
+        public String playerId;
+        public int score;
+        public long survivalTime;
+        public long ticks;
+        public InputLog inputs; // null if the entry was malformed
+
+        public Submission(String scoreId) {
+            this.scoreId = scoreId;
+        }
+    }
+
+    /**
+     * Verdict for one submission.
+     */
+    public static class Result {
+        public final Submission submission;
+        public final String rejectReason; // null = accepted
+        public final int replayedScore;
+        public final long replayedTicks;
+        public final long nanos;
+
+        Result(Submission submission, String rejectReason, int replayedScore, long replayedTicks, long nanos) {
+            this.submission = submission;
+            this.rejectReason = rejectReason;
+            this.replayedScore = replayedScore;
+            this.replayedTicks = replayedTicks;
+            this.nanos = nanos;
+        }
+
+        public boolean isValid() {
+            return rejectReason == null;
+        }
+    }
+
+    public ReplayVerifier(int threads) {
+        this.threads = threads;
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "replay-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Re-simulate one submission and compare it with what the client claimed.
+     */
+    public static Result verify(Submission submission) {
+        long start = System.nanoTime();
+        InputLog log = submission.inputs;
+        if (log == null) {
+            return new Result(submission, "malformed submission", 0, 0, System.nanoTime() - start);
+        }
+        if (log.getTickCount() != submission.ticks) {
+            return new Result(submission, "tick count mismatch", 0, 0, System.nanoTime() - start);
+        }
+        if (log.getTickCount() > MAX_TICKS) {
+            return new Result(submission, "run too long", 0, 0, System.nanoTime() - start);
+        }
+
+        Game game = new Game(log.getSeed());
+        long replayed = 0;
+        runs:
+        for (int run = 0; run < log.getRunCount(); run++) {
+            int input = log.getRunInput(run);
+            for (int i = log.getRunLength(run); i > 0; i--) {
+                if (game.isGameOver()) break runs;
+                game.step(input);
+                replayed++;
+            }
+        }
+
+        String reason = null;
+        if (!game.isGameOver()) {
+            reason = "run did not end";
+        } else if (replayed != log.getTickCount()) {
+            reason = "inputs recorded after game over";
+        } else if (game.getFinalScore() != submission.score) {
+            reason = "score mismatch (replayed " + game.getFinalScore() + ")";
+        } else if (game.getSurvivalSeconds() != submission.survivalTime) {
+            reason = "survival time mismatch";
+        }
+        return new Result(submission, reason, game.getFinalScore(), replayed, System.nanoTime() - start);
+    }
+
+    /**
+     * Verify the whole list in parallel. Results are in submission order.
+     */
+    public List<Result> verifyAll(List<Submission> submissions) throws InterruptedException {
+        List<Future<Result>> futures = new ArrayList<>(submissions.size());
+        for (Submission submission : submissions) {
+            futures.add(workers.submit(() -> verify(submission)));
+        }
+
+        List<Result> results = new ArrayList<>(submissions.size());
+        for (Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Replay crashed", e.getCause());
+            }
+        }
+
+        for (Result result : results) {
+            submissionCount++;
+            if (result.isValid()) acceptedCount++;
+            simulatedTicks += result.replayedTicks;
+            replayNanos += result.nanos;
+        }
+        return results;
+    }
+
+    /**
+     * Take one batch off the queue, verify it and write the verdicts.
+     * Returns the number of submissions processed (0 = queue empty).
+     */
+    public int processBatch() throws IOException, InterruptedException {
+        FirebaseService firebase = FirebaseService.getInstance();
+        HttpRequest request = firebase.newRequest("replayQueue", "orderBy=%22$key%22&limitToFirst=" + BATCH_SIZE)
+            .GET()
+            .build();
+        HttpResponse<java.io.InputStream> response = firebase.getHttpClient()
+            .send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+        List<Submission> batch;
+        try (Reader body = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Failed to read replay queue. Status: " + response.statusCode());
+            }
+            batch = LeaderboardParser.parseReplayQueue(body);
+        }
+        if (batch.isEmpty()) return 0;
+
+        List<Result> results = verifyAll(batch);
+        writeResults(results);
+        return results.size();
+    }
+
+    private void writeResults(List<Result> results) throws IOException, InterruptedException {
+        JsonObject update = new JsonObject();
+        long now = System.currentTimeMillis();
+        for (Result result : results) {
+            Submission submission = result.submission;
+            update.add("replayQueue/" + submission.scoreId, JsonNull.INSTANCE);
+
+            JsonObject verdict = new JsonObject();
+            verdict.addProperty("valid", result.isValid());
+            verdict.addProperty("claimedScore", submission.score);
+            verdict.addProperty("replayedScore", result.replayedScore);
+            verdict.addProperty("verifiedAt", now);
+            if (!result.isValid()) {
+                verdict.addProperty("reason", result.rejectReason);
+                update.add("leaderboard/" + submission.scoreId, JsonNull.INSTANCE);
+                if (submission.playerId != null) {
+                    update.add("scores/" + submission.playerId + "/" + submission.scoreId, JsonNull.INSTANCE);
+                }
+                Log.info("Rejected score", "scoreId", submission.scoreId, "reason", result.rejectReason);
+            }
+            update.add("replayResults/" + submission.scoreId, verdict);
+        }
+
+        HttpRequest request = FirebaseService.getInstance().newRequest("")
+            .method("PATCH", HttpRequest.BodyPublishers.ofString(update.toString()))
+            .header("Content-Type", "application/json")
+            .build();
+        HttpResponse<String> response = FirebaseService.getInstance().getHttpClient()
+            .send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to write replay results. Status: " + response.statusCode());
+        }
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public long getSubmissionCount() {
+        return submissionCount;
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    /**
+     * Simulated game time per second of replay CPU time, per core.
+     */
+    public double getRealTimeFactor() {
+        if (replayNanos == 0) return 0;
+        return (simulatedTicks / (double) Game.TICKS_PER_SECOND) / (replayNanos / 1_000_000_000.0);
+    }
+
+    public String getStatsSummary() {
+        return String.format("%d verified, %d accepted, %d rejected, %.0f simulated minutes, %.0fx real time per core on %d threads",
+            submissionCount, acceptedCount, submissionCount - acceptedCount,
+            simulatedTicks / (double) Game.TICKS_PER_SECOND / 60, getRealTimeFactor(), threads);
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean once = false;
+        boolean selfTest = false;
+        int selfTestRuns = 200;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--once":
+                    once = true;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--selftest":
+                    selfTest = true;
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                        selfTestRuns = Integer.parseInt(args[++i]);
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        if (selfTest) {
+            System.exit(runSelfTest(selfTestRuns, threads) ? 0 : 1);
+        }
+
+        FirebaseService firebase = FirebaseService.getInstance();
+        firebase.initializeFromClasspath();
+        if (!firebase.isInitialized()) {
+            System.err.println("No database configured (set -Dfirebase.databaseUrl or add serviceAccountKey.json)");
+            System.exit(1);
+        }
+
+        ReplayVerifier verifier = new ReplayVerifier(threads);
+        System.out.println("Verifying replays from " + firebase.getDatabaseUrl() + " on " + threads + " threads");
+        while (true) {
+            int processed;
+            try {
+                processed = verifier.processBatch();
+            } catch (IOException e) {
+                System.err.println("Replay verification failed: " + e.getMessage());
+                processed = 0;
+            }
+            if (processed > 0) {
+                System.out.println(verifier.getStatsSummary());
+                continue; // Drain the queue before sleeping
+            }
+            if (once) break;
+            Thread.sleep(POLL_MILLIS);
+        }
+        verifier.shutdown();
+    }
+
+    /**
+     * Record bot runs, tamper with every fifth one, queue them all on a local stand-in
+     * database and check that exactly the honest runs are accepted.
+     */
+    private static boolean runSelfTest(int runs, int threads) throws Exception {
+        FakeRealtimeDatabase db = FakeRealtimeDatabase.start(0);
+        FirebaseService firebase = FirebaseService.getInstance();
+        firebase.setDatabaseUrl(db.getBaseUrl());
+        firebase.initializeUnauthenticated();
+
+        Random random = new Random(7);
+        JsonObject queue = new JsonObject();
+        JsonObject leaderboard = new JsonObject();
+        Set<String> tampered = new HashSet<>();
+        for (int i = 0; i < runs; i++) {
+            String scoreId = String.format("run-%05d", i);
+            Submission run = playBot(scoreId, random.nextLong(), new Random(random.nextLong()));
+
+            long seed = run.inputs.getSeed();
+            if (i % 10 == 3) {
+                run.score += 100; // Inflated score
+                tampered.add(scoreId);
+            } else if (i % 10 == 7) {
+                seed++; // Inputs recorded against a different run
+                tampered.add(scoreId);
+            }
+
+            // Same shape FirebaseService.saveScore writes
+            JsonObject entry = new JsonObject();
+            entry.addProperty("playerId", run.playerId);
+            entry.addProperty("score", run.score);
+            entry.addProperty("survivalTime", run.survivalTime);
+            entry.addProperty("seed", Long.toString(seed));
+            entry.addProperty("ticks", run.ticks);
+            entry.addProperty("inputs", run.inputs.encode());
+            queue.add(scoreId, entry);
+
+            JsonObject score = new JsonObject();
+            score.addProperty("playerId", run.playerId);
+            score.addProperty("playerName", run.playerId);
+            score.addProperty("score", run.score);
+            score.addProperty("timestamp", i);
+            leaderboard.add(scoreId, score);
+        }
+        db.put("replayQueue", queue);
+        db.put("leaderboard", leaderboard);
+
+        ReplayVerifier verifier = new ReplayVerifier(threads);
+        long start = System.nanoTime();
+        while (verifier.processBatch() > 0) {
+            // Drain
+        }
+        long wallNanos = System.nanoTime() - start;
+        verifier.shutdown();
+
+        boolean passed = verifier.getSubmissionCount() == runs
+            && verifier.getAcceptedCount() == runs - tampered.size()
+            && db.get("replayQueue").isJsonNull();
+        for (String scoreId : tampered) {
+            if (!db.get("leaderboard/" + scoreId).isJsonNull()) passed = false;
+            if (db.get("replayResults/" + scoreId + "/valid").getAsBoolean()) passed = false;
+        }
+        db.stop();
+
+        System.out.println(verifier.getStatsSummary());
+        System.out.printf("Wall time %.2f s, %d tampered runs%n", wallNanos / 1e9, tampered.size());
+        System.out.println(passed ? "Self-test passed" : "Self-test FAILED");
+        return passed;
+    }
+
+    /**
+     * Play one headless run with a random input policy until the player dies.
+     */
+    private static Submission playBot(String scoreId, long seed, Random policy) {
+        Game game = new Game(seed);
+        InputLog log = new InputLog(seed);
+        BotInput bot = new BotInput(policy, true);
+        while (!game.isGameOver() && log.getTickCount() < MAX_TICKS) {
+            int input = bot.next();
+            log.record(input);
+            game.step(input);
+        }
+
+        Submission submission = new Submission(scoreId);
+        submission.playerId = "bot-" + scoreId;
+        submission.score = game.getFinalScore();
+        submission.survivalTime = game.getSurvivalSeconds();
+        submission.ticks = log.getTickCount();
+        submission.inputs = log;
+        return submission;
+    }
+}
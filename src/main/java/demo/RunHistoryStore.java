@@ -0,0 +1,282 @@
+package demo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Local, append-only history of every finished run, so personal stats work offline.
+ * Runs are fixed-width binary records read through a memory map; an in-memory index
+ * built on open answers personal best, last-N and per-day aggregates without a scan.
+ *
+ * File layout: a 16 byte header (magic, version, record size) followed by 32 byte records:
+ * timestamp (long), score, survival seconds, level, kills, upgrades bought, CRC32 (ints).
+ * Records with a bad checksum (e.g. a torn write) are skipped, and the next append overwrites a partial tail.
+ * The file is grown ahead of the records in zeroed slots, which fail the checksum, so appends only
+ * remap when they run out of slots; the runs end after the last valid record.
+ */
+public class RunHistoryStore {
+    private static final int MAGIC = 0x50415248; // "PARH"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 32;
+    private static final int CHECKSUMMED_BYTES = RECORD_SIZE - 4;
+    private static final long MIN_CAPACITY = 64;     // Slots mapped for a new file
+
+    private static RunHistoryStore instance;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer map;           // Header and every slot, remapped when appends outgrow it
+    private long capacity = 0;              // Slots in the file and the map
+    private long slotCount = 0;             // Slots up to the last valid record; the next append goes here
+
+    // Index
+    private long[] validSlots = new long[256]; // Slots of valid records, in append order
+    private int runCount = 0;
+    private long bestSlot = -1;
+    private int bestScore = Integer.MIN_VALUE;
+    private final TreeMap<Long, DayStats> days = new TreeMap<>(); // Keyed by epoch day (local time)
+
+    /**
+     * One finished run.
+     */
+    public static class Run {
+        public final long timestamp;
+        public final int score;
+        public final int survivalSeconds;
+        public final int level;
+        public final int kills;
+        public final int upgradesBought;
+
+        public Run(long timestamp, int score, int survivalSeconds, int level, int kills, int upgradesBought) {
+            this.timestamp = timestamp;
+            this.score = score;
+            this.survivalSeconds = survivalSeconds;
+            this.level = level;
+            this.kills = kills;
+            this.upgradesBought = upgradesBought;
+        }
+    }
+
+    /**
+     * Aggregates of all runs finished on one day.
+     */
+    public static class DayStats {
+        public final LocalDate day;
+        public int runs;
+        public int bestScore;
+        public long totalScore;
+        public long totalSurvivalSeconds;
+        public long totalKills;
+
+        DayStats(LocalDate day) {
+            this.day = day;
+        }
+
+        DayStats copy() {
+            DayStats copy = new DayStats(day);
+            copy.runs = runs;
+            copy.bestScore = bestScore;
+            copy.totalScore = totalScore;
+            copy.totalSurvivalSeconds = totalSurvivalSeconds;
+            copy.totalKills = totalKills;
+            return copy;
+        }
+
+        void add(Run run) {
+            runs++;
+            bestScore = Math.max(bestScore, run.score);
+            totalScore += run.score;
+            totalSurvivalSeconds += run.survivalSeconds;
+            totalKills += run.kills;
+        }
+
+        public double getAverageScore() {
+            return runs == 0 ? 0 : (double) totalScore / runs;
+        }
+    }
+
+    RunHistoryStore(Path file) {
+        this.file = file;
+        open();
+    }
+
+    public static synchronized RunHistoryStore getInstance() {
+        if (instance == null) {
+            instance = new RunHistoryStore(Paths.get(System.getProperty("user.home"), ".postapocalyptic_run_history"));
+        }
+        return instance;
+    }
+
+    private void open() {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() < HEADER_SIZE) {
+                writeHeader();
+            } else if (!readHeader()) {
+                Log.warn("Run history file has an unknown format, personal stats disabled", "file", file);
+                channel.close();
+                channel = null;
+                return;
+            }
+            long slots = (channel.size() - HEADER_SIZE) / RECORD_SIZE; // A partial trailing record is ignored
+            remap(Math.max(slots, MIN_CAPACITY));
+            buildIndex();
+        } catch (IOException e) {
+            Log.warn("Could not open run history", "error", e.getMessage());
+            channel = null;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE);
+        header.flip();
+        channel.write(header, 0);
+    }
+
+    private boolean readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getShort() == VERSION && header.getShort() == RECORD_SIZE;
+    }
+
+    /**
+     * Grow the file to {@code slots} slots if needed (the new ones read as zeros) and map all of it.
+     */
+    private void remap(long slots) throws IOException {
+        long size = HEADER_SIZE + slots * RECORD_SIZE;
+        if (channel.size() < size) {
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        capacity = slots;
+    }
+
+    private void buildIndex() {
+        long start = System.nanoTime();
+        for (long slot = 0; slot < capacity; slot++) {
+            Run run = readSlot(slot);
+            if (run != null) {
+                index(slot, run);
+                slotCount = slot + 1;
+            }
+        }
+        Log.info("Run history indexed", "runs", runCount, "skipped", slotCount - runCount,
+            "millis", String.format("%.1f", (System.nanoTime() - start) / 1e6));
+    }
+
+    private void index(long slot, Run run) {
+        if (runCount == validSlots.length) {
+            validSlots = Arrays.copyOf(validSlots, runCount * 2);
+        }
+        validSlots[runCount++] = slot;
+        if (run.score > bestScore) {
+            bestScore = run.score;
+            bestSlot = slot;
+        }
+        LocalDate day = dayOf(run.timestamp);
+        days.computeIfAbsent(day.toEpochDay(), d -> new DayStats(day)).add(run);
+    }
+
+    /**
+     * Read a record from the map, or null if its checksum does not match.
+     */
+    private Run readSlot(long slot) {
+        int offset = (int) (HEADER_SIZE + slot * RECORD_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(map.slice(offset, CHECKSUMMED_BYTES));
+        if ((int) crc.getValue() != map.getInt(offset + CHECKSUMMED_BYTES)) {
+            return null;
+        }
+        return new Run(map.getLong(offset), map.getInt(offset + 8), map.getInt(offset + 12),
+            map.getInt(offset + 16), map.getInt(offset + 20), map.getInt(offset + 24));
+    }
+
+    /**
+     * Append a finished run and update the index.
+     */
+    public synchronized void append(Run run) {
+        if (channel == null) return;
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.putLong(run.timestamp).putInt(run.score).putInt(run.survivalSeconds)
+            .putInt(run.level).putInt(run.kills).putInt(run.upgradesBought);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, CHECKSUMMED_BYTES);
+        record.putInt((int) crc.getValue());
+
+        try {
+            long slot = slotCount;
+            if (slot >= capacity) {
+                remap(capacity * 2);
+            }
+            map.put((int) (HEADER_SIZE + slot * RECORD_SIZE), record.array());
+            slotCount = slot + 1;
+            index(slot, run);
+        } catch (IOException e) {
+            Log.warn("Could not save run to history", "error", e.getMessage());
+        }
+    }
+
+    public synchronized int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Highest scoring run, or null if there are none.
+     */
+    public synchronized Run getPersonalBest() {
+        return bestSlot < 0 ? null : readSlot(bestSlot);
+    }
+
+    /**
+     * The most recent runs, newest first.
+     */
+    public synchronized List<Run> getLastRuns(int n) {
+        List<Run> runs = new ArrayList<>(Math.min(n, runCount));
+        for (int i = runCount - 1; i >= 0 && runs.size() < n; i--) {
+            runs.add(readSlot(validSlots[i]));
+        }
+        return runs;
+    }
+
+    /**
+     * Aggregates for one day, or null if no runs finished that day. A copy: later appends do not change it.
+     */
+    public synchronized DayStats getDay(LocalDate day) {
+        DayStats stats = days.get(day.toEpochDay());
+        return stats == null ? null : stats.copy();
+    }
+
+    /**
+     * Per-day aggregates from {@code from} to {@code to} inclusive, oldest first. Days without runs are omitted.
+     */
+    public synchronized List<DayStats> getDays(LocalDate from, LocalDate to) {
+        Collection<DayStats> range = days.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values();
+        List<DayStats> copies = new ArrayList<>(range.size());
+        for (DayStats stats : range) {
+            copies.add(stats.copy());
+        }
+        return copies;
+    }
+
+    private static LocalDate dayOf(long timestamp) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+    }
+}
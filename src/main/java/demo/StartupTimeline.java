@@ -0,0 +1,49 @@
+package demo;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records startup milestones (JVM start -> App.start -> menu shown -> first game frame)
+ * relative to JVM start, so startup regressions show up in the exit log.
+ */
+public class StartupTimeline {
+    private static final long JVM_START_MILLIS = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+
+    static {
+        marks.put("JVM start", 0L);
+    }
+
+    private StartupTimeline() {}
+
+    /**
+     * Record a milestone. Only the first occurrence of each name is kept.
+     */
+    public static synchronized void mark(String name) {
+        marks.putIfAbsent(name, System.currentTimeMillis() - JVM_START_MILLIS);
+    }
+
+    public static synchronized boolean hasMark(String name) {
+        return marks.containsKey(name);
+    }
+
+    public static synchronized Long getMillis(String name) {
+        return marks.get(name);
+    }
+
+    public static synchronized String format() {
+        StringBuilder sb = new StringBuilder("Startup timeline:");
+        long previous = 0;
+        for (Map.Entry<String, Long> mark : marks.entrySet()) {
+            sb.append(String.format("%n  %-20s %6d ms  (+%d ms)", mark.getKey(), mark.getValue(), mark.getValue() - previous));
+            previous = mark.getValue();
+        }
+        return sb.toString();
+    }
+
+    public static void log() {
+        Log.info(format());
+    }
+}
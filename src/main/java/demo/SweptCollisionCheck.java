@@ -0,0 +1,84 @@
+package demo;
+
+import java.util.Random;
+
+/**
+ * Checks {@link Projectile#sweptImpactTime} against a finely sub-stepped reference on random fast
+ * projectiles and thin moving targets, and counts how many of those hits the end-of-tick overlap
+ * test alone would miss. Exits with status 1 if the swept test misses a hit or is late.
+ *
+ * Usage: java -cp target/classes:... demo.SweptCollisionCheck [cases] [max speed px/tick]
+ */
+public class SweptCollisionCheck {
+    private static final int SUB_STEPS = 2000;
+
+    public static void main(String[] args) {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        double maxSpeed = args.length > 1 ? Double.parseDouble(args[1]) : 120;
+        Random random = new Random(7);
+
+        int hits = 0;
+        int tunneled = 0;  // Hits the end position test misses
+        int missed = 0;    // Hits the swept test misses
+        int late = 0;      // Swept time of impact after the first overlapping sub-step
+        for (int c = 0; c < cases; c++) {
+            double x = 200 + random.nextDouble() * 800;
+            double y = 200 + random.nextDouble() * 300;
+            double angle = random.nextDouble() * Math.PI * 2;
+            double speed = random.nextDouble() * maxSpeed;
+            Projectile projectile = new Projectile(x, y, Math.cos(angle) * speed, Math.sin(angle) * speed, true);
+            projectile.update();
+
+            double boxWidth = 2 + random.nextDouble() * 40;
+            double boxHeight = 2 + random.nextDouble() * 60;
+            double moveX = (random.nextDouble() - 0.5) * 10;
+            double moveY = (random.nextDouble() - 0.5) * 10;
+            // End position near the projectile's path so that about half the cases hit
+            double along = random.nextDouble();
+            double boxX = x + Math.cos(angle) * speed * along + moveX + (random.nextDouble() - 0.5) * 60 - boxWidth / 2;
+            double boxY = y + Math.sin(angle) * speed * along + moveY + (random.nextDouble() - 0.5) * 60 - boxHeight / 2;
+
+            double time = projectile.sweptImpactTime(boxX, boxY, boxWidth, boxHeight, moveX, moveY);
+            double reference = firstOverlap(projectile, boxX, boxY, boxWidth, boxHeight, moveX, moveY);
+            if (reference >= 0) {
+                hits++;
+                if (!overlapsAt(1, projectile, boxX, boxY, boxWidth, boxHeight, moveX, moveY)) tunneled++;
+                if (time < 0) missed++;
+                else if (time > reference + 1e-9) late++;
+            }
+        }
+
+        System.out.printf("%d cases, speeds up to %.0f px/tick: %d hits, %d missed by the end position test%n",
+            cases, maxSpeed, hits, tunneled);
+        System.out.printf("swept test: %d missed, %d late%n", missed, late);
+        boolean passed = missed == 0 && late == 0;
+        System.out.println(passed ? "All checks passed" : "Some checks FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * First sub-step time at which the projectile and the box overlap, or -1.
+     */
+    private static double firstOverlap(Projectile projectile, double boxX, double boxY, double boxWidth, double boxHeight,
+                                       double moveX, double moveY) {
+        for (int s = 0; s <= SUB_STEPS; s++) {
+            double t = (double) s / SUB_STEPS;
+            if (overlapsAt(t, projectile, boxX, boxY, boxWidth, boxHeight, moveX, moveY)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean overlapsAt(double t, Projectile projectile, double boxX, double boxY, double boxWidth,
+                                      double boxHeight, double moveX, double moveY) {
+        double x = projectile.getPreviousX() + (projectile.getX() - projectile.getPreviousX()) * t;
+        double y = projectile.getPreviousY() + (projectile.getY() - projectile.getPreviousY()) * t;
+        double left = boxX - moveX * (1 - t);
+        double top = boxY - moveY * (1 - t);
+        return x < left + boxWidth && x + projectile.getWidth() > left
+            && y < top + boxHeight && y + projectile.getHeight() > top;
+    }
+}
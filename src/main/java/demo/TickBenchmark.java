@@ -0,0 +1,106 @@
+package demo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures simulation tick time under heavy load (many enemies, projectiles and particles)
+ * for different numbers of tick threads, and checks that every thread count produces exactly
+ * the same run as the first one (list 1 first to compare against a single thread).
+ *
+ * Usage: java -cp target/classes:... demo.TickBenchmark [--threads 1,2,4] [--ticks 600]
+ *        [--enemies 1000] [--projectiles 2000] [--particles 20000]
+ */
+public class TickBenchmark {
+    private static final int WARMUP_TICKS = 600;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        int ticks = 600;
+        int enemies = 1000;
+        int projectiles = 2000;
+        int particles = 20_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads":
+                    for (String n : args[i + 1].split(",")) {
+                        threadCounts.add(Integer.parseInt(n.trim()));
+                    }
+                    break;
+                case "--ticks":
+                    ticks = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--enemies":
+                    enemies = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--projectiles":
+                    projectiles = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--particles":
+                    particles = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    return;
+            }
+        }
+        if (threadCounts.isEmpty()) {
+            for (int n = 1; n < cores; n *= 2) {
+                threadCounts.add(n);
+            }
+            threadCounts.add(cores);
+        }
+
+        System.out.printf("%d cores, %d ticks, load: %d enemies, %d projectiles, %d particles%n",
+            cores, ticks, enemies, projectiles, particles);
+        System.out.printf("%-8s %9s %9s %9s %9s  %s%n", "threads", "mean ms", "p50 ms", "p99 ms", "speedup", "same run as first row");
+
+        double baseline = 0;
+        long[] reference = null;
+        for (int threads : threadCounts) {
+            ForkJoinPool pool = Game.createTickPool(threads);
+            long[] checksums = new long[ticks];
+            LatencyHistogram tickTimes = new LatencyHistogram();
+            try {
+                runLoad(pool, WARMUP_TICKS, enemies, projectiles, particles, null, null);
+                runLoad(pool, ticks, enemies, projectiles, particles, tickTimes, checksums);
+            } finally {
+                if (pool != null) pool.shutdown();
+            }
+
+            double mean = tickTimes.getMeanMillis();
+            if (baseline == 0) baseline = mean;
+            String same = "-";
+            if (reference == null) {
+                reference = checksums;
+            } else {
+                same = Arrays.equals(reference, checksums) ? "yes" : "NO";
+            }
+            System.out.printf("%-8d %9.3f %9.3f %9.3f %8.2fx  %s%n", threads, mean,
+                tickTimes.getPercentileMillis(0.50), tickTimes.getPercentileMillis(0.99), baseline / mean, same);
+        }
+    }
+
+    /**
+     * One run from a fixed seed with scripted input, topped up to the load before every tick.
+     */
+    private static void runLoad(ForkJoinPool pool, int ticks, int enemies, int projectiles, int particles,
+                                LatencyHistogram tickTimes, long[] checksums) {
+        Game game = new Game(SEED, null, pool);
+        BotInput bot = new BotInput(new Random(SEED + 1), false);
+        Random load = new Random(SEED + 2);
+        for (int i = 0; i < ticks; i++) {
+            game.addStressLoad(load, enemies, projectiles, particles);
+            int input = bot.next();
+            long start = System.nanoTime();
+            game.step(input);
+            if (tickTimes != null) tickTimes.record(System.nanoTime() - start);
+            if (checksums != null) checksums[i] = game.getStateChecksum();
+        }
+    }
+}
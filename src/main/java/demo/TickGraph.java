@@ -0,0 +1,216 @@
+package demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Dependency graph of the jobs that make up one simulation tick.
+ * Jobs whose dependencies are done run in parallel on a fork-join pool; range jobs are
+ * additionally split into chunks over their elements. Without a pool, or when there is too
+ * little work to be worth handing to other threads, the jobs run on the calling thread in the
+ * order they were added (which is always a valid order, a job can only depend on earlier ones).
+ *
+ * Jobs that run at the same time must not write shared state; anything with side effects on
+ * the run (score, kills, spawning) belongs in a sequential job, so results do not depend on timing.
+ */
+class TickGraph {
+    /**
+     * Work on elements [from, to) of a range job.
+     */
+    interface RangeBody {
+        void run(int from, int to);
+    }
+
+    static final class Job {
+        final String name;
+        private final Runnable work;        // Plain job
+        private final IntSupplier size;     // Range job: element count, read when the job starts
+        private final int grain;
+        private final RangeBody body;
+        private final List<Job> dependents = new ArrayList<>();
+        private final int dependencyCount;
+        private final AtomicInteger waitingFor = new AtomicInteger();
+        private final LongAdder nanos = new LongAdder(); // Wall time spent in the job while timed
+        private volatile boolean timed = false;
+
+        private Job(String name, Runnable work, IntSupplier size, int grain, RangeBody body, int dependencyCount) {
+            this.name = name;
+            this.work = work;
+            this.size = size;
+            this.grain = grain;
+            this.body = body;
+            this.dependencyCount = dependencyCount;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final List<Job> jobs = new ArrayList<>();
+    private final List<Job> roots = new ArrayList<>();
+
+    /**
+     * @param pool where to run jobs in parallel, or null to always run them on the caller
+     */
+    TickGraph(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    Job add(String name, Runnable work, Job... after) {
+        return register(new Job(name, work, null, 0, null, after.length), after);
+    }
+
+    /**
+     * A job over {@code size} independent elements, split into chunks of at least {@code grain}.
+     */
+    Job addRange(String name, IntSupplier size, int grain, RangeBody body, Job... after) {
+        return register(new Job(name, null, size, grain, body, after.length), after);
+    }
+
+    private Job register(Job job, Job[] after) {
+        for (Job dependency : after) {
+            if (!jobs.contains(dependency)) {
+                throw new IllegalArgumentException(job.name + " depends on a job that is not in this graph");
+            }
+            dependency.dependents.add(job);
+        }
+        jobs.add(job);
+        if (after.length == 0) {
+            roots.add(job);
+        }
+        return job;
+    }
+
+    /**
+     * Measure how long each job takes from now on (or stop), e.g. to see which part of the
+     * tick grows fastest with load. Costs two clock reads per job.
+     */
+    void setTimed(boolean timed) {
+        for (Job job : jobs) {
+            job.timed = timed;
+        }
+    }
+
+    List<String> getJobNames() {
+        List<String> names = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            names.add(job.name);
+        }
+        return names;
+    }
+
+    /**
+     * Total time spent in each job (in {@link #getJobNames()} order) while timed, and reset it.
+     */
+    long[] takeJobNanos() {
+        long[] nanos = new long[jobs.size()];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = jobs.get(i).nanos.sumThenReset();
+        }
+        return nanos;
+    }
+
+    /**
+     * Run every job once and return when all are done.
+     */
+    void run() {
+        if (pool == null || !worthForking()) {
+            for (Job job : jobs) {
+                long start = job.timed ? System.nanoTime() : 0;
+                if (job.body != null) {
+                    job.body.run(0, job.size.getAsInt());
+                } else {
+                    job.work.run();
+                }
+                if (job.timed) job.nanos.add(System.nanoTime() - start);
+            }
+            return;
+        }
+
+        for (Job job : jobs) {
+            job.waitingFor.set(job.dependencyCount);
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasksFor(roots));
+            }
+        });
+    }
+
+    /**
+     * Handing jobs to other threads costs a few microseconds; only do it when some range job
+     * has enough elements to be split.
+     */
+    private boolean worthForking() {
+        for (Job job : jobs) {
+            if (job.body != null && job.size.getAsInt() >= 2 * job.grain) return true;
+        }
+        return false;
+    }
+
+    private static List<ForkJoinTask<?>> tasksFor(List<Job> ready) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(ready.size());
+        for (Job job : ready) {
+            tasks.add(new JobTask(job));
+        }
+        return tasks;
+    }
+
+    /**
+     * Runs one job, then the dependents it was the last dependency of. Each job becomes ready
+     * exactly once, so it is forked exactly once, and joined by the task that forked it.
+     */
+    private static class JobTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Job job; // Tasks are never serialized
+
+        JobTask(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            long start = job.timed ? System.nanoTime() : 0;
+            if (job.body != null) {
+                int size = job.size.getAsInt();
+                if (size >= 2 * job.grain) {
+                    int chunks = Math.min(size / job.grain, ForkJoinTask.getPool().getParallelism() * 4);
+                    List<ForkJoinTask<?>> parts = new ArrayList<>(chunks);
+                    for (int i = 0; i < chunks; i++) {
+                        int from = (int) ((long) size * i / chunks);
+                        int to = (int) ((long) size * (i + 1) / chunks);
+                        parts.add(new RecursiveAction() {
+                            @Override
+                            protected void compute() {
+                                job.body.run(from, to);
+                            }
+                        });
+                    }
+                    invokeAll(parts);
+                } else {
+                    job.body.run(0, size);
+                }
+            } else {
+                job.work.run();
+            }
+            if (job.timed) job.nanos.add(System.nanoTime() - start);
+
+            List<Job> ready = null;
+            for (Job dependent : job.dependents) {
+                if (dependent.waitingFor.decrementAndGet() == 0) {
+                    if (ready == null) ready = new ArrayList<>(2);
+                    ready.add(dependent);
+                }
+            }
+            if (ready != null) {
+                invokeAll(tasksFor(ready));
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package demo;
+
+/**
+ * Hierarchical timing wheel driven by simulation ticks.
+ * Scheduling and cancelling are O(1); each tick only touches the timers that fire (plus, every
+ * 64 ticks, the ones moving down a level), so thousands of pending timers cost next to nothing.
+ *
+ * Four levels of 64 slots cover 2^24 ticks (about 77 hours at 60 ticks per second); later
+ * deadlines are parked in the last level and re-filed until they are in range. Timers due on the
+ * same tick fire in the order they were scheduled. Not thread-safe: use it from the simulation only.
+ */
+class TimerWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    /**
+     * A reusable timer. Its action runs when the wheel reaches the tick it was scheduled for.
+     */
+    static final class Timer {
+        private final Runnable action;
+        private long deadline;
+        private long sequence;   // Schedule order, keeps timers due on the same tick in that order
+        private int bucket = -1; // level * SLOTS + slot while scheduled
+        private Timer prev;
+        private Timer next;
+
+        Timer(Runnable action) {
+            this.action = action;
+        }
+
+        boolean isScheduled() {
+            return bucket >= 0;
+        }
+    }
+
+    private final Timer[] heads = new Timer[LEVELS * SLOTS];
+    private final Timer[] tails = new Timer[LEVELS * SLOTS];
+    private long now = 0;
+    private int size = 0;
+    private long scheduled = 0;
+
+    /**
+     * The current tick: how often {@link #advance()} has been called since the last clear.
+     */
+    long now() {
+        return now;
+    }
+
+    /**
+     * Timers waiting to fire.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Fire {@code timer} {@code delayTicks} ticks from now (at least 1), replacing any earlier schedule.
+     */
+    void schedule(Timer timer, long delayTicks) {
+        cancel(timer);
+        timer.deadline = now + Math.max(1, delayTicks);
+        timer.sequence = scheduled++;
+        file(timer);
+        size++;
+    }
+
+    void cancel(Timer timer) {
+        if (timer.bucket < 0) return;
+        unlink(timer);
+        size--;
+    }
+
+    /**
+     * Cancel the timer and run its action right away.
+     */
+    void fireNow(Timer timer) {
+        cancel(timer);
+        timer.action.run();
+    }
+
+    /**
+     * Move to the next tick and run the timers due on it.
+     */
+    void advance() {
+        now++;
+        // Every time a level wraps, the next slot of the level above moves down
+        for (int level = 1; level < LEVELS; level++) {
+            if ((now & ((1L << (SLOT_BITS * level)) - 1)) != 0) break;
+            cascade(level * SLOTS + (int) ((now >>> (SLOT_BITS * level)) & SLOT_MASK));
+        }
+
+        int bucket = (int) (now & SLOT_MASK);
+        Timer timer;
+        while ((timer = heads[bucket]) != null) {
+            unlink(timer);
+            if (timer.deadline > now) {
+                file(timer); // Parked beyond the wheel's span
+                continue;
+            }
+            size--;
+            timer.action.run(); // May schedule or cancel timers, including this one
+        }
+    }
+
+    /**
+     * Drop every pending timer and start again at tick 0.
+     */
+    void clear() {
+        for (int bucket = 0; bucket < heads.length; bucket++) {
+            Timer timer;
+            while ((timer = heads[bucket]) != null) {
+                unlink(timer);
+            }
+        }
+        now = 0;
+        size = 0;
+    }
+
+    private void cascade(int bucket) {
+        Timer timer = heads[bucket];
+        heads[bucket] = tails[bucket] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.prev = timer.next = null;
+            file(timer);
+            timer = next;
+        }
+    }
+
+    /**
+     * Put a timer in the level of the highest 6-bit group in which its deadline differs from now.
+     * Buckets stay in schedule order: normally the timer goes last, but a parked timer being
+     * re-filed can land behind timers scheduled after it.
+     */
+    private void file(Timer timer) {
+        long deadline = Math.min(timer.deadline, now + MAX_SPAN - 1);
+        long diff = deadline ^ now;
+        int level = 0;
+        while (level < LEVELS - 1 && (diff >>> (SLOT_BITS * (level + 1))) != 0) {
+            level++;
+        }
+        int bucket = level * SLOTS + (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+        Timer before = tails[bucket];
+        while (before != null && before.sequence > timer.sequence) {
+            before = before.prev;
+        }
+        Timer after = before != null ? before.next : heads[bucket];
+
+        timer.bucket = bucket;
+        timer.prev = before;
+        timer.next = after;
+        if (before != null) {
+            before.next = timer;
+        } else {
+            heads[bucket] = timer;
+        }
+        if (after != null) {
+            after.prev = timer;
+        } else {
+            tails[bucket] = timer;
+        }
+    }
+
+    private void unlink(Timer timer) {
+        int bucket = timer.bucket;
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            heads[bucket] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        } else {
+            tails[bucket] = timer.prev;
+        }
+        timer.prev = timer.next = null;
+        timer.bucket = -1;
+    }
+}
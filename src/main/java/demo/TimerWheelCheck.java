@@ -0,0 +1,337 @@
+package demo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Checks {@link TimerWheel} against a naive reference (a sorted map of deadlines) on the same
+ * scripted timers: the ticks timers fire on and their order within a tick must match exactly,
+ * since cooldowns and timed effects have to replay identically. Covers delays on both sides of
+ * every level boundary and past the wheel's span, cancelling and rescheduling from inside an
+ * action, and timers due on the same tick. Exits with status 1 if any check fails.
+ *
+ * Usage: java -cp target/classes:... demo.TimerWheelCheck [random ticks]
+ */
+public class TimerWheelCheck {
+    private static final long SPAN = 1L << 24;
+    private static final long[] DELAYS = {1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 262_143, 262_144, 262_145,
+        SPAN - 1, SPAN, SPAN + 1, 2 * SPAN + 3};
+    private static final long[] PHASES = {0, 1, 63, 64, 100, 4095, 262_143}; // Ticks run before scheduling
+    private static final int RANDOM_TIMERS = 2_000;
+
+    public static void main(String[] args) {
+        long randomTicks = args.length > 0 ? Long.parseLong(args[0]) : 3_000_000;
+
+        boolean passed = true;
+        for (long phase : PHASES) {
+            passed &= check("delays after " + phase + " ticks", fixedDelays(phase));
+        }
+        passed &= check("cancel and reschedule in action", insideAction());
+        passed &= check("same tick, scheduled apart", scheduledApart());
+        passed &= check("random, " + randomTicks + " ticks", randomTimers(randomTicks));
+
+        System.out.println(passed ? "All checks passed" : "Some checks FAILED");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(String name, Scenario scenario) {
+        List<String> expected = run(new Reference(), scenario);
+        List<String> actual = run(new Wheel(), scenario);
+        int firstDifference = 0;
+        while (firstDifference < Math.min(expected.size(), actual.size())
+               && expected.get(firstDifference).equals(actual.get(firstDifference))) {
+            firstDifference++;
+        }
+        boolean ok = expected.equals(actual);
+        System.out.printf("%-4s %-36s %8d fired%s%n", ok ? "ok" : "FAIL", name, expected.size() - 1, ok ? ""
+            : String.format(" (first difference at #%d: expected %s, got %s)", firstDifference,
+                firstDifference < expected.size() ? expected.get(firstDifference) : "nothing",
+                firstDifference < actual.size() ? actual.get(firstDifference) : "nothing"));
+        return ok;
+    }
+
+    /**
+     * Play a scenario and log every firing as "id@tick", plus the pending count at the end.
+     */
+    private static List<String> run(Timers timers, Scenario scenario) {
+        List<String> log = new ArrayList<>();
+        Random random = new Random(11);
+        timers.onFire = id -> {
+            log.add(id + "@" + timers.now());
+            scenario.fired(timers, random, id);
+        };
+        scenario.start(timers, random);
+        for (long t = 0; t < scenario.ticks(); t++) {
+            timers.advance();
+        }
+        log.add("pending " + timers.size());
+        return log;
+    }
+
+    /**
+     * Two timers per delay (same tick, scheduled in order), after {@code phase} idle ticks.
+     */
+    private static Scenario fixedDelays(long phase) {
+        return new Scenario() {
+            @Override
+            public void start(Timers timers, Random random) {
+                for (long t = 0; t < phase; t++) {
+                    timers.advance();
+                }
+                for (int i = 0; i < DELAYS.length; i++) {
+                    timers.schedule(2 * i, DELAYS[i]);
+                    timers.schedule(2 * i + 1, DELAYS[i]);
+                }
+            }
+
+            @Override
+            public long ticks() {
+                return DELAYS[DELAYS.length - 1] + 1;
+            }
+        };
+    }
+
+    /**
+     * Timers 0-3 are due on the same tick. 0 cancels 1 and moves 2 on by 5, 3 reschedules
+     * itself twice; 4 is due a tick later and cancels 3.
+     */
+    private static Scenario insideAction() {
+        return new Scenario() {
+            int fired3 = 0;
+
+            @Override
+            public void start(Timers timers, Random random) {
+                fired3 = 0;
+                for (int id = 0; id < 4; id++) {
+                    timers.schedule(id, 64);
+                }
+                timers.schedule(4, 65);
+            }
+
+            @Override
+            public void fired(Timers timers, Random random, int id) {
+                if (id == 0) {
+                    timers.cancel(1);
+                    timers.schedule(2, 5);
+                } else if (id == 3 && ++fired3 < 3) {
+                    timers.schedule(3, 1);
+                } else if (id == 4) {
+                    timers.cancel(3);
+                }
+            }
+
+            @Override
+            public long ticks() {
+                return 200;
+            }
+        };
+    }
+
+    /**
+     * Four timers due on one tick past the wheel's span, scheduled at different ticks: the first
+     * is parked beyond the span, the others are scheduled later by timer 9 as the deadline gets
+     * closer. They must fire in the order they were scheduled.
+     */
+    private static Scenario scheduledApart() {
+        long deadline = 2 * SPAN + 3;
+        long[] helperTicks = {SPAN + 10, deadline - 4095, deadline - 5};
+        return new Scenario() {
+            int next = 0;
+
+            @Override
+            public void start(Timers timers, Random random) {
+                next = 0;
+                timers.schedule(0, deadline);
+                timers.schedule(9, helperTicks[0]);
+            }
+
+            @Override
+            public void fired(Timers timers, Random random, int id) {
+                if (id != 9) return;
+                next++;
+                timers.schedule(next, deadline - timers.now());
+                if (next < helperTicks.length) {
+                    timers.schedule(9, helperTicks[next] - timers.now());
+                }
+            }
+
+            @Override
+            public long ticks() {
+                return deadline + 1;
+            }
+        };
+    }
+
+    /**
+     * Many timers with delays around the level boundaries; each firing randomly reschedules
+     * itself, cancels or reschedules another timer, or schedules two more on the same tick.
+     */
+    private static Scenario randomTimers(long ticks) {
+        return new Scenario() {
+            @Override
+            public void start(Timers timers, Random random) {
+                for (int id = 0; id < RANDOM_TIMERS; id++) {
+                    timers.schedule(id, delay(random));
+                }
+            }
+
+            @Override
+            public void fired(Timers timers, Random random, int id) {
+                int other = random.nextInt(RANDOM_TIMERS);
+                switch (random.nextInt(5)) {
+                    case 0:
+                        timers.schedule(id, delay(random));
+                        break;
+                    case 1:
+                        timers.cancel(other);
+                        timers.schedule(id, delay(random));
+                        break;
+                    case 2:
+                        timers.schedule(other, delay(random));
+                        break;
+                    case 3:
+                        long delay = delay(random);
+                        timers.schedule(other, delay);
+                        timers.schedule(id, delay);
+                        break;
+                    default:
+                        break; // Stays idle until another timer reschedules it
+                }
+            }
+
+            @Override
+            public long ticks() {
+                return ticks;
+            }
+
+            private long delay(Random random) {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        return 1 + random.nextInt(8);
+                    case 1:
+                        return 1 + random.nextInt(200);
+                    case 2:
+                        long boundary = 1L << (6 * (1 + random.nextInt(3)));
+                        return Math.max(1, boundary + random.nextInt(5) - 2);
+                    default:
+                        return 1 + random.nextInt(random.nextBoolean() ? 20_000 : 300_000);
+                }
+            }
+        };
+    }
+
+    private interface Scenario {
+        void start(Timers timers, Random random);
+
+        default void fired(Timers timers, Random random, int id) {
+        }
+
+        long ticks();
+    }
+
+    /**
+     * Timers by ID, as both implementations offer them to the scenarios.
+     */
+    private abstract static class Timers {
+        IntConsumer onFire;
+
+        abstract void schedule(int id, long delayTicks);
+
+        abstract void cancel(int id);
+
+        abstract void advance();
+
+        abstract long now();
+
+        abstract int size();
+    }
+
+    private static final class Wheel extends Timers {
+        private final TimerWheel wheel = new TimerWheel();
+        private final Map<Integer, TimerWheel.Timer> timers = new HashMap<>();
+
+        private TimerWheel.Timer timer(int id) {
+            return timers.computeIfAbsent(id, i -> new TimerWheel.Timer(() -> onFire.accept(i)));
+        }
+
+        @Override
+        void schedule(int id, long delayTicks) {
+            wheel.schedule(timer(id), delayTicks);
+        }
+
+        @Override
+        void cancel(int id) {
+            wheel.cancel(timer(id));
+        }
+
+        @Override
+        void advance() {
+            wheel.advance();
+        }
+
+        @Override
+        long now() {
+            return wheel.now();
+        }
+
+        @Override
+        int size() {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Deadlines in a sorted map, each with its timers in the order they were scheduled.
+     */
+    private static final class Reference extends Timers {
+        private final TreeMap<Long, ArrayDeque<Integer>> byDeadline = new TreeMap<>();
+        private final Map<Integer, Long> deadlines = new HashMap<>();
+        private long now = 0;
+
+        @Override
+        void schedule(int id, long delayTicks) {
+            cancel(id);
+            long deadline = now + Math.max(1, delayTicks);
+            deadlines.put(id, deadline);
+            byDeadline.computeIfAbsent(deadline, d -> new ArrayDeque<>()).addLast(id);
+        }
+
+        @Override
+        void cancel(int id) {
+            Long deadline = deadlines.remove(id);
+            if (deadline != null) {
+                byDeadline.get(deadline).remove(id);
+            }
+        }
+
+        @Override
+        void advance() {
+            now++;
+            ArrayDeque<Integer> due;
+            while ((due = byDeadline.get(now)) != null && !due.isEmpty()) {
+                int id = due.pollFirst();
+                deadlines.remove(id);
+                onFire.accept(id);
+            }
+            byDeadline.remove(now);
+        }
+
+        @Override
+        long now() {
+            return now;
+        }
+
+        @Override
+        int size() {
+            return deadlines.size();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package demo;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link EntityKernels} on the Vector API, as wide as the CPU allows. Only loaded through
+ * {@link EntityKernels#get()}, when the jdk.incubator.vector module is present.
+ */
+class VectorKernels extends EntityKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final EntityKernels.Scalar tail = new EntityKernels.Scalar();
+
+    @Override
+    void integrate(double[] x, double[] y, double[] vx, double[] vy, double[] life,
+                   int from, int to, double gravity) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector velocityY = DoubleVector.fromArray(SPECIES, vy, i);
+            DoubleVector.fromArray(SPECIES, x, i).add(DoubleVector.fromArray(SPECIES, vx, i)).intoArray(x, i);
+            DoubleVector.fromArray(SPECIES, y, i).add(velocityY).intoArray(y, i);
+            velocityY.add(gravity).intoArray(vy, i);
+            DoubleVector.fromArray(SPECIES, life, i).sub(1).intoArray(life, i);
+        }
+        tail.integrate(x, y, vx, vy, life, i, to, gravity);
+    }
+
+    @Override
+    int firstOverlap(double x, double y, double width, double height,
+                     double[] left, double[] top, double[] right, double[] bottom, int from, int to) {
+        double x2 = x + width;
+        double y2 = y + height;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            VectorMask<Double> hit = DoubleVector.fromArray(SPECIES, right, i).compare(VectorOperators.GT, x)
+                .and(DoubleVector.fromArray(SPECIES, left, i).compare(VectorOperators.LT, x2))
+                .and(DoubleVector.fromArray(SPECIES, bottom, i).compare(VectorOperators.GT, y))
+                .and(DoubleVector.fromArray(SPECIES, top, i).compare(VectorOperators.LT, y2));
+            if (hit.anyTrue()) {
+                return i + hit.firstTrue();
+            }
+        }
+        return tail.firstOverlap(x, y, width, height, left, top, right, bottom, i, to);
+    }
+
+    @Override
+    String describe() {
+        return "vector (" + SPECIES.length() + " x double)";
+    }
+}
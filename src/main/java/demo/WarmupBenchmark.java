@@ -0,0 +1,107 @@
+package demo;
+
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures per-frame work time over the first 30 seconds of a session (1800 ticks of scripted
+ * input, step + render) in fresh JVMs, with and without {@link GameWarmup} first.
+ * Renders into an offscreen canvas when a display is available, otherwise measures the simulation only.
+ *
+ * Usage: java -cp target/classes:... demo.WarmupBenchmark [--repeats 3]
+ */
+public class WarmupBenchmark {
+    private static final int SESSION_TICKS = 30 * Game.TICKS_PER_SECOND;
+    private static final long WARMUP_MAX_MILLIS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("--child")) {
+            runChild(args[1].equals("warm"));
+            return;
+        }
+
+        int repeats = 3;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--repeats") && i + 1 < args.length) {
+                repeats = Integer.parseInt(args[++i]);
+            }
+        }
+
+        System.out.println("First 30 s of a session (" + SESSION_TICKS + " frames), frame work time in ms, fresh JVM per row");
+        System.out.printf("%-8s %-10s %8s %8s %8s %8s %9s  %s%n", "warm-up", "mode", "p50", "p99", "p99.9", "max", "total", "warm-up result");
+        for (int r = 0; r < repeats; r++) {
+            for (String mode : new String[] {"cold", "warm"}) {
+                System.out.println(runInChildJvm(mode));
+            }
+        }
+    }
+
+    private static String runInChildJvm(String mode) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>(List.of(java, "-Dlog.dir=", "-Dlog.console=false",
+            "-cp", System.getProperty("java.class.path"), WarmupBenchmark.class.getName(), "--child", mode));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith("RESULT ")) result = line.substring(7);
+            }
+        }
+        process.waitFor();
+        return result != null ? result : mode + ": child JVM failed (exit " + process.exitValue() + ")";
+    }
+
+    private static void runChild(boolean warm) throws Exception {
+        Canvas canvas = startToolkit() ? new Canvas(1280, 720) : null;
+        // Same tick threads as the game window uses by default
+        ForkJoinPool pool = Game.createTickPool(Runtime.getRuntime().availableProcessors());
+
+        String warmup = "-";
+        if (warm) {
+            warmup = GameWarmup.run(canvas, pool, WARMUP_MAX_MILLIS).toString();
+        }
+
+        // A session the warm-up has not seen
+        Game game = new Game(42, canvas, pool);
+        BotInput bot = new BotInput(new Random(43), false);
+        LatencyHistogram frames = new LatencyHistogram();
+        long start = System.nanoTime();
+        for (int i = 0; i < SESSION_TICKS; i++) {
+            long frameStart = System.nanoTime();
+            if (game.isGameOver()) {
+                game = new Game(i, canvas, pool);
+            }
+            game.step(bot.next());
+            game.renderFrame();
+            frames.record(System.nanoTime() - frameStart);
+        }
+        long total = System.nanoTime() - start;
+
+        System.out.printf("RESULT %-8s %-10s %8.3f %8.3f %8.3f %8.2f %7.0f ms  %s%n",
+            warm ? "yes" : "no", canvas != null ? "sim+render" : "sim only",
+            frames.getPercentileMillis(0.50), frames.getPercentileMillis(0.99), frames.getPercentileMillis(0.999),
+            frames.getMaxMillis(), total / 1e6, warmup);
+        System.exit(0);
+    }
+
+    private static boolean startToolkit() {
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Platform.startup(started::countDown);
+            started.await();
+            return true;
+        } catch (Throwable e) {
+            return false; // No display
+        }
+    }
+}